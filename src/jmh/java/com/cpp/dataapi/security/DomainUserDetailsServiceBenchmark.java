@@ -0,0 +1,72 @@
+package com.cpp.dataapi.security;
+
+import com.cpp.dataapi.config.ApplicationProperties;
+import com.cpp.dataapi.domain.Authority;
+import com.cpp.dataapi.domain.User;
+import com.cpp.dataapi.repository.AuthorityRepository;
+import com.cpp.dataapi.service.UserCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * Benchmark of {@link DomainUserDetailsService#loadUserByUsername}, by login and by email, against an in-memory
+ * repository, with and without the {@link UserCache} in front of it.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DomainUserDetailsServiceBenchmark {
+
+    private static final int USER_COUNT = 1000;
+
+    @Param({ "true", "false" })
+    public boolean userCache;
+
+    private DomainUserDetailsService domainUserDetailsService;
+
+    @Setup
+    public void setup() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USER_COUNT; i++) {
+            User user = new User();
+            user.setId("user-" + i);
+            user.setLogin("user-" + i);
+            user.setEmail("user-" + i + "@localhost");
+            user.setPassword("$2a$10$VEjxo0jq2YG9Rbk2HmX9S.k1uZBGYUHdUcid3g/vfiEl7lwWgOH/K");
+            user.setActivated(true);
+            user.getAuthorities().add(authority(AuthoritiesConstants.USER));
+            user.getAuthorities().add(authority("ROLE_SITE_MONITOR"));
+            users.add(user);
+        }
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getCache().getUsers().setEnabled(userCache);
+        domainUserDetailsService = new DomainUserDetailsService(
+            new UserCache(InMemoryUserRepository.of(users), applicationProperties, new SimpleMeterRegistry()),
+            new AuthorityRegistry(Mockito.mock(AuthorityRepository.class))
+        );
+    }
+
+    private static Authority authority(String name) {
+        Authority authority = new Authority();
+        authority.setName(name);
+        return authority;
+    }
+
+    @Benchmark
+    public UserDetails loadUserByLogin() {
+        return domainUserDetailsService.loadUserByUsername("User-500");
+    }
+
+    @Benchmark
+    public UserDetails loadUserByEmail() {
+        return domainUserDetailsService.loadUserByUsername("User-500@localhost");
+    }
+}
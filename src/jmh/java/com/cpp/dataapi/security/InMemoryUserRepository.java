@@ -0,0 +1,41 @@
+package com.cpp.dataapi.security;
+
+import com.cpp.dataapi.domain.User;
+import com.cpp.dataapi.repository.UserRepository;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Map-backed stand-in for the {@link UserRepository}, answering the lookups done during authentication without any
+ * database round-trip so that benchmarks only measure the application code.
+ */
+final class InMemoryUserRepository {
+
+    private InMemoryUserRepository() {}
+
+    static UserRepository of(Iterable<User> users) {
+        Map<String, User> usersByLogin = new HashMap<>();
+        Map<String, User> usersByEmail = new HashMap<>();
+        for (User user : users) {
+            usersByLogin.put(user.getLogin(), user);
+            usersByEmail.put(user.getEmail().toLowerCase(Locale.ENGLISH), user);
+        }
+        return (UserRepository) Proxy.newProxyInstance(
+            UserRepository.class.getClassLoader(),
+            new Class<?>[] { UserRepository.class },
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "findOneByLogin":
+                        return Optional.ofNullable(usersByLogin.get((String) args[0]));
+                    case "findOneByEmailIgnoreCase":
+                        return Optional.ofNullable(usersByEmail.get(((String) args[0]).toLowerCase(Locale.ENGLISH)));
+                    default:
+                        throw new UnsupportedOperationException(method.getName() + " is not supported by the in-memory repository");
+                }
+            }
+        );
+    }
+}
@@ -0,0 +1,56 @@
+package com.cpp.dataapi.security.jwt;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Benchmark of {@link JWTFilter#doFilter} for a request carrying a valid bearer token.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class JWTFilterBenchmark {
+
+    private static final FilterChain NO_OP_FILTER_CHAIN = (request, response) -> {};
+
+    @Param({ "true", "false" })
+    public boolean tokenCache;
+
+    private JWTFilter jwtFilter;
+
+    private MockHttpServletRequest request;
+
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setup() {
+        TokenProvider tokenProvider = TokenProviderBenchmark.createTokenProvider(tokenCache);
+        String jwt = tokenProvider.createToken(
+            new UsernamePasswordAuthenticationToken("study-admin", "", TokenProviderBenchmark.AUTHORITIES),
+            false
+        );
+        jwtFilter = new JWTFilter(tokenProvider);
+        request = new MockHttpServletRequest("GET", "/api/account");
+        request.addHeader(JWTFilter.AUTHORIZATION_HEADER, "Bearer " + jwt);
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public Authentication doFilter() throws IOException, ServletException {
+        jwtFilter.doFilter(request, response, NO_OP_FILTER_CHAIN);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
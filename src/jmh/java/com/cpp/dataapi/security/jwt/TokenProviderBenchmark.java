@@ -0,0 +1,98 @@
+package com.cpp.dataapi.security.jwt;
+
+import com.cpp.dataapi.config.ApplicationProperties;
+import com.cpp.dataapi.management.SecurityMetersService;
+import com.cpp.dataapi.repository.AuthorityRepository;
+import com.cpp.dataapi.security.AuthoritiesConstants;
+import com.cpp.dataapi.security.AuthorityRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Benchmarks of the JWT creation, validation and authentication resolution done by {@link TokenProvider}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenProviderBenchmark {
+
+    static final String BASE64_SECRET =
+        "fd54a45s65fds737b9aafcb3412e07ed99b267f33413274720ddbb7f6c5e64e9f14075f2d7ed041592f0b7657baf8";
+
+    /**
+     * Authorities of a typical study administrator: the two built-in roles plus site and study roles.
+     */
+    static final List<GrantedAuthority> AUTHORITIES = Stream
+        .of(
+            AuthoritiesConstants.ADMIN,
+            AuthoritiesConstants.USER,
+            "ROLE_STUDY_MANAGER",
+            "ROLE_SITE_MONITOR",
+            "ROLE_DATA_MANAGER",
+            "ROLE_AUDITOR"
+        )
+        .map(SimpleGrantedAuthority::new)
+        .collect(Collectors.toList());
+
+    @Param({ "true", "false" })
+    public boolean tokenCache;
+
+    private TokenProvider tokenProvider;
+
+    private Authentication authentication;
+
+    private String token;
+
+    @Setup
+    public void setup() {
+        tokenProvider = createTokenProvider(tokenCache);
+        authentication = new UsernamePasswordAuthenticationToken("study-admin", "", AUTHORITIES);
+        token = tokenProvider.createToken(authentication, false);
+    }
+
+    static TokenProvider createTokenProvider(boolean tokenCache) {
+        JHipsterProperties jHipsterProperties = new JHipsterProperties();
+        jHipsterProperties.getSecurity().getAuthentication().getJwt().setBase64Secret(BASE64_SECRET);
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getSecurity().getTokenCache().setEnabled(tokenCache);
+        return new TokenProvider(
+            jHipsterProperties,
+            new SecurityMetersService(new SimpleMeterRegistry()),
+            applicationProperties,
+            new AuthorityRegistry(Mockito.mock(AuthorityRepository.class))
+        );
+    }
+
+    @Benchmark
+    public String createToken() {
+        return tokenProvider.createToken(authentication, false);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return tokenProvider.validateToken(token);
+    }
+
+    @Benchmark
+    public Authentication getAuthentication() {
+        return tokenProvider.getAuthentication(token);
+    }
+
+    @Benchmark
+    public TokenValidationResult parseToken() {
+        return tokenProvider.parseToken(token);
+    }
+}
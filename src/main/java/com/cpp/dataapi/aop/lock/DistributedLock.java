@@ -0,0 +1,37 @@
+package com.cpp.dataapi.aop.lock;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs a method on a single node of the cluster at a time, typically a {@code @Scheduled} job.
+ * <p>
+ * The node taking the lease runs the method, the other ones skip it. The method must return {@code void}, and be
+ * called through its Spring proxy.
+ *
+ * @see DistributedLockAspect
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface DistributedLock {
+    /**
+     * @return the name of the lock, shared by all the nodes.
+     */
+    String name();
+
+    /**
+     * @return how long the lease is held at most, as a duration such as {@code 1h} or {@code PT1H}, or a property
+     * placeholder resolving to one. It must exceed the duration of the method.
+     */
+    String lease();
+
+    /**
+     * @return how long the lease is held at least, so that nodes whose clock is late do not run the method again right
+     * after it completed.
+     */
+    String minLease() default "0s";
+}
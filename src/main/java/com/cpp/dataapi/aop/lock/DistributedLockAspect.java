@@ -0,0 +1,59 @@
+package com.cpp.dataapi.aop.lock;
+
+import com.cpp.dataapi.service.JobLease;
+import com.cpp.dataapi.service.JobLockService;
+import java.time.Duration;
+import java.util.Optional;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.env.Environment;
+
+/**
+ * Aspect taking the {@link JobLockService} lease of the methods annotated with {@link DistributedLock}.
+ */
+@Aspect
+public class DistributedLockAspect {
+
+    private final Logger log = LoggerFactory.getLogger(DistributedLockAspect.class);
+
+    private final JobLockService jobLockService;
+
+    private final Environment env;
+
+    public DistributedLockAspect(JobLockService jobLockService, Environment env) {
+        this.jobLockService = jobLockService;
+        this.env = env;
+    }
+
+    /**
+     * Runs the method only if the lease of its lock could be taken.
+     *
+     * @param joinPoint       join point for advice.
+     * @param distributedLock the lock of the method.
+     * @return result.
+     * @throws Throwable throws {@link IllegalArgumentException}.
+     */
+    @Around("@annotation(distributedLock)")
+    public Object runLocked(ProceedingJoinPoint joinPoint, DistributedLock distributedLock) throws Throwable {
+        Duration lease = duration(distributedLock.lease());
+        Duration minLease = duration(distributedLock.minLease());
+        Optional<JobLease> jobLease = jobLockService.tryLock(distributedLock.name(), lease);
+        if (!jobLease.isPresent()) {
+            log.debug("Skipping {}, locked by another node", joinPoint.getSignature().toShortString());
+            return null;
+        }
+        try {
+            return joinPoint.proceed();
+        } finally {
+            jobLockService.unlock(jobLease.get(), minLease);
+        }
+    }
+
+    private Duration duration(String value) {
+        return DurationStyle.detectAndParse(env.resolveRequiredPlaceholders(value));
+    }
+}
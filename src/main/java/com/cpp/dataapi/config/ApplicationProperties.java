@@ -1,5 +1,6 @@
 package com.cpp.dataapi.config;
 
+import java.time.Duration;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -9,4 +10,762 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  * See {@link tech.jhipster.config.JHipsterProperties} for a good example.
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
-public class ApplicationProperties {}
+public class ApplicationProperties {
+
+    private final Security security = new Security();
+
+    private final Cache cache = new Cache();
+
+    private final Jobs jobs = new Jobs();
+
+    private final UserExport userExport = new UserExport();
+
+    private final UserImport userImport = new UserImport();
+
+    private final UserChanges userChanges = new UserChanges();
+
+    private final MailOutbox mailOutbox = new MailOutbox();
+
+    private final Executors executors = new Executors();
+
+    private final VirtualThreads virtualThreads = new VirtualThreads();
+
+    public Security getSecurity() {
+        return security;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public Jobs getJobs() {
+        return jobs;
+    }
+
+    public UserExport getUserExport() {
+        return userExport;
+    }
+
+    public UserImport getUserImport() {
+        return userImport;
+    }
+
+    public UserChanges getUserChanges() {
+        return userChanges;
+    }
+
+    public MailOutbox getMailOutbox() {
+        return mailOutbox;
+    }
+
+    public Executors getExecutors() {
+        return executors;
+    }
+
+    public VirtualThreads getVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public static class Security {
+
+        private final TokenCache tokenCache = new TokenCache();
+
+        private final PasswordHashing passwordHashing = new PasswordHashing();
+
+        private final AuthorityCatalog authorityCatalog = new AuthorityCatalog();
+
+        private final LoginThrottling loginThrottling = new LoginThrottling();
+
+        /**
+         * Issue tokens encoding the well-known authorities as a bitmask instead of a comma-separated string.
+         * Tokens in both formats are accepted whatever this setting, so it can be switched on during a rolling upgrade
+         * once every node understands the compact format.
+         */
+        private boolean compactTokenAuthorities = false;
+
+        public TokenCache getTokenCache() {
+            return tokenCache;
+        }
+
+        public PasswordHashing getPasswordHashing() {
+            return passwordHashing;
+        }
+
+        public AuthorityCatalog getAuthorityCatalog() {
+            return authorityCatalog;
+        }
+
+        public LoginThrottling getLoginThrottling() {
+            return loginThrottling;
+        }
+
+        public boolean isCompactTokenAuthorities() {
+            return compactTokenAuthorities;
+        }
+
+        public void setCompactTokenAuthorities(boolean compactTokenAuthorities) {
+            this.compactTokenAuthorities = compactTokenAuthorities;
+        }
+
+        /**
+         * Cache of already verified JWTs, so that repeated requests with the same token skip parsing and signature checks.
+         */
+        public static class TokenCache {
+
+            private boolean enabled = true;
+
+            private long maxEntries = 10_000;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public long getMaxEntries() {
+                return maxEntries;
+            }
+
+            public void setMaxEntries(long maxEntries) {
+                this.maxEntries = maxEntries;
+            }
+        }
+
+        /**
+         * Bounded pool hashing and verifying the passwords off the request threads, and cost of the BCrypt hashes.
+         */
+        public static class PasswordHashing {
+
+            private int poolSize = Runtime.getRuntime().availableProcessors();
+
+            private int queueCapacity = 1000;
+
+            /**
+             * Passwords being hashed or verified for requests, beyond which new ones wait for {@link #admissionTimeout}
+             * then are rejected.
+             */
+            private int maxPending = 100;
+
+            /**
+             * Time the requests wait for one of the {@link #maxPending} slots, then for a thread of the pool.
+             */
+            private Duration admissionTimeout = Duration.ofMillis(500);
+
+            /**
+             * Delay suggested to the clients whose request was rejected, in the {@code Retry-After} header.
+             */
+            private Duration retryAfter = Duration.ofSeconds(1);
+
+            /**
+             * Encoder of the new hashes: {@code bcrypt}, {@code pbkdf2}, or {@code argon2} when Bouncy Castle is on the
+             * classpath. The hashes made by another encoder, or with a lower BCrypt cost, are upgraded on login.
+             */
+            private String encodingId = "bcrypt";
+
+            /**
+             * Cost of the new BCrypt hashes, which must be the same on all the nodes.
+             */
+            private int cost = 10;
+
+            /**
+             * Measure at startup the highest cost, between {@link #minCost} and {@link #maxCost}, hashing within
+             * {@link #targetLatency} on this host, and warn if it differs from {@link #cost}, which is still used.
+             */
+            private boolean calibrate = false;
+
+            private Duration targetLatency = Duration.ofMillis(250);
+
+            private int minCost = 10;
+
+            private int maxCost = 14;
+
+            public int getPoolSize() {
+                return poolSize;
+            }
+
+            public void setPoolSize(int poolSize) {
+                this.poolSize = poolSize;
+            }
+
+            public int getQueueCapacity() {
+                return queueCapacity;
+            }
+
+            public void setQueueCapacity(int queueCapacity) {
+                this.queueCapacity = queueCapacity;
+            }
+
+            public int getMaxPending() {
+                return maxPending;
+            }
+
+            public void setMaxPending(int maxPending) {
+                this.maxPending = maxPending;
+            }
+
+            public Duration getAdmissionTimeout() {
+                return admissionTimeout;
+            }
+
+            public void setAdmissionTimeout(Duration admissionTimeout) {
+                this.admissionTimeout = admissionTimeout;
+            }
+
+            public Duration getRetryAfter() {
+                return retryAfter;
+            }
+
+            public void setRetryAfter(Duration retryAfter) {
+                this.retryAfter = retryAfter;
+            }
+
+            public String getEncodingId() {
+                return encodingId;
+            }
+
+            public void setEncodingId(String encodingId) {
+                this.encodingId = encodingId;
+            }
+
+            public int getCost() {
+                return cost;
+            }
+
+            public void setCost(int cost) {
+                this.cost = cost;
+            }
+
+            public boolean isCalibrate() {
+                return calibrate;
+            }
+
+            public void setCalibrate(boolean calibrate) {
+                this.calibrate = calibrate;
+            }
+
+            public Duration getTargetLatency() {
+                return targetLatency;
+            }
+
+            public void setTargetLatency(Duration targetLatency) {
+                this.targetLatency = targetLatency;
+            }
+
+            public int getMinCost() {
+                return minCost;
+            }
+
+            public void setMinCost(int minCost) {
+                this.minCost = minCost;
+            }
+
+            public int getMaxCost() {
+                return maxCost;
+            }
+
+            public void setMaxCost(int maxCost) {
+                this.maxCost = maxCost;
+            }
+        }
+
+        /**
+         * Limit of the failed logins per login name and per client address, over a sliding window.
+         */
+        public static class LoginThrottling {
+
+            private boolean enabled = true;
+
+            private Duration window = Duration.ofMinutes(15);
+
+            private long maxFailuresPerLogin = 10;
+
+            private long maxFailuresPerIp = 100;
+
+            private Store store = Store.MEMORY;
+
+            /**
+             * Logins and addresses tracked at most by the in-memory store, the least recently used being forgotten.
+             */
+            private long maxTrackedKeys = 100_000;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public Duration getWindow() {
+                return window;
+            }
+
+            public void setWindow(Duration window) {
+                this.window = window;
+            }
+
+            public long getMaxFailuresPerLogin() {
+                return maxFailuresPerLogin;
+            }
+
+            public void setMaxFailuresPerLogin(long maxFailuresPerLogin) {
+                this.maxFailuresPerLogin = maxFailuresPerLogin;
+            }
+
+            public long getMaxFailuresPerIp() {
+                return maxFailuresPerIp;
+            }
+
+            public void setMaxFailuresPerIp(long maxFailuresPerIp) {
+                this.maxFailuresPerIp = maxFailuresPerIp;
+            }
+
+            public Store getStore() {
+                return store;
+            }
+
+            public void setStore(Store store) {
+                this.store = store;
+            }
+
+            public long getMaxTrackedKeys() {
+                return maxTrackedKeys;
+            }
+
+            public void setMaxTrackedKeys(long maxTrackedKeys) {
+                this.maxTrackedKeys = maxTrackedKeys;
+            }
+
+            public enum Store {
+                /**
+                 * Count the failures of each node on its own.
+                 */
+                MEMORY,
+                /**
+                 * Count the failures in MongoDB, shared by the nodes of the cluster.
+                 */
+                MONGO,
+            }
+        }
+
+        /**
+         * In-memory catalog of the stored authorities, also reloaded whenever they change.
+         */
+        public static class AuthorityCatalog {
+
+            private long refreshIntervalMillis = 300_000;
+
+            public long getRefreshIntervalMillis() {
+                return refreshIntervalMillis;
+            }
+
+            public void setRefreshIntervalMillis(long refreshIntervalMillis) {
+                this.refreshIntervalMillis = refreshIntervalMillis;
+            }
+        }
+    }
+
+    public static class Cache {
+
+        private final Users users = new Users();
+
+        public Users getUsers() {
+            return users;
+        }
+
+        /**
+         * Local cache of the users looked up by login and by email.
+         */
+        public static class Users {
+
+            private boolean enabled = true;
+
+            private long maxEntries = 10_000;
+
+            private long timeToLiveSeconds = 300;
+
+            private final Invalidation invalidation = new Invalidation();
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public long getMaxEntries() {
+                return maxEntries;
+            }
+
+            public void setMaxEntries(long maxEntries) {
+                this.maxEntries = maxEntries;
+            }
+
+            public long getTimeToLiveSeconds() {
+                return timeToLiveSeconds;
+            }
+
+            public void setTimeToLiveSeconds(long timeToLiveSeconds) {
+                this.timeToLiveSeconds = timeToLiveSeconds;
+            }
+
+            public Invalidation getInvalidation() {
+                return invalidation;
+            }
+
+            /**
+             * Eviction of the users changed by other nodes, from a change stream on replica sets or by polling the
+             * last modified dates otherwise.
+             */
+            public static class Invalidation {
+
+                private InvalidationMode mode = InvalidationMode.AUTO;
+
+                private long pollIntervalMillis = 5_000;
+
+                private long maxClockSkewMillis = 5_000;
+
+                public InvalidationMode getMode() {
+                    return mode;
+                }
+
+                public void setMode(InvalidationMode mode) {
+                    this.mode = mode;
+                }
+
+                public long getPollIntervalMillis() {
+                    return pollIntervalMillis;
+                }
+
+                public void setPollIntervalMillis(long pollIntervalMillis) {
+                    this.pollIntervalMillis = pollIntervalMillis;
+                }
+
+                public long getMaxClockSkewMillis() {
+                    return maxClockSkewMillis;
+                }
+
+                public void setMaxClockSkewMillis(long maxClockSkewMillis) {
+                    this.maxClockSkewMillis = maxClockSkewMillis;
+                }
+            }
+
+            public enum InvalidationMode {
+                /**
+                 * Use a change stream, and fall back to polling when the database is not a replica set.
+                 */
+                AUTO,
+                CHANGE_STREAM,
+                POLLING,
+                NONE,
+            }
+        }
+    }
+
+    public static class Jobs {
+
+        private final RemoveNotActivatedUsers removeNotActivatedUsers = new RemoveNotActivatedUsers();
+
+        public RemoveNotActivatedUsers getRemoveNotActivatedUsers() {
+            return removeNotActivatedUsers;
+        }
+
+        /**
+         * Nightly removal of the users who did not activate their account.
+         */
+        public static class RemoveNotActivatedUsers {
+
+            private int batchSize = 1000;
+
+            private Duration lockLease = Duration.ofHours(1);
+
+            private Duration minLockLease = Duration.ofMinutes(5);
+
+            public int getBatchSize() {
+                return batchSize;
+            }
+
+            public void setBatchSize(int batchSize) {
+                this.batchSize = batchSize;
+            }
+
+            public Duration getLockLease() {
+                return lockLease;
+            }
+
+            public void setLockLease(Duration lockLease) {
+                this.lockLease = lockLease;
+            }
+
+            public Duration getMinLockLease() {
+                return minLockLease;
+            }
+
+            public void setMinLockLease(Duration minLockLease) {
+                this.minLockLease = minLockLease;
+            }
+        }
+    }
+
+    /**
+     * Streamed export of the users to the admins.
+     */
+    public static class UserExport {
+
+        /**
+         * How long an export may run until the whole body is written, instead of the default async request timeout.
+         */
+        private Duration timeout = Duration.ofHours(1);
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+    }
+
+    /**
+     * Bulk import of users by the admins.
+     */
+    public static class UserImport {
+
+        private int batchSize = 500;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+    }
+
+    /**
+     * Change feed of the users.
+     */
+    public static class UserChanges {
+
+        /**
+         * How long changes are held back before being read, so that writes stamped earlier but committed later, for
+         * instance by a node whose clock is late, are not skipped by readers.
+         */
+        private Duration settleWindow = Duration.ofSeconds(5);
+
+        public Duration getSettleWindow() {
+            return settleWindow;
+        }
+
+        public void setSettleWindow(Duration settleWindow) {
+            this.settleWindow = settleWindow;
+        }
+    }
+
+    /**
+     * Outbox of the emails, sent in batches by a single node of the cluster.
+     */
+    public static class MailOutbox {
+
+        private boolean enabled = true;
+
+        private long pollIntervalMillis = 1_000;
+
+        private int batchSize = 50;
+
+        private int maxAttempts = 8;
+
+        private Duration initialBackoff = Duration.ofSeconds(30);
+
+        private Duration maxBackoff = Duration.ofHours(1);
+
+        private Duration lockLease = Duration.ofMinutes(5);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getPollIntervalMillis() {
+            return pollIntervalMillis;
+        }
+
+        public void setPollIntervalMillis(long pollIntervalMillis) {
+            this.pollIntervalMillis = pollIntervalMillis;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public Duration getInitialBackoff() {
+            return initialBackoff;
+        }
+
+        public void setInitialBackoff(Duration initialBackoff) {
+            this.initialBackoff = initialBackoff;
+        }
+
+        public Duration getMaxBackoff() {
+            return maxBackoff;
+        }
+
+        public void setMaxBackoff(Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+        }
+
+        public Duration getLockLease() {
+            return lockLease;
+        }
+
+        public void setLockLease(Duration lockLease) {
+            this.lockLease = lockLease;
+        }
+    }
+
+    /**
+     * Executors of the background workloads, so that a slow one cannot starve the others. Password hashing has its own
+     * executor, configured in {@link Security.PasswordHashing}.
+     */
+    public static class Executors {
+
+        private final Pool mail = new Pool(1, 1, 0, RejectionPolicy.DISCARD);
+
+        private final Pool export = new Pool(2, 4, 8, RejectionPolicy.ABORT);
+
+        private final Pool cleanup = new Pool(1, 1, 10, RejectionPolicy.DISCARD);
+
+        /**
+         * Sends the emails of the outbox.
+         */
+        public Pool getMail() {
+            return mail;
+        }
+
+        /**
+         * Writes the streamed responses, such as the user export.
+         */
+        public Pool getExport() {
+            return export;
+        }
+
+        /**
+         * Runs the cleanup jobs, such as the removal of the users not activated.
+         */
+        public Pool getCleanup() {
+            return cleanup;
+        }
+
+        public enum RejectionPolicy {
+            /**
+             * Fail the submission, with a {@code TaskRejectedException}.
+             */
+            ABORT,
+            /**
+             * Run the task in the submitting thread.
+             */
+            CALLER_RUNS,
+            /**
+             * Drop the task, for periodic work which the next run catches up on.
+             */
+            DISCARD,
+        }
+
+        public static class Pool {
+
+            private int corePoolSize;
+
+            private int maxPoolSize;
+
+            private int queueCapacity;
+
+            private RejectionPolicy rejectionPolicy;
+
+            Pool(int corePoolSize, int maxPoolSize, int queueCapacity, RejectionPolicy rejectionPolicy) {
+                this.corePoolSize = corePoolSize;
+                this.maxPoolSize = maxPoolSize;
+                this.queueCapacity = queueCapacity;
+                this.rejectionPolicy = rejectionPolicy;
+            }
+
+            public int getCorePoolSize() {
+                return corePoolSize;
+            }
+
+            public void setCorePoolSize(int corePoolSize) {
+                this.corePoolSize = corePoolSize;
+            }
+
+            public int getMaxPoolSize() {
+                return maxPoolSize;
+            }
+
+            public void setMaxPoolSize(int maxPoolSize) {
+                this.maxPoolSize = maxPoolSize;
+            }
+
+            public int getQueueCapacity() {
+                return queueCapacity;
+            }
+
+            public void setQueueCapacity(int queueCapacity) {
+                this.queueCapacity = queueCapacity;
+            }
+
+            public RejectionPolicy getRejectionPolicy() {
+                return rejectionPolicy;
+            }
+
+            public void setRejectionPolicy(RejectionPolicy rejectionPolicy) {
+                this.rejectionPolicy = rejectionPolicy;
+            }
+        }
+    }
+
+    /**
+     * Opt-in mode running the request handling and the async executors on virtual threads, on Java 21 or later.
+     */
+    public static class VirtualThreads {
+
+        private boolean enabled = false;
+
+        /**
+         * Virtual threads blocking while pinned to their carrier for longer than this are counted and logged.
+         */
+        private Duration pinnedThreshold = Duration.ofMillis(20);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getPinnedThreshold() {
+            return pinnedThreshold;
+        }
+
+        public void setPinnedThreshold(Duration pinnedThreshold) {
+            this.pinnedThreshold = pinnedThreshold;
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package com.cpp.dataapi.config;
 
+import com.cpp.dataapi.security.BoundedPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
 import org.springframework.aop.interceptor.SimpleAsyncUncaughtExceptionHandler;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.task.TaskExecutionProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -14,31 +19,126 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import tech.jhipster.async.ExceptionHandlingAsyncTaskExecutor;
 
+/**
+ * Configuration of the executors of the background work.
+ * <p>
+ * Each workload has its own bounded executor, selected with {@code @Async} and the name of its bean, so that a slow
+ * one cannot fill the queue of the others. The {@code taskExecutor} only runs the {@code @Async} methods naming no
+ * executor.
+ */
 @Configuration
 @EnableAsync
 @EnableScheduling
 public class AsyncConfiguration implements AsyncConfigurer {
 
+    public static final String PASSWORD_HASHING_EXECUTOR = "passwordHashingExecutor";
+
+    public static final String PASSWORD_HASHING_THREAD_NAME_PREFIX = "password-hashing-";
+
+    public static final String MAIL_EXECUTOR = "mailExecutor";
+
+    public static final String EXPORT_EXECUTOR = "exportExecutor";
+
+    public static final String CLEANUP_EXECUTOR = "cleanupExecutor";
+
     private final Logger log = LoggerFactory.getLogger(AsyncConfiguration.class);
 
     private final TaskExecutionProperties taskExecutionProperties;
 
-    public AsyncConfiguration(TaskExecutionProperties taskExecutionProperties) {
+    private final ApplicationProperties applicationProperties;
+
+    // Resolved when the executors are created: an AsyncConfigurer is instantiated before the meter registry is configured
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public AsyncConfiguration(
+        TaskExecutionProperties taskExecutionProperties,
+        ApplicationProperties applicationProperties,
+        ObjectProvider<MeterRegistry> meterRegistry
+    ) {
         this.taskExecutionProperties = taskExecutionProperties;
+        this.applicationProperties = applicationProperties;
+        this.meterRegistry = meterRegistry;
     }
 
     @Override
     @Bean(name = "taskExecutor")
     public Executor getAsyncExecutor() {
         log.debug("Creating Async Task Executor");
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        ThreadPoolTaskExecutor executor = new MeteredThreadPoolTaskExecutor("task", meterRegistry.getObject());
         executor.setCorePoolSize(taskExecutionProperties.getPool().getCoreSize());
         executor.setMaxPoolSize(taskExecutionProperties.getPool().getMaxSize());
         executor.setQueueCapacity(taskExecutionProperties.getPool().getQueueCapacity());
         executor.setThreadNamePrefix(taskExecutionProperties.getThreadNamePrefix());
+        useVirtualThreads(executor);
         return new ExceptionHandlingAsyncTaskExecutor(executor);
     }
 
+    @Bean(name = PASSWORD_HASHING_EXECUTOR)
+    public ThreadPoolTaskExecutor passwordHashingExecutor() {
+        log.debug("Creating Password Hashing Executor");
+        ApplicationProperties.Security.PasswordHashing properties = applicationProperties.getSecurity().getPasswordHashing();
+        ThreadPoolTaskExecutor executor = new MeteredThreadPoolTaskExecutor("passwordHashing", meterRegistry.getObject());
+        executor.setCorePoolSize(properties.getPoolSize());
+        executor.setMaxPoolSize(properties.getPoolSize());
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setThreadNamePrefix(PASSWORD_HASHING_THREAD_NAME_PREFIX);
+        // The encoder hashes inline on the threads of this pool, which it recognizes by their type
+        executor.setThreadFactory(BoundedPasswordEncoder.poolThreadFactory(PASSWORD_HASHING_THREAD_NAME_PREFIX));
+        // Hashing never runs on the submitting thread: a full queue rejects the task, and the request gets a 503
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    @Bean(name = MAIL_EXECUTOR)
+    public ThreadPoolTaskExecutor mailExecutor() {
+        log.debug("Creating Mail Executor");
+        return createExecutor("mail", applicationProperties.getExecutors().getMail());
+    }
+
+    @Bean(name = EXPORT_EXECUTOR)
+    public ThreadPoolTaskExecutor exportExecutor() {
+        log.debug("Creating Export Executor");
+        return createExecutor("export", applicationProperties.getExecutors().getExport());
+    }
+
+    @Bean(name = CLEANUP_EXECUTOR)
+    public ThreadPoolTaskExecutor cleanupExecutor() {
+        log.debug("Creating Cleanup Executor");
+        return createExecutor("cleanup", applicationProperties.getExecutors().getCleanup());
+    }
+
+    private ThreadPoolTaskExecutor createExecutor(String name, ApplicationProperties.Executors.Pool pool) {
+        ThreadPoolTaskExecutor executor = new MeteredThreadPoolTaskExecutor(name, meterRegistry.getObject());
+        executor.setCorePoolSize(pool.getCorePoolSize());
+        executor.setMaxPoolSize(pool.getMaxPoolSize());
+        executor.setQueueCapacity(pool.getQueueCapacity());
+        executor.setThreadNamePrefix(name + "-");
+        executor.setRejectedExecutionHandler(rejectedExecutionHandler(pool.getRejectionPolicy()));
+        useVirtualThreads(executor);
+        return executor;
+    }
+
+    /**
+     * Runs the tasks of an I/O bound executor on virtual threads, in the virtual threads mode. The pool still bounds how
+     * many tasks run at once. Password hashing is CPU bound and keeps its platform threads.
+     */
+    private void useVirtualThreads(ThreadPoolTaskExecutor executor) {
+        if (applicationProperties.getVirtualThreads().isEnabled()) {
+            executor.setThreadFactory(VirtualThreadSupport.threadFactory(executor.getThreadNamePrefix() + "virtual-"));
+        }
+    }
+
+    private static RejectedExecutionHandler rejectedExecutionHandler(ApplicationProperties.Executors.RejectionPolicy policy) {
+        switch (policy) {
+            case CALLER_RUNS:
+                return new ThreadPoolExecutor.CallerRunsPolicy();
+            case DISCARD:
+                return new ThreadPoolExecutor.DiscardPolicy();
+            default:
+                return new ThreadPoolExecutor.AbortPolicy();
+        }
+    }
+
     @Override
     public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
         return new SimpleAsyncUncaughtExceptionHandler();
@@ -0,0 +1,16 @@
+package com.cpp.dataapi.config;
+
+import com.cpp.dataapi.aop.lock.DistributedLockAspect;
+import com.cpp.dataapi.service.JobLockService;
+import org.springframework.context.annotation.*;
+import org.springframework.core.env.Environment;
+
+@Configuration
+@EnableAspectJAutoProxy
+public class DistributedLockConfiguration {
+
+    @Bean
+    public DistributedLockAspect distributedLockAspect(JobLockService jobLockService, Environment env) {
+        return new DistributedLockAspect(jobLockService, env);
+    }
+}
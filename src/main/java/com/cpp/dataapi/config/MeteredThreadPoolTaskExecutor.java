@@ -0,0 +1,79 @@
+package com.cpp.dataapi.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * {@link ThreadPoolTaskExecutor} publishing the {@link ExecutorServiceMetrics} of its pool (threads, active threads,
+ * queued and completed tasks), the time its tasks wait in the queue and run, and the count of rejected tasks.
+ * <p>
+ * Meters are named as the ones of {@link ExecutorServiceMetrics#monitor}, and tagged with the name of the executor.
+ */
+public class MeteredThreadPoolTaskExecutor extends ThreadPoolTaskExecutor {
+
+    public static final String EXECUTION_METER_NAME = "executor";
+
+    public static final String IDLE_METER_NAME = "executor.idle";
+
+    public static final String REJECTED_METER_NAME = "executor.rejected";
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient MeterRegistry meterRegistry;
+
+    private final String name;
+
+    private final transient Counter rejectedCounter;
+
+    public MeteredThreadPoolTaskExecutor(String name, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.meterRegistry = meterRegistry;
+        Tags tags = Tags.of("name", name);
+        Timer executionTimer = Timer
+            .builder(EXECUTION_METER_NAME)
+            .description("Time taken by the tasks of the executor")
+            .tags(tags)
+            .register(meterRegistry);
+        Timer idleTimer = Timer
+            .builder(IDLE_METER_NAME)
+            .description("Time the tasks of the executor waited in its queue")
+            .tags(tags)
+            .register(meterRegistry);
+        this.rejectedCounter = Counter
+            .builder(REJECTED_METER_NAME)
+            .description("Number of tasks rejected by the executor")
+            .tags(tags)
+            .register(meterRegistry);
+        setTaskDecorator(task -> {
+            long submitted = System.nanoTime();
+            return () -> {
+                long start = System.nanoTime();
+                idleTimer.record(start - submitted, TimeUnit.NANOSECONDS);
+                try {
+                    task.run();
+                } finally {
+                    executionTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            };
+        });
+    }
+
+    @Override
+    protected ExecutorService initializeExecutor(ThreadFactory threadFactory, RejectedExecutionHandler rejectedExecutionHandler) {
+        RejectedExecutionHandler countingHandler = (task, executor) -> {
+            rejectedCounter.increment();
+            rejectedExecutionHandler.rejectedExecution(task, executor);
+        };
+        ExecutorService executor = super.initializeExecutor(threadFactory, countingHandler);
+        new ExecutorServiceMetrics(executor, name, Tags.empty()).bindTo(meterRegistry);
+        return executor;
+    }
+}
@@ -2,19 +2,29 @@ package com.cpp.dataapi.config;
 
 import com.cpp.dataapi.security.*;
 import com.cpp.dataapi.security.jwt.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.http.HttpMethod;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.builders.WebSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.header.writers.ReferrerPolicyHeaderWriter;
+import org.springframework.util.ClassUtils;
 import org.springframework.web.filter.CorsFilter;
 import org.zalando.problem.spring.web.advice.security.SecurityProblemSupport;
 import tech.jhipster.config.JHipsterProperties;
@@ -24,6 +34,8 @@ import tech.jhipster.config.JHipsterProperties;
 @Import(SecurityProblemSupport.class)
 public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
 
+    private static final String BCRYPT_ENCODING_ID = "bcrypt";
+
     private final JHipsterProperties jHipsterProperties;
 
     private final TokenProvider tokenProvider;
@@ -44,8 +56,43 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+        ApplicationProperties applicationProperties,
+        @Qualifier(AsyncConfiguration.PASSWORD_HASHING_EXECUTOR) ThreadPoolTaskExecutor passwordHashingExecutor,
+        MeterRegistry meterRegistry
+    ) {
+        ApplicationProperties.Security.PasswordHashing properties = applicationProperties.getSecurity().getPasswordHashing();
+        int cost = properties.getCost();
+        if (properties.isCalibrate()) {
+            // Only advised: a cost measured by each node would differ across the cluster, and upgrade the hashes back and forth
+            BCryptCostCalibrator.advise(properties.getTargetLatency(), properties.getMinCost(), properties.getMaxCost(), cost);
+        }
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put(BCRYPT_ENCODING_ID, new BCryptPasswordEncoder(cost));
+        encoders.put("pbkdf2", new Pbkdf2PasswordEncoder());
+        if (ClassUtils.isPresent("org.bouncycastle.crypto.params.Argon2Parameters", getClass().getClassLoader())) {
+            encoders.put("argon2", new Argon2PasswordEncoder());
+        }
+        DelegatingPasswordEncoder delegatingPasswordEncoder = new DelegatingPasswordEncoder(properties.getEncodingId(), encoders);
+        // Hashes stored before the encoding id was prefixed are BCrypt ones
+        delegatingPasswordEncoder.setDefaultPasswordEncoderForMatches(encoders.get(BCRYPT_ENCODING_ID));
+        return new BoundedPasswordEncoder(
+            delegatingPasswordEncoder,
+            passwordHashingExecutor,
+            properties.getMaxPending(),
+            properties.getAdmissionTimeout(),
+            properties.getRetryAfter(),
+            meterRegistry
+        );
+    }
+
+    @Bean
+    public LoginAttemptStore loginAttemptStore(ApplicationProperties applicationProperties, MongoTemplate mongoTemplate) {
+        ApplicationProperties.Security.LoginThrottling properties = applicationProperties.getSecurity().getLoginThrottling();
+        if (properties.getStore() == ApplicationProperties.Security.LoginThrottling.Store.MONGO) {
+            return new MongoLoginAttemptStore(mongoTemplate, properties.getWindow());
+        }
+        return new InMemoryLoginAttemptStore(properties.getWindow(), properties.getMaxTrackedKeys());
     }
 
     @Override
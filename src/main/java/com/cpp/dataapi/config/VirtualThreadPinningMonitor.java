@@ -0,0 +1,103 @@
+package com.cpp.dataapi.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import jdk.jfr.EventSettings;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordedThread;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reports the virtual threads blocking while pinned to their carrier thread, from the {@code jdk.VirtualThreadPinned}
+ * JFR event of Java 21.
+ * <p>
+ * Each thread pinned for longer than the threshold is counted, and logged with the top of its stack. The events are
+ * streamed from a recording in this JVM, whose stream API, from Java 14, is looked up by reflection as the application
+ * is still compiled for Java 11.
+ */
+public class VirtualThreadPinningMonitor {
+
+    public static final String PINNED_METER_NAME = "jvm.threads.virtual.pinned";
+
+    static final String PINNED_EVENT_NAME = "jdk.VirtualThreadPinned";
+
+    private static final int LOGGED_FRAMES = 10;
+
+    private final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    private final Duration threshold;
+
+    private final Counter pinnedCounter;
+
+    private AutoCloseable stream;
+
+    public VirtualThreadPinningMonitor(Duration threshold, MeterRegistry meterRegistry) {
+        this.threshold = threshold;
+        this.pinnedCounter =
+            Counter
+                .builder(PINNED_METER_NAME)
+                .description("Indicates virtual threads which blocked while pinned to their carrier thread.")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        try {
+            Class<?> type = Class.forName("jdk.jfr.consumer.RecordingStream");
+            Object recordingStream = type.getConstructor().newInstance();
+            EventSettings settings = (EventSettings) type.getMethod("enable", String.class).invoke(recordingStream, PINNED_EVENT_NAME);
+            settings.withThreshold(threshold).withStackTrace();
+            Consumer<RecordedEvent> action = this::onPinned;
+            type.getMethod("onEvent", String.class, Consumer.class).invoke(recordingStream, PINNED_EVENT_NAME, action);
+            type.getMethod("startAsync").invoke(recordingStream);
+            stream = (AutoCloseable) recordingStream;
+            log.info("Reporting the virtual threads pinned for longer than {} ms", threshold.toMillis());
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Diagnostics only: the virtual threads run without them
+            log.warn("Could not report the pinned virtual threads: {}", e.toString());
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws Exception {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    void onPinned(RecordedEvent event) {
+        pinnedCounter.increment();
+        if (!log.isWarnEnabled()) {
+            return;
+        }
+        RecordedThread thread = event.getThread();
+        StringBuilder stack = new StringBuilder();
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        if (stackTrace != null) {
+            List<RecordedFrame> frames = stackTrace.getFrames();
+            for (RecordedFrame frame : frames.subList(0, Math.min(frames.size(), LOGGED_FRAMES))) {
+                stack
+                    .append("\n\tat ")
+                    .append(frame.getMethod().getType().getName())
+                    .append('.')
+                    .append(frame.getMethod().getName())
+                    .append(':')
+                    .append(frame.getLineNumber());
+            }
+        }
+        log.warn(
+            "Virtual thread {} blocked for {} ms while pinned to its carrier thread{}",
+            thread != null ? thread.getJavaName() : null,
+            event.getDuration().toMillis(),
+            stack
+        );
+    }
+}
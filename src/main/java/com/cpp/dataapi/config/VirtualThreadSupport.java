@@ -0,0 +1,90 @@
+package com.cpp.dataapi.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to the virtual threads of Java 21, while the application is still compiled for Java 11.
+ * <p>
+ * The virtual thread API is looked up by reflection once, through its public interfaces.
+ */
+public final class VirtualThreadSupport {
+
+    private static final Method OF_VIRTUAL = findMethod(Thread.class, "ofVirtual");
+
+    private static final Method NAME = findMethod(builderClass(), "name", String.class, long.class);
+
+    private static final Method FACTORY = findMethod(builderClass(), "factory");
+
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR = findMethod(Executors.class, "newThreadPerTaskExecutor", ThreadFactory.class);
+
+    private VirtualThreadSupport() {}
+
+    /**
+     * @return whether the running JVM has virtual threads, from Java 21.
+     */
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null && NAME != null && FACTORY != null && NEW_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * Returns a factory of virtual threads.
+     *
+     * @param prefix the prefix of the names of the threads, followed by a counter.
+     * @return the thread factory.
+     * @throws IllegalStateException if the JVM has no virtual threads.
+     */
+    public static ThreadFactory threadFactory(String prefix) {
+        checkSupported();
+        try {
+            Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), prefix, 0L);
+            return (ThreadFactory) FACTORY.invoke(builder);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Could not create a virtual thread factory", e);
+        }
+    }
+
+    /**
+     * Returns an executor running each task on a new virtual thread.
+     *
+     * @param prefix the prefix of the names of the threads, followed by a counter.
+     * @return the executor, to shut down when no longer used.
+     * @throws IllegalStateException if the JVM has no virtual threads.
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String prefix) {
+        ThreadFactory threadFactory = threadFactory(prefix);
+        try {
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, threadFactory);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Could not create a virtual thread executor", e);
+        }
+    }
+
+    private static void checkSupported() {
+        if (!isSupported()) {
+            throw new IllegalStateException("Virtual threads require Java 21 or later, running on " + System.getProperty("java.version"));
+        }
+    }
+
+    private static Class<?> builderClass() {
+        try {
+            return Class.forName("java.lang.Thread$Builder");
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    private static Method findMethod(Class<?> type, String name, Class<?>... parameterTypes) {
+        if (type == null) {
+            return null;
+        }
+        try {
+            return type.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.cpp.dataapi.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.ExecutorService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.boot.web.embedded.undertow.UndertowDeploymentInfoCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Runs the HTTP requests on virtual threads, when {@code application.virtual-threads.enabled} is set, on Java 21 or
+ * later. The async executors of {@link AsyncConfiguration} switch to virtual threads as well.
+ * <p>
+ * Requests mostly wait on MongoDB, so with a pool of platform threads the number of threads caps the concurrent
+ * requests. A virtual thread per request removes this cap, as long as no thread blocks while pinned to its carrier,
+ * which the {@link VirtualThreadPinningMonitor} reports.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "application.virtual-threads", name = "enabled", havingValue = "true")
+public class VirtualThreadsConfiguration {
+
+    public static final String REQUEST_EXECUTOR = "virtualThreadRequestExecutor";
+
+    private final Logger log = LoggerFactory.getLogger(VirtualThreadsConfiguration.class);
+
+    private final ApplicationProperties applicationProperties;
+
+    public VirtualThreadsConfiguration(ApplicationProperties applicationProperties) {
+        if (!VirtualThreadSupport.isSupported()) {
+            // Fail fast rather than silently measuring platform threads
+            throw new IllegalStateException(
+                "application.virtual-threads.enabled requires Java 21 or later, running on " + System.getProperty("java.version")
+            );
+        }
+        this.applicationProperties = applicationProperties;
+        log.info("Running the HTTP requests and the async executors on virtual threads");
+    }
+
+    @Bean
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(MeterRegistry meterRegistry) {
+        return new VirtualThreadPinningMonitor(applicationProperties.getVirtualThreads().getPinnedThreshold(), meterRegistry);
+    }
+
+    @Bean(name = REQUEST_EXECUTOR)
+    public ExecutorService virtualThreadRequestExecutor() {
+        return VirtualThreadSupport.newThreadPerTaskExecutor("http-virtual-");
+    }
+
+    @Configuration
+    @ConditionalOnClass(name = "org.apache.catalina.startup.Tomcat")
+    public static class TomcatVirtualThreadsConfiguration {
+
+        @Bean
+        public TomcatProtocolHandlerCustomizer<?> virtualThreadsProtocolHandlerCustomizer(
+            @Qualifier(REQUEST_EXECUTOR) ExecutorService requestExecutor
+        ) {
+            return protocolHandler -> protocolHandler.setExecutor(requestExecutor);
+        }
+    }
+
+    @Configuration
+    @ConditionalOnClass(name = "io.undertow.Undertow")
+    public static class UndertowVirtualThreadsConfiguration {
+
+        @Bean
+        public UndertowDeploymentInfoCustomizer virtualThreadsDeploymentInfoCustomizer(
+            @Qualifier(REQUEST_EXECUTOR) ExecutorService requestExecutor
+        ) {
+            return deploymentInfo -> deploymentInfo.setExecutor(requestExecutor).setAsyncExecutor(requestExecutor);
+        }
+    }
+}
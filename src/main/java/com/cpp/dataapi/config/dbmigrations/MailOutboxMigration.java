@@ -0,0 +1,23 @@
+package com.cpp.dataapi.config.dbmigrations;
+
+import com.cpp.dataapi.domain.OutboxMail;
+import com.github.cloudyrock.mongock.ChangeLog;
+import com.github.cloudyrock.mongock.ChangeSet;
+import com.github.cloudyrock.mongock.driver.mongodb.springdata.v3.decorator.impl.MongockTemplate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.index.Index;
+
+/**
+ * Creates the indexes of the mail outbox.
+ */
+@ChangeLog(order = "004")
+public class MailOutboxMigration {
+
+    @ChangeSet(order = "01", author = "initiator", id = "01-addOutboxMailIndex")
+    public void addOutboxMailIndex(MongockTemplate mongoTemplate) {
+        // Used to read the mails due, and to count the pending ones
+        mongoTemplate
+            .indexOps(OutboxMail.class)
+            .ensureIndex(new Index().on("status", Sort.Direction.ASC).on("next_attempt_date", Sort.Direction.ASC));
+    }
+}
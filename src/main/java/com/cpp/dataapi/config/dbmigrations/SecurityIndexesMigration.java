@@ -0,0 +1,22 @@
+package com.cpp.dataapi.config.dbmigrations;
+
+import com.cpp.dataapi.domain.LoginAttemptWindow;
+import com.github.cloudyrock.mongock.ChangeLog;
+import com.github.cloudyrock.mongock.ChangeSet;
+import com.github.cloudyrock.mongock.driver.mongodb.springdata.v3.decorator.impl.MongockTemplate;
+import java.time.Duration;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.index.Index;
+
+/**
+ * Creates the indexes of the collections backing the security features.
+ */
+@ChangeLog(order = "003")
+public class SecurityIndexesMigration {
+
+    @ChangeSet(order = "01", author = "initiator", id = "01-addLoginAttemptIndex")
+    public void addLoginAttemptIndex(MongockTemplate mongoTemplate) {
+        // Expires the windows of the shared login throttling
+        mongoTemplate.indexOps(LoginAttemptWindow.class).ensureIndex(new Index().on("expire_at", Sort.Direction.ASC).expire(Duration.ZERO));
+    }
+}
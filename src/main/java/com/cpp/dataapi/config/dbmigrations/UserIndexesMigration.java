@@ -0,0 +1,132 @@
+package com.cpp.dataapi.config.dbmigrations;
+
+import com.cpp.dataapi.domain.User;
+import com.cpp.dataapi.domain.UserTombstone;
+import com.github.cloudyrock.mongock.ChangeLog;
+import com.github.cloudyrock.mongock.ChangeSet;
+import com.github.cloudyrock.mongock.driver.mongodb.springdata.v3.decorator.impl.MongockTemplate;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+
+/**
+ * Creates the indexes backing the queries on the users, and normalizes the fields they match.
+ */
+@ChangeLog(order = "002")
+public class UserIndexesMigration {
+
+    private static final int NORMALIZE_BATCH_SIZE = 1000;
+
+    private static final int MAX_REPORTED_DUPLICATES = 20;
+
+    @ChangeSet(order = "01", author = "initiator", id = "01-addLastModifiedDateIndex")
+    public void addLastModifiedDateIndex(MongockTemplate mongoTemplate) {
+        // Used to poll the users changed by other nodes
+        mongoTemplate.indexOps(User.class).ensureIndex(new Index().on("last_modified_date", Sort.Direction.ASC));
+    }
+
+    @ChangeSet(order = "02", author = "initiator", id = "02-normalizeEmails")
+    public void normalizeEmails(MongockTemplate mongoTemplate) {
+        MongoCollection<Document> users = mongoTemplate.getCollection(mongoTemplate.getCollectionName(User.class));
+        List<WriteModel<Document>> updates = new ArrayList<>();
+        // Only the emails holding an uppercase character need to be rewritten
+        for (Document user : users.find(Filters.regex("email", "[A-Z]")).projection(Projections.include("email"))) {
+            String email = user.getString("email").toLowerCase(Locale.ENGLISH);
+            updates.add(new UpdateOneModel<>(Filters.eq("_id", user.get("_id")), Updates.set("email", email)));
+            if (updates.size() == NORMALIZE_BATCH_SIZE) {
+                users.bulkWrite(updates, new BulkWriteOptions().ordered(false));
+                updates.clear();
+            }
+        }
+        if (!updates.isEmpty()) {
+            users.bulkWrite(updates, new BulkWriteOptions().ordered(false));
+        }
+    }
+
+    @ChangeSet(order = "03", author = "initiator", id = "03-addUniqueEmailIndex")
+    public void addUniqueEmailIndex(MongockTemplate mongoTemplate) {
+        // Used to find users by email, once normalized, and to reject the emails already used
+        checkNoDuplicates(mongoTemplate, "email", User.EMAIL_UNIQUE_INDEX);
+        mongoTemplate
+            .indexOps(User.class)
+            .ensureIndex(new Index().on("email", Sort.Direction.ASC).unique().sparse().named(User.EMAIL_UNIQUE_INDEX));
+    }
+
+    @ChangeSet(order = "04", author = "initiator", id = "04-addUniqueLoginIndex")
+    public void addUniqueLoginIndex(MongockTemplate mongoTemplate) {
+        checkNoDuplicates(mongoTemplate, "login", User.LOGIN_UNIQUE_INDEX);
+        mongoTemplate.indexOps(User.class).ensureIndex(new Index().on("login", Sort.Direction.ASC).unique().named(User.LOGIN_UNIQUE_INDEX));
+    }
+
+    @ChangeSet(order = "06", author = "initiator", id = "06-addActivatedCreatedDateIndex")
+    public void addActivatedCreatedDateIndex(MongockTemplate mongoTemplate) {
+        // Used to find the not activated users to remove
+        mongoTemplate
+            .indexOps(User.class)
+            .ensureIndex(new Index().on("activated", Sort.Direction.ASC).on("created_date", Sort.Direction.ASC));
+    }
+
+    @ChangeSet(order = "07", author = "initiator", id = "07-addLastModifiedDateIdIndex")
+    public void addLastModifiedDateIdIndex(MongockTemplate mongoTemplate) {
+        // Used to read the user change feed in order, and still to poll the users changed by other nodes: it replaces
+        // the index on the date alone
+        IndexOperations indexOperations = mongoTemplate.indexOps(User.class);
+        indexOperations.ensureIndex(new Index().on("last_modified_date", Sort.Direction.ASC).on("_id", Sort.Direction.ASC));
+        indexOperations.dropIndex("last_modified_date_1");
+    }
+
+    @ChangeSet(order = "08", author = "initiator", id = "08-addUserTombstoneIndex")
+    public void addUserTombstoneIndex(MongockTemplate mongoTemplate) {
+        // Used to read the deletions of the user change feed, and to expire them
+        mongoTemplate.indexOps(UserTombstone.class).ensureIndex(new Index().on("deleted_date", Sort.Direction.ASC).expire(UserTombstone.RETENTION));
+    }
+
+    /**
+     * Fails with the users to fix when a unique index cannot be created, as several of them share a value, such as
+     * emails differing only by case before their normalization. The database error would only name one value.
+     */
+    private static void checkNoDuplicates(MongockTemplate mongoTemplate, String field, String indexName) {
+        MongoCollection<Document> users = mongoTemplate.getCollection(mongoTemplate.getCollectionName(User.class));
+        List<String> duplicates = new ArrayList<>();
+        for (Document duplicate : users
+            .aggregate(
+                Arrays.asList(
+                    Aggregates.match(Filters.exists(field)),
+                    Aggregates.group("$" + field, Accumulators.sum("count", 1), Accumulators.push("ids", "$_id")),
+                    Aggregates.match(Filters.gt("count", 1)),
+                    Aggregates.limit(MAX_REPORTED_DUPLICATES)
+                )
+            )
+            .allowDiskUse(true)) {
+            duplicates.add(duplicate.get("ids").toString());
+        }
+        if (!duplicates.isEmpty()) {
+            throw new IllegalStateException(
+                "Cannot create the unique index " +
+                indexName +
+                ": several users share a " +
+                field +
+                ", change it for all but one of the users of each group, then restart. Users by shared " +
+                field +
+                " (at most " +
+                MAX_REPORTED_DUPLICATES +
+                " groups): " +
+                String.join(", ", duplicates)
+            );
+        }
+    }
+}
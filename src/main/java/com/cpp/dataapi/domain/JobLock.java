@@ -0,0 +1,85 @@
+package com.cpp.dataapi.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+/**
+ * A lease on a scheduled job, so that it runs on a single node at a time.
+ * <p>
+ * The fencing token is incremented on every acquisition, so that a node whose lease expired can tell it has been
+ * taken over.
+ */
+@Document(collection = "jhi_job_lock")
+public class JobLock implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    private String name;
+
+    private String owner;
+
+    @Field("locked_at")
+    private Instant lockedAt;
+
+    @Field("locked_until")
+    private Instant lockedUntil;
+
+    @Field("fencing_token")
+    private long fencingToken;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public Instant getLockedAt() {
+        return lockedAt;
+    }
+
+    public void setLockedAt(Instant lockedAt) {
+        this.lockedAt = lockedAt;
+    }
+
+    public Instant getLockedUntil() {
+        return lockedUntil;
+    }
+
+    public void setLockedUntil(Instant lockedUntil) {
+        this.lockedUntil = lockedUntil;
+    }
+
+    public long getFencingToken() {
+        return fencingToken;
+    }
+
+    public void setFencingToken(long fencingToken) {
+        this.fencingToken = fencingToken;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "JobLock{" +
+            "name='" + name + '\'' +
+            ", owner='" + owner + '\'' +
+            ", lockedAt=" + lockedAt +
+            ", lockedUntil=" + lockedUntil +
+            ", fencingToken=" + fencingToken +
+            "}";
+    }
+}
@@ -0,0 +1,64 @@
+package com.cpp.dataapi.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+/**
+ * The failed logins of a login name or of a client address during a fixed window of time, shared by the nodes of the
+ * cluster to throttle the logins.
+ * <p>
+ * Windows are removed by MongoDB once they expire.
+ */
+@Document(collection = "jhi_login_attempt")
+public class LoginAttemptWindow implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The throttled key followed by the index of the window.
+     */
+    @Id
+    private String id;
+
+    private long count;
+
+    @Field("expire_at")
+    private Instant expireAt;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public Instant getExpireAt() {
+        return expireAt;
+    }
+
+    public void setExpireAt(Instant expireAt) {
+        this.expireAt = expireAt;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "LoginAttemptWindow{" +
+            "id='" + id + '\'' +
+            ", count=" + count +
+            ", expireAt=" + expireAt +
+            "}";
+    }
+}
@@ -0,0 +1,150 @@
+package com.cpp.dataapi.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+/**
+ * An email waiting in the outbox, until it is sent or given up on.
+ * <p>
+ * Mails are removed from the outbox once sent, and kept as {@link Status#FAILED} once they failed too many times.
+ */
+@Document(collection = "jhi_mail_outbox")
+public class OutboxMail implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    private String id;
+
+    private String to;
+
+    private String subject;
+
+    private String content;
+
+    private boolean multipart;
+
+    private boolean html;
+
+    private Status status = Status.PENDING;
+
+    private int attempts;
+
+    @Field("created_date")
+    private Instant createdDate;
+
+    @Field("next_attempt_date")
+    private Instant nextAttemptDate;
+
+    @Field("last_error")
+    private String lastError;
+
+    public enum Status {
+        PENDING,
+        FAILED,
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getTo() {
+        return to;
+    }
+
+    public void setTo(String to) {
+        this.to = to;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public boolean isMultipart() {
+        return multipart;
+    }
+
+    public void setMultipart(boolean multipart) {
+        this.multipart = multipart;
+    }
+
+    public boolean isHtml() {
+        return html;
+    }
+
+    public void setHtml(boolean html) {
+        this.html = html;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public Instant getCreatedDate() {
+        return createdDate;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    public Instant getNextAttemptDate() {
+        return nextAttemptDate;
+    }
+
+    public void setNextAttemptDate(Instant nextAttemptDate) {
+        this.nextAttemptDate = nextAttemptDate;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "OutboxMail{" +
+            "id='" + id + '\'' +
+            ", to='" + to + '\'' +
+            ", subject='" + subject + '\'' +
+            ", status=" + status +
+            ", attempts=" + attempts +
+            ", nextAttemptDate=" + nextAttemptDate +
+            "}";
+    }
+}
@@ -13,7 +13,6 @@ import javax.validation.constraints.Pattern;
 import javax.validation.constraints.Size;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.data.annotation.Id;
-import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Field;
 
 /**
@@ -24,18 +23,27 @@ public class User extends AbstractAuditingEntity implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Name of the unique index on {@code login}, created with the other indexes of the users by the database migrations.
+     */
+    public static final String LOGIN_UNIQUE_INDEX = "user_login_unique";
+
+    /**
+     * Name of the unique index on {@code email}.
+     */
+    public static final String EMAIL_UNIQUE_INDEX = "user_email_unique";
+
     @Id
     private String id;
 
     @NotNull
     @Pattern(regexp = Constants.LOGIN_REGEX)
     @Size(min = 1, max = 50)
-    @Indexed
     private String login;
 
     @JsonIgnore
     @NotNull
-    @Size(min = 60, max = 60)
+    @Size(min = 60, max = 255)
     private String password;
 
     @Size(max = 50)
@@ -48,7 +56,6 @@ public class User extends AbstractAuditingEntity implements Serializable {
 
     @Email
     @Size(min = 5, max = 254)
-    @Indexed
     private String email;
 
     private boolean activated = false;
@@ -122,8 +129,9 @@ public class User extends AbstractAuditingEntity implements Serializable {
         return email;
     }
 
+    // Lowercase the email before saving it in database, so that it can be looked up with an exact match
     public void setEmail(String email) {
-        this.email = email;
+        this.email = StringUtils.lowerCase(email, Locale.ENGLISH);
     }
 
     public String getImageUrl() {
@@ -0,0 +1,78 @@
+package com.cpp.dataapi.domain;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+/**
+ * A trace of a deleted user, so that the deletion can be read from the user change feed.
+ * <p>
+ * Tombstones are removed by MongoDB once they are older than the {@link #RETENTION}.
+ */
+@Document(collection = "jhi_user_tombstone")
+public class UserTombstone implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * How long deletions can be read from the user change feed.
+     */
+    public static final Duration RETENTION = Duration.ofDays(30);
+
+    @Id
+    private String id;
+
+    private String login;
+
+    @Field("deleted_date")
+    private Instant deletedDate;
+
+    public UserTombstone() {}
+
+    public UserTombstone(User user, Instant deletedDate) {
+        this.id = user.getId();
+        this.login = user.getLogin();
+        // The deletion must follow the last modification in the change feed, even within the same millisecond
+        Instant lastModifiedDate = user.getLastModifiedDate();
+        this.deletedDate =
+            lastModifiedDate != null && !deletedDate.isAfter(lastModifiedDate.truncatedTo(ChronoUnit.MILLIS))
+                ? lastModifiedDate.truncatedTo(ChronoUnit.MILLIS).plusMillis(1)
+                : deletedDate;
+    }
+
+    /**
+     * @return the id of the deleted user.
+     */
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getLogin() {
+        return login;
+    }
+
+    public void setLogin(String login) {
+        this.login = login;
+    }
+
+    public Instant getDeletedDate() {
+        return deletedDate;
+    }
+
+    public void setDeletedDate(Instant deletedDate) {
+        this.deletedDate = deletedDate;
+    }
+
+    @Override
+    public String toString() {
+        return "UserTombstone{id='" + id + "', login='" + login + "', deletedDate=" + deletedDate + "}";
+    }
+}
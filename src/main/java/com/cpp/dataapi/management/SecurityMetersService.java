@@ -1,5 +1,6 @@
 package com.cpp.dataapi.management;
 
+import com.cpp.dataapi.security.jwt.TokenValidationFailure;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.stereotype.Service;
@@ -13,16 +14,49 @@ public class SecurityMetersService {
     public static final String INVALID_TOKENS_METER_BASE_UNIT = "errors";
     public static final String INVALID_TOKENS_METER_CAUSE_DIMENSION = "cause";
 
+    public static final String TOKEN_CACHE_REQUESTS_METER_NAME = "security.authentication.token-cache.requests";
+    public static final String TOKEN_CACHE_REQUESTS_METER_DESCRIPTION = "Indicates lookups of the verified tokens cache.";
+    public static final String TOKEN_CACHE_REQUESTS_METER_RESULT_DIMENSION = "result";
+
+    public static final String TOKEN_CACHE_EVICTIONS_METER_NAME = "security.authentication.token-cache.evictions";
+    public static final String TOKEN_CACHE_EVICTIONS_METER_DESCRIPTION =
+        "Indicates verified tokens removed from the cache because they expired or the cache was full.";
+
+    public static final String LOGIN_FAILURES_METER_NAME = "security.authentication.login-failures";
+    public static final String LOGIN_FAILURES_METER_DESCRIPTION = "Indicates logins rejected because of invalid credentials.";
+
+    public static final String LOGIN_THROTTLED_METER_NAME = "security.authentication.login-throttled";
+    public static final String LOGIN_THROTTLED_METER_DESCRIPTION =
+        "Indicates logins rejected before checking their password, because of too many recent failures.";
+    public static final String LOGIN_THROTTLED_METER_KEY_DIMENSION = "key";
+
     private final Counter tokenInvalidSignatureCounter;
     private final Counter tokenExpiredCounter;
     private final Counter tokenUnsupportedCounter;
     private final Counter tokenMalformedCounter;
 
+    private final Counter tokenCacheHitCounter;
+    private final Counter tokenCacheMissCounter;
+    private final Counter tokenCacheEvictionCounter;
+
+    private final Counter loginFailureCounter;
+    private final Counter loginThrottledByLoginCounter;
+    private final Counter loginThrottledByIpCounter;
+
     public SecurityMetersService(MeterRegistry registry) {
         this.tokenInvalidSignatureCounter = invalidTokensCounterForCauseBuilder("invalid-signature").register(registry);
         this.tokenExpiredCounter = invalidTokensCounterForCauseBuilder("expired").register(registry);
         this.tokenUnsupportedCounter = invalidTokensCounterForCauseBuilder("unsupported").register(registry);
         this.tokenMalformedCounter = invalidTokensCounterForCauseBuilder("malformed").register(registry);
+
+        this.tokenCacheHitCounter = tokenCacheRequestsCounterForResultBuilder("hit").register(registry);
+        this.tokenCacheMissCounter = tokenCacheRequestsCounterForResultBuilder("miss").register(registry);
+        this.tokenCacheEvictionCounter =
+            Counter.builder(TOKEN_CACHE_EVICTIONS_METER_NAME).description(TOKEN_CACHE_EVICTIONS_METER_DESCRIPTION).register(registry);
+
+        this.loginFailureCounter = Counter.builder(LOGIN_FAILURES_METER_NAME).description(LOGIN_FAILURES_METER_DESCRIPTION).register(registry);
+        this.loginThrottledByLoginCounter = loginThrottledCounterForKeyBuilder("login").register(registry);
+        this.loginThrottledByIpCounter = loginThrottledCounterForKeyBuilder("ip").register(registry);
     }
 
     private Counter.Builder invalidTokensCounterForCauseBuilder(String cause) {
@@ -33,6 +67,44 @@ public class SecurityMetersService {
             .tag(INVALID_TOKENS_METER_CAUSE_DIMENSION, cause);
     }
 
+    private Counter.Builder tokenCacheRequestsCounterForResultBuilder(String result) {
+        return Counter
+            .builder(TOKEN_CACHE_REQUESTS_METER_NAME)
+            .description(TOKEN_CACHE_REQUESTS_METER_DESCRIPTION)
+            .tag(TOKEN_CACHE_REQUESTS_METER_RESULT_DIMENSION, result);
+    }
+
+    private Counter.Builder loginThrottledCounterForKeyBuilder(String key) {
+        return Counter
+            .builder(LOGIN_THROTTLED_METER_NAME)
+            .description(LOGIN_THROTTLED_METER_DESCRIPTION)
+            .tag(LOGIN_THROTTLED_METER_KEY_DIMENSION, key);
+    }
+
+    /**
+     * Tracks a token rejected for the given cause; causes without an invalid tokens meter are ignored.
+     *
+     * @param failure the reason why the token was rejected.
+     */
+    public void trackTokenFailure(TokenValidationFailure failure) {
+        switch (failure) {
+            case EXPIRED:
+                trackTokenExpired();
+                break;
+            case UNSUPPORTED:
+                trackTokenUnsupported();
+                break;
+            case MALFORMED:
+                trackTokenMalformed();
+                break;
+            case INVALID_SIGNATURE:
+                trackTokenInvalidSignature();
+                break;
+            default:
+                break;
+        }
+    }
+
     public void trackTokenInvalidSignature() {
         this.tokenInvalidSignatureCounter.increment();
     }
@@ -48,4 +120,28 @@ public class SecurityMetersService {
     public void trackTokenMalformed() {
         this.tokenMalformedCounter.increment();
     }
+
+    public void trackTokenCacheHit() {
+        this.tokenCacheHitCounter.increment();
+    }
+
+    public void trackTokenCacheMiss() {
+        this.tokenCacheMissCounter.increment();
+    }
+
+    public void trackTokenCacheEviction() {
+        this.tokenCacheEvictionCounter.increment();
+    }
+
+    public void trackLoginFailure() {
+        this.loginFailureCounter.increment();
+    }
+
+    public void trackLoginThrottledByLogin() {
+        this.loginThrottledByLoginCounter.increment();
+    }
+
+    public void trackLoginThrottledByIp() {
+        this.loginThrottledByIpCounter.increment();
+    }
 }
@@ -0,0 +1,55 @@
+package com.cpp.dataapi.repository;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+
+/**
+ * Criteria seeking to a position in a keyset order: a sort property, then the id to tell apart the documents sharing
+ * its value.
+ */
+final class KeysetCriteria {
+
+    static final String ID = "id";
+
+    private KeysetCriteria() {}
+
+    /**
+     * Matches the documents following a position.
+     *
+     * @param property  the sort property.
+     * @param ascending whether the property is sorted in ascending order, the id being sorted in the same order.
+     * @param value     the value of the property at the position, possibly {@code null}.
+     * @param id        the id at the position.
+     * @return the criteria.
+     */
+    static Criteria after(String property, boolean ascending, Object value, String id) {
+        Criteria idAfter = idAfter(id, ascending);
+        if (ID.equals(property)) {
+            return idAfter;
+        }
+        // Missing values sort before any other one
+        if (value == null) {
+            Criteria sameValue = new Criteria().andOperator(where(property).is(null), idAfter);
+            return ascending ? new Criteria().orOperator(sameValue, where(property).ne(null)) : sameValue;
+        }
+        Criteria sameValue = new Criteria().andOperator(where(property).is(value), idAfter);
+        if (ascending) {
+            return new Criteria().orOperator(where(property).gt(value), sameValue);
+        }
+        return new Criteria().orOperator(where(property).lt(value), sameValue, where(property).is(null));
+    }
+
+    private static Criteria idAfter(String id, boolean ascending) {
+        // Ids are either strings or object ids, which MongoDB compares by type first: strings sort before object ids
+        boolean objectId = ObjectId.isValid(id);
+        if (ascending) {
+            return objectId
+                ? where(ID).gt(id)
+                : new Criteria().orOperator(where(ID).gt(id), where(ID).type(JsonSchemaObject.Type.objectIdType()));
+        }
+        return objectId ? new Criteria().orOperator(where(ID).lt(id), where(ID).type(JsonSchemaObject.Type.stringType())) : where(ID).lt(id);
+    }
+}
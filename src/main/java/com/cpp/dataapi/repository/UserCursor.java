@@ -0,0 +1,173 @@
+package com.cpp.dataapi.repository;
+
+import com.cpp.dataapi.domain.User;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Objects;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Position of a user in a keyset pagination: the value of the sort property and the id of the last user read.
+ * <p>
+ * Cursors are exchanged with clients as opaque tokens, which also carry the sort order so that each page is read in
+ * the order of the first one.
+ */
+public final class UserCursor {
+
+    private static final byte VERSION = 1;
+
+    private static final byte NULL_VALUE = 0;
+    private static final byte STRING_VALUE = 1;
+    private static final byte BOOLEAN_VALUE = 2;
+    private static final byte INSTANT_VALUE = 3;
+
+    private final Sort.Order order;
+
+    private final Object value;
+
+    private final String id;
+
+    private UserCursor(Sort.Order order, Object value, String id) {
+        this.order = order;
+        this.value = value;
+        this.id = id;
+    }
+
+    /**
+     * Returns the position of a user in the given order.
+     *
+     * @param order the sort order, on a property of the {@link User}.
+     * @param user  the user.
+     * @return the position right after the user.
+     */
+    public static UserCursor after(Sort.Order order, User user) {
+        Object value = PropertyAccessorFactory.forBeanPropertyAccess(user).getPropertyValue(order.getProperty());
+        return new UserCursor(order, value, user.getId());
+    }
+
+    /**
+     * Returns a position in the given order.
+     *
+     * @param order the sort order.
+     * @param value the value of the sort property at the position, possibly {@code null}.
+     * @param id    the id at the position; the empty string is before any id.
+     * @return the position.
+     */
+    public static UserCursor at(Sort.Order order, Object value, String id) {
+        return new UserCursor(order, value, id);
+    }
+
+    /**
+     * Decodes a cursor token.
+     *
+     * @param token the token, as returned by {@link #encode()}.
+     * @return the cursor.
+     * @throws IllegalArgumentException if the token is not a valid cursor.
+     */
+    public static UserCursor decode(String token) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)))) {
+            if (in.readByte() != VERSION) {
+                throw new IllegalArgumentException("Unsupported cursor version");
+            }
+            String property = in.readUTF();
+            Sort.Direction direction = in.readBoolean() ? Sort.Direction.ASC : Sort.Direction.DESC;
+            Object value;
+            byte type = in.readByte();
+            switch (type) {
+                case NULL_VALUE:
+                    value = null;
+                    break;
+                case STRING_VALUE:
+                    value = in.readUTF();
+                    break;
+                case BOOLEAN_VALUE:
+                    value = in.readBoolean();
+                    break;
+                case INSTANT_VALUE:
+                    value = Instant.ofEpochMilli(in.readLong());
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported cursor value type " + type);
+            }
+            return new UserCursor(new Sort.Order(direction, property), value, in.readUTF());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    /**
+     * Encodes this cursor into an opaque, URL-safe token.
+     * <p>
+     * The token is encoded, not encrypted: it reveals the sort value of the user to whoever reads the page, so a listing
+     * must only sort its cursors on the properties it returns.
+     *
+     * @return the token.
+     */
+    public String encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeUTF(order.getProperty());
+            out.writeBoolean(order.isAscending());
+            if (value == null) {
+                out.writeByte(NULL_VALUE);
+            } else if (value instanceof String) {
+                out.writeByte(STRING_VALUE);
+                out.writeUTF((String) value);
+            } else if (value instanceof Boolean) {
+                out.writeByte(BOOLEAN_VALUE);
+                out.writeBoolean((Boolean) value);
+            } else if (value instanceof Instant) {
+                out.writeByte(INSTANT_VALUE);
+                out.writeLong(((Instant) value).toEpochMilli());
+            } else {
+                throw new IllegalStateException("Unsupported cursor value " + value.getClass().getName());
+            }
+            out.writeUTF(id);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    public Sort.Order getOrder() {
+        return order;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof UserCursor)) {
+            return false;
+        }
+        UserCursor that = (UserCursor) o;
+        return order.equals(that.order) && Objects.equals(value, that.value) && id.equals(that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(order, value, id);
+    }
+
+    @Override
+    public String toString() {
+        return "UserCursor{order=" + order + ", value=" + value + ", id='" + id + "'}";
+    }
+}
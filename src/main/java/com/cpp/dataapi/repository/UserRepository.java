@@ -2,27 +2,79 @@ package com.cpp.dataapi.repository;
 
 import com.cpp.dataapi.domain.User;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 /**
  * Spring Data MongoDB repository for the {@link User} entity.
  */
 @Repository
-public interface UserRepository extends MongoRepository<User, String> {
+public interface UserRepository extends MongoRepository<User, String>, UserRepositoryCustom {
+    /**
+     * Fields read for the public listing, besides the id.
+     */
+    String PUBLIC_USER_FIELDS = "{ 'login': 1 }";
+
+    /**
+     * Fields left out of the admin listing: the password hash and the one-time keys.
+     */
+    String MANAGED_USER_EXCLUDED_FIELDS = "{ 'password': 0, 'activation_key': 0, 'reset_key': 0, 'reset_date': 0 }";
+
     Optional<User> findOneByActivationKey(String activationKey);
 
     List<User> findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(Instant dateTime);
 
+    /**
+     * Finds a batch of not activated users, created before a date and still holding their activation key.
+     * <p>
+     * Only the fields needed to evict the users from the caches are read.
+     *
+     * @param dateTime the creation date limit.
+     * @param pageable the batch to read.
+     * @return the not activated users of the batch.
+     */
+    @Query(
+        value = "{ 'activated': false, 'activation_key': { $ne: null }, 'created_date': { $lt: ?0 } }",
+        fields = "{ 'login': 1, 'email': 1 }"
+    )
+    List<User> findNotActivatedUsersCreatedBefore(Instant dateTime, Pageable pageable);
+
+    long deleteByIdInAndActivatedIsFalse(Collection<String> ids);
+
     Optional<User> findOneByResetKey(String resetKey);
 
-    Optional<User> findOneByEmailIgnoreCase(String email);
+    Optional<User> findOneByEmail(String email);
+
+    /**
+     * Finds a user by email, whatever its case.
+     * <p>
+     * Emails are stored in lowercase, so this is an exact match on the {@code email} index rather than a
+     * case-insensitive regular expression, which would scan the whole collection.
+     *
+     * @param email the email, in any case.
+     * @return the user with this email, if any.
+     */
+    default Optional<User> findOneByEmailIgnoreCase(String email) {
+        return findOneByEmail(StringUtils.lowerCase(email, Locale.ENGLISH));
+    }
 
     Optional<User> findOneByLogin(String login);
 
-    Page<User> findAllByIdNotNullAndActivatedIsTrue(Pageable pageable);
+    List<User> findAllByLoginOrEmail(String login, String email);
+
+    @Query(value = "{}", fields = MANAGED_USER_EXCLUDED_FIELDS)
+    Page<User> findAllManagedUsers(Pageable pageable);
+
+    @Query(value = "{ 'activated': true }", fields = PUBLIC_USER_FIELDS)
+    Page<User> findAllPublicUsers(Pageable pageable);
+
+    long countByActivatedIsTrue();
 }
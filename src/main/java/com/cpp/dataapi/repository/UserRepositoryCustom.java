@@ -0,0 +1,75 @@
+package com.cpp.dataapi.repository;
+
+import com.cpp.dataapi.domain.User;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Custom queries of the {@link UserRepository}, which cannot be derived from method names.
+ */
+public interface UserRepositoryCustom {
+    /**
+     * Finds the users following a position in a keyset order: the query seeks to the position instead of skipping the
+     * previous users, so that deep pages cost as much as the first one.
+     * <p>
+     * Users are sorted by the given order then by id, so that the position of each user is unique.
+     *
+     * @param order         the sort order.
+     * @param after         the position of the last user read, or {@code null} to start from the first one.
+     * @param limit         the maximum number of users to return.
+     * @param publicOnly    whether to only return the activated users, with their {@link UserRepository#PUBLIC_USER_FIELDS}
+     *                      and sort property; otherwise all the users, without the
+     *                      {@link UserRepository#MANAGED_USER_EXCLUDED_FIELDS}.
+     * @return the users following the position.
+     */
+    List<User> findAllAfter(Sort.Order order, UserCursor after, int limit, boolean publicOnly);
+
+    /**
+     * Finds the users modified after a position in the order of their last modification, then of their id.
+     *
+     * @param after the position of the last change read, or {@code null} to start from the first one.
+     * @param until the date up to which the users were last modified, inclusive.
+     * @param limit the maximum number of users to return.
+     * @return the users following the position, without the {@link UserRepository#MANAGED_USER_EXCLUDED_FIELDS}.
+     */
+    List<User> findAllModifiedAfter(UserCursor after, Instant until, int limit);
+
+    /**
+     * Streams the users from a database cursor, without the {@link UserRepository#MANAGED_USER_EXCLUDED_FIELDS}, so
+     * that they can be read in constant memory. The stream must be closed to release the cursor.
+     *
+     * @param modifiedSince the date from which the users were last modified, inclusive, or {@code null} for all the
+     *                      users; they are then sorted by this date, and by id otherwise.
+     * @return the stream of users.
+     */
+    Stream<User> streamAll(Instant modifiedSince);
+
+    /**
+     * Inserts users with unordered bulk writes, so that a rejected user, for instance by a unique index, does not stop
+     * the insertion of the following ones.
+     *
+     * @param users the users to insert.
+     * @throws org.springframework.data.mongodb.BulkOperationException if some users were rejected, whose errors
+     *                                                                  give the index in the list.
+     */
+    void insertUnordered(List<User> users);
+
+    /**
+     * Replaces the password hash of a user, and updates its last modified date, unless it was changed since it was read.
+     *
+     * @param id               the id of the user.
+     * @param expectedPassword the current password hash.
+     * @param password         the new password hash.
+     * @return {@code true} if the password was replaced.
+     */
+    boolean replacePassword(String id, String expectedPassword, String password);
+
+    /**
+     * Estimates the number of users from the collection metadata, without scanning it.
+     *
+     * @return the approximate number of users.
+     */
+    long estimateCount();
+}
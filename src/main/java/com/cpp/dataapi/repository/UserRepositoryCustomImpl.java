@@ -0,0 +1,118 @@
+package com.cpp.dataapi.repository;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+import com.cpp.dataapi.domain.User;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.StreamUtils;
+
+/**
+ * Implementation of the {@link UserRepositoryCustom} queries.
+ */
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    private static final String ID = KeysetCriteria.ID;
+
+    private static final String LAST_MODIFIED_DATE = "lastModifiedDate";
+
+    private static final int STREAM_BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    public UserRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<User> findAllAfter(Sort.Order order, UserCursor after, int limit, boolean publicOnly) {
+        return mongoTemplate.find(findAllAfterQuery(order, after, limit, publicOnly), User.class);
+    }
+
+    /**
+     * Builds the query of {@link #findAllAfter}, shared with the reactive repository.
+     */
+    static Query findAllAfterQuery(Sort.Order order, UserCursor after, int limit, boolean publicOnly) {
+        List<Criteria> criteria = new ArrayList<>();
+        if (publicOnly) {
+            criteria.add(where("activated").is(true));
+        }
+        if (after != null) {
+            criteria.add(after(after));
+        }
+        Query query = new Query();
+        if (!criteria.isEmpty()) {
+            query.addCriteria(new Criteria().andOperator(criteria.toArray(new Criteria[0])));
+        }
+        if (publicOnly) {
+            // The sort property is needed for the cursor of the next page
+            query.fields().include("login").include(order.getProperty());
+        } else {
+            excludeSecrets(query);
+        }
+        Sort sort = ID.equals(order.getProperty()) ? Sort.by(order) : Sort.by(order, new Sort.Order(order.getDirection(), ID));
+        return query.with(sort).limit(limit);
+    }
+
+    @Override
+    public List<User> findAllModifiedAfter(UserCursor after, Instant until, int limit) {
+        // Users never modified sort first, and are always before the bound
+        Criteria criteria = new Criteria().orOperator(where(LAST_MODIFIED_DATE).lte(until), where(LAST_MODIFIED_DATE).is(null));
+        if (after != null) {
+            criteria = new Criteria().andOperator(criteria, KeysetCriteria.after(LAST_MODIFIED_DATE, true, after.getValue(), after.getId()));
+        }
+        Query query = Query.query(criteria);
+        excludeSecrets(query);
+        return mongoTemplate.find(query.with(Sort.by(LAST_MODIFIED_DATE, ID)).limit(limit), User.class);
+    }
+
+    @Override
+    public Stream<User> streamAll(Instant modifiedSince) {
+        Query query = new Query();
+        excludeSecrets(query);
+        if (modifiedSince != null) {
+            // Sorting on the indexed date alone, so that the users are read from the index without an in-memory sort
+            query.addCriteria(where(LAST_MODIFIED_DATE).gte(modifiedSince)).with(Sort.by(LAST_MODIFIED_DATE));
+        } else {
+            query.with(Sort.by(ID));
+        }
+        query.cursorBatchSize(STREAM_BATCH_SIZE);
+        return StreamUtils.createStreamFromIterator(mongoTemplate.stream(query, User.class));
+    }
+
+    @Override
+    public void insertUnordered(List<User> users) {
+        if (!users.isEmpty()) {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class).insert(users).execute();
+        }
+    }
+
+    @Override
+    public boolean replacePassword(String id, String expectedPassword, String password) {
+        Query query = Query.query(where(ID).is(id).and("password").is(expectedPassword));
+        // Modified like a save, so that the other nodes polling the last modified dates evict the user
+        Update update = Update.update("password", password).set("lastModifiedDate", Instant.now());
+        return mongoTemplate.updateFirst(query, update, User.class).getModifiedCount() > 0;
+    }
+
+    @Override
+    public long estimateCount() {
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(User.class)).estimatedDocumentCount();
+    }
+
+    private static void excludeSecrets(Query query) {
+        query.fields().exclude("password").exclude("activationKey").exclude("resetKey").exclude("resetDate");
+    }
+
+    private static Criteria after(UserCursor cursor) {
+        return KeysetCriteria.after(cursor.getOrder().getProperty(), cursor.getOrder().isAscending(), cursor.getValue(), cursor.getId());
+    }
+}
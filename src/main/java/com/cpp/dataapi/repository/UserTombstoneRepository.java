@@ -0,0 +1,9 @@
+package com.cpp.dataapi.repository;
+
+import com.cpp.dataapi.domain.UserTombstone;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+/**
+ * Spring Data MongoDB repository for the {@link UserTombstone} entity.
+ */
+public interface UserTombstoneRepository extends MongoRepository<UserTombstone, String>, UserTombstoneRepositoryCustom {}
@@ -0,0 +1,20 @@
+package com.cpp.dataapi.repository;
+
+import com.cpp.dataapi.domain.UserTombstone;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Custom queries of the {@link UserTombstoneRepository}, which cannot be derived from method names.
+ */
+public interface UserTombstoneRepositoryCustom {
+    /**
+     * Finds the tombstones of the users deleted after a position in the order of their deletion, then of their id.
+     *
+     * @param after the position of the last change read, whose value is a date, or {@code null} to start from the first one.
+     * @param until the date up to which the users were deleted, inclusive.
+     * @param limit the maximum number of tombstones to return.
+     * @return the tombstones following the position.
+     */
+    List<UserTombstone> findAllDeletedAfter(UserCursor after, Instant until, int limit);
+}
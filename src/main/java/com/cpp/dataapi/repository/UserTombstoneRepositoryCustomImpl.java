@@ -0,0 +1,35 @@
+package com.cpp.dataapi.repository;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+import com.cpp.dataapi.domain.UserTombstone;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+/**
+ * Implementation of the {@link UserTombstoneRepositoryCustom} queries.
+ */
+public class UserTombstoneRepositoryCustomImpl implements UserTombstoneRepositoryCustom {
+
+    private static final String DELETED_DATE = "deletedDate";
+
+    private final MongoTemplate mongoTemplate;
+
+    public UserTombstoneRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<UserTombstone> findAllDeletedAfter(UserCursor after, Instant until, int limit) {
+        Criteria criteria = where(DELETED_DATE).lte(until);
+        if (after != null) {
+            criteria = new Criteria().andOperator(criteria, KeysetCriteria.after(DELETED_DATE, true, after.getValue(), after.getId()));
+        }
+        Query query = Query.query(criteria).with(Sort.by(DELETED_DATE, KeysetCriteria.ID)).limit(limit);
+        return mongoTemplate.find(query, UserTombstone.class);
+    }
+}
@@ -0,0 +1,171 @@
+package com.cpp.dataapi.security;
+
+import com.cpp.dataapi.domain.Authority;
+import com.cpp.dataapi.repository.AuthorityRepository;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+/**
+ * Registry of canonical {@link GrantedAuthority} instances, and catalog of the {@link Authority} entities.
+ * <p>
+ * The set of authorities is small and fixed (the ones of {@link AuthoritiesConstants} and of the {@code jhi_authority}
+ * collection), so every authentication shares the same immutable instances instead of allocating new ones for each
+ * request.
+ * <p>
+ * The stored authorities almost never change, so they are read from memory instead of the database. They are loaded
+ * at startup, reloaded on a timer, and on every change seen by the {@code UserCacheInvalidator}.
+ */
+@Component
+public class AuthorityRegistry {
+
+    private static final int MAX_AUTHORITIES = 1024;
+
+    private static final int MAX_AUTHORITIES_CLAIMS = 1024;
+
+    private static final char CLAIM_SEPARATOR = ',';
+
+    private final Logger log = LoggerFactory.getLogger(AuthorityRegistry.class);
+
+    private final AuthorityRepository authorityRepository;
+
+    private final ConcurrentMap<String, GrantedAuthority> authorities = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, List<GrantedAuthority>> authoritiesByClaim = new ConcurrentHashMap<>();
+
+    private volatile Map<String, Authority> storedAuthorities;
+
+    public AuthorityRegistry(AuthorityRepository authorityRepository) {
+        this.authorityRepository = authorityRepository;
+        getAuthority(AuthoritiesConstants.ADMIN);
+        getAuthority(AuthoritiesConstants.USER);
+        getAuthority(AuthoritiesConstants.ANONYMOUS);
+    }
+
+    /**
+     * Loads the authorities stored in the database once the application, and its migrations, are ready, then
+     * periodically.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(
+        initialDelayString = "${application.security.authority-catalog.refresh-interval-millis:300000}",
+        fixedDelayString = "${application.security.authority-catalog.refresh-interval-millis:300000}"
+    )
+    public void loadAuthorities() {
+        Map<String, Authority> loaded = new TreeMap<>();
+        for (Authority authority : authorityRepository.findAll()) {
+            getAuthority(authority.getName());
+            loaded.put(authority.getName(), authority);
+        }
+        storedAuthorities = Collections.unmodifiableMap(loaded);
+        log.debug("Registered {} authorities from the database", loaded.size());
+    }
+
+    /**
+     * Returns the authorities stored in the database.
+     *
+     * @return an unmodifiable map of the shared {@link Authority} instances, by name, sorted by name.
+     */
+    public Map<String, Authority> getStoredAuthorities() {
+        Map<String, Authority> stored = storedAuthorities;
+        if (stored == null) {
+            // Read before the application is ready
+            loadAuthorities();
+            stored = storedAuthorities;
+        }
+        return stored;
+    }
+
+    /**
+     * Returns the stored authorities with the given names, ignoring the unknown ones.
+     *
+     * @param names the names of the authorities, possibly {@code null}.
+     * @return a new set of the shared {@link Authority} instances.
+     */
+    public Set<Authority> findStoredAuthorities(Collection<String> names) {
+        Set<Authority> found = new HashSet<>();
+        if (names != null) {
+            Map<String, Authority> stored = getStoredAuthorities();
+            for (String name : names) {
+                Authority authority = stored.get(name);
+                if (authority != null) {
+                    found.add(authority);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Returns the canonical instance of an authority.
+     *
+     * @param name the name of the authority.
+     * @return the shared {@link GrantedAuthority} with this name.
+     */
+    public GrantedAuthority getAuthority(String name) {
+        GrantedAuthority authority = authorities.get(name);
+        if (authority != null) {
+            return authority;
+        }
+        if (authorities.size() >= MAX_AUTHORITIES) {
+            // Do not let unexpected names grow the registry without bound
+            return new SimpleGrantedAuthority(name);
+        }
+        return authorities.computeIfAbsent(name, SimpleGrantedAuthority::new);
+    }
+
+    /**
+     * Decodes the comma-separated authorities of a token claim, such as {@code "ROLE_ADMIN,ROLE_USER"}.
+     * <p>
+     * Tokens carry only a handful of distinct combinations, so the decoded lists are shared as well.
+     *
+     * @param claim the comma-separated authority names.
+     * @return an unmodifiable list of canonical authorities.
+     */
+    public List<GrantedAuthority> getAuthoritiesFromClaim(String claim) {
+        if (claim == null || claim.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<GrantedAuthority> decoded = authoritiesByClaim.get(claim);
+        if (decoded != null) {
+            return decoded;
+        }
+        decoded = decodeClaim(claim);
+        if (authoritiesByClaim.size() < MAX_AUTHORITIES_CLAIMS) {
+            authoritiesByClaim.putIfAbsent(claim, decoded);
+        }
+        return decoded;
+    }
+
+    private List<GrantedAuthority> decodeClaim(String claim) {
+        List<GrantedAuthority> decoded = new ArrayList<>();
+        int start = 0;
+        while (start <= claim.length()) {
+            int end = claim.indexOf(CLAIM_SEPARATOR, start);
+            if (end < 0) {
+                end = claim.length();
+            }
+            String name = claim.substring(start, end).trim();
+            if (!name.isEmpty()) {
+                decoded.add(getAuthority(name));
+            }
+            start = end + 1;
+        }
+        return Collections.unmodifiableList(decoded);
+    }
+}
@@ -0,0 +1,74 @@
+package com.cpp.dataapi.security;
+
+import java.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import tech.jhipster.security.RandomUtil;
+
+/**
+ * Utility class measuring the BCrypt cost suited to the host the application runs on.
+ * <p>
+ * The measure only advises the configured cost: all the nodes must hash with the same cost, or each login on another
+ * node would upgrade the hash of its user again.
+ */
+public final class BCryptCostCalibrator {
+
+    private static final Logger log = LoggerFactory.getLogger(BCryptCostCalibrator.class);
+
+    private BCryptCostCalibrator() {}
+
+    /**
+     * Measures BCrypt from the minimum cost upwards, each step doubling the hashing time, until a cost exceeds the
+     * target latency.
+     *
+     * @param targetLatency the time a hash should take at most.
+     * @param minCost       the lowest cost, used even when slower than the target.
+     * @param maxCost       the highest cost.
+     * @return the highest cost hashing within the target latency, or the minimum cost.
+     */
+    public static int calibrate(Duration targetLatency, int minCost, int maxCost) {
+        String sample = RandomUtil.generatePassword();
+        // Warm up, so that the first measure does not include the class loading and JIT compilation
+        hashNanos(minCost, sample);
+        int cost = minCost;
+        long nanos = hashNanos(cost, sample);
+        while (cost < maxCost) {
+            long next = hashNanos(cost + 1, sample);
+            if (next > targetLatency.toNanos()) {
+                break;
+            }
+            cost++;
+            nanos = next;
+        }
+        log.info("Calibrated BCrypt cost {}, hashing in {} ms", cost, Duration.ofNanos(nanos).toMillis());
+        return cost;
+    }
+
+    /**
+     * Calibrates the cost, and logs whether the configured cost differs from it.
+     *
+     * @param targetLatency  the time a hash should take at most.
+     * @param minCost        the lowest cost.
+     * @param maxCost        the highest cost.
+     * @param configuredCost the cost the hashes are made with.
+     */
+    public static void advise(Duration targetLatency, int minCost, int maxCost, int configuredCost) {
+        int cost = calibrate(targetLatency, minCost, maxCost);
+        if (cost != configuredCost) {
+            log.warn(
+                "BCrypt cost {} hashes within {} ms on this host, while the configured cost is {}: set the same cost on all the nodes",
+                cost,
+                targetLatency.toMillis(),
+                configuredCost
+            );
+        }
+    }
+
+    private static long hashNanos(int cost, String sample) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(cost);
+        long start = System.nanoTime();
+        encoder.encode(sample);
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,229 @@
+package com.cpp.dataapi.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * {@link PasswordEncoder} hashing and verifying the passwords on a dedicated pool, instead of on the request threads.
+ * <p>
+ * Hashing is slow on purpose, so that a burst of logins would otherwise hold every request thread and starve the cheap
+ * endpoints. At most {@code maxPending} passwords are processed for the callers at a time; the next callers wait for
+ * the admission timeout, then get a {@link PasswordHashingSaturatedException}, as do the callers finding the queue of
+ * the pool full, or whose password waits longer than the admission timeout for a thread of the pool. Callers already
+ * running on the pool, such as the bulk import, hash on their own thread: the pool must create its threads with
+ * {@link #poolThreadFactory}.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    public static final String PENDING_METER_NAME = "security.password-hashing.pending";
+    public static final String QUEUE_METER_NAME = "security.password-hashing.queue";
+    public static final String WAIT_METER_NAME = "security.password-hashing.wait";
+    public static final String DURATION_METER_NAME = "security.password-hashing.duration";
+    public static final String REJECTED_METER_NAME = "security.password-hashing.rejected";
+    public static final String OPERATION_DIMENSION = "operation";
+
+    private final PasswordEncoder delegate;
+
+    private final ThreadPoolTaskExecutor executor;
+
+    private final Semaphore permits;
+
+    private final Duration admissionTimeout;
+
+    private final Duration retryAfter;
+
+    private final Timer encodeWaitTimer;
+
+    private final Timer encodeTimer;
+
+    private final Timer matchesWaitTimer;
+
+    private final Timer matchesTimer;
+
+    private final Counter rejectedCounter;
+
+    public BoundedPasswordEncoder(
+        PasswordEncoder delegate,
+        ThreadPoolTaskExecutor executor,
+        int maxPending,
+        Duration admissionTimeout,
+        Duration retryAfter,
+        MeterRegistry meterRegistry
+    ) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.permits = new Semaphore(maxPending);
+        this.admissionTimeout = admissionTimeout;
+        this.retryAfter = retryAfter;
+        Gauge
+            .builder(PENDING_METER_NAME, permits, p -> maxPending - p.availablePermits())
+            .description("Indicates passwords being hashed or verified for the requests.")
+            .register(meterRegistry);
+        Gauge
+            .builder(QUEUE_METER_NAME, executor, e -> e.getThreadPoolExecutor().getQueue().size())
+            .description("Indicates passwords waiting for a thread of the password hashing pool.")
+            .register(meterRegistry);
+        this.encodeWaitTimer = waitTimer("encode").register(meterRegistry);
+        this.encodeTimer = durationTimer("encode").register(meterRegistry);
+        this.matchesWaitTimer = waitTimer("matches").register(meterRegistry);
+        this.matchesTimer = durationTimer("matches").register(meterRegistry);
+        this.rejectedCounter =
+            Counter
+                .builder(REJECTED_METER_NAME)
+                .description("Indicates requests rejected because too many passwords were being processed.")
+                .register(meterRegistry);
+    }
+
+    private static Timer.Builder waitTimer(String operation) {
+        return Timer
+            .builder(WAIT_METER_NAME)
+            .description("Indicates the time passwords waited for a thread of the password hashing pool.")
+            .tag(OPERATION_DIMENSION, operation);
+    }
+
+    private static Timer.Builder durationTimer(String operation) {
+        return Timer
+            .builder(DURATION_METER_NAME)
+            .description("Indicates the time taken to hash or verify a password.")
+            .tag(OPERATION_DIMENSION, operation);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword), encodeWaitTimer, encodeTimer);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword), matchesWaitTimer, matchesTimer);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T run(Supplier<T> operation, Timer waitTimer, Timer durationTimer) {
+        if (Thread.currentThread() instanceof PoolThread) {
+            // Already off the request threads
+            return durationTimer.record(operation);
+        }
+        acquire();
+        try {
+            long submitted = System.nanoTime();
+            AtomicBoolean started = new AtomicBoolean();
+            Future<T> result;
+            try {
+                result =
+                    executor.submit(() -> {
+                        if (!started.compareAndSet(false, true)) {
+                            // The caller stopped waiting for a thread
+                            return null;
+                        }
+                        waitTimer.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                        return durationTimer.record(operation);
+                    });
+            } catch (TaskRejectedException e) {
+                // The queue is full of bulk hashing: shed the request rather than hash on its thread
+                rejectedCounter.increment();
+                throw new PasswordHashingSaturatedException(retryAfter);
+            }
+            return await(result, started);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Creates the threads of the pool the passwords are processed on, which the encoder recognizes as already off the
+     * request threads. Thread names are not trusted for this, as any thread can take one.
+     *
+     * @param threadNamePrefix the prefix of the names of the threads.
+     * @return the thread factory.
+     */
+    public static ThreadFactory poolThreadFactory(String threadNamePrefix) {
+        return new PoolThreadFactory(threadNamePrefix);
+    }
+
+    private void acquire() {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(admissionTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to process a password", e);
+        }
+        if (!acquired) {
+            rejectedCounter.increment();
+            throw new PasswordHashingSaturatedException(retryAfter);
+        }
+    }
+
+    private <T> T await(Future<T> result, AtomicBoolean started) {
+        try {
+            try {
+                return result.get(admissionTimeout.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                if (started.compareAndSet(false, true)) {
+                    // Still queued behind other passwords, such as those of an import: shed the request rather than wait
+                    result.cancel(false);
+                    rejectedCounter.increment();
+                    throw new PasswordHashingSaturatedException(retryAfter);
+                }
+                // Already running, which takes at most one hash
+                return result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while processing a password", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private static final class PoolThreadFactory extends CustomizableThreadFactory {
+
+        private static final long serialVersionUID = 1L;
+
+        PoolThreadFactory(String threadNamePrefix) {
+            super(threadNamePrefix);
+        }
+
+        @Override
+        public Thread createThread(Runnable runnable) {
+            Thread thread = new PoolThread(getThreadGroup(), runnable, nextThreadName());
+            thread.setPriority(getThreadPriority());
+            thread.setDaemon(isDaemon());
+            return thread;
+        }
+    }
+
+    private static final class PoolThread extends Thread {
+
+        PoolThread(ThreadGroup group, Runnable runnable, String name) {
+            super(group, runnable, name);
+        }
+    }
+}
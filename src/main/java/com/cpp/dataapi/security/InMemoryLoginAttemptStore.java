@@ -0,0 +1,71 @@
+package com.cpp.dataapi.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link LoginAttemptStore} of a single node.
+ * <p>
+ * Counts are incremented without locking; a key only locks its own counter when it moves to a new window. The number
+ * of keys is bounded, so that a spray of addresses or login names cannot exhaust the memory.
+ */
+public class InMemoryLoginAttemptStore implements LoginAttemptStore {
+
+    private final Cache<String, WindowCounter> counters;
+
+    public InMemoryLoginAttemptStore(Duration window, long maxKeys) {
+        // A key is idle once both its windows are over
+        this.counters = Caffeine.newBuilder().maximumSize(maxKeys).expireAfterAccess(window.multipliedBy(2)).build();
+    }
+
+    @Override
+    public long[] getCounts(String key, long window) {
+        WindowCounter counter = counters.getIfPresent(key);
+        return counter != null ? counter.getCounts(window) : new long[2];
+    }
+
+    @Override
+    public void increment(String key, long window) {
+        counters.get(key, k -> new WindowCounter(window)).increment(window);
+    }
+
+    /**
+     * Counts of a key in its current and previous windows.
+     */
+    private static final class WindowCounter {
+
+        private volatile long window;
+
+        private volatile long previous;
+
+        private final AtomicLong current = new AtomicLong();
+
+        WindowCounter(long window) {
+            this.window = window;
+        }
+
+        long[] getCounts(long window) {
+            roll(window);
+            return new long[] { previous, current.get() };
+        }
+
+        void increment(long window) {
+            roll(window);
+            current.incrementAndGet();
+        }
+
+        private void roll(long window) {
+            if (window > this.window) {
+                synchronized (this) {
+                    if (window > this.window) {
+                        previous = window == this.window + 1 ? current.get() : 0;
+                        current.set(0);
+                        this.window = window;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.cpp.dataapi.security;
+
+/**
+ * Store of the failed logins per key, counted in consecutive fixed windows of time.
+ */
+public interface LoginAttemptStore {
+    /**
+     * Returns the failures of a key in a window and in the one before.
+     *
+     * @param key    the login name or client address.
+     * @param window the index of the window since the epoch.
+     * @return the failures in the previous window, then in the given one.
+     */
+    long[] getCounts(String key, long window);
+
+    /**
+     * Counts a failure of a key in a window.
+     *
+     * @param key    the login name or client address.
+     * @param window the index of the window since the epoch.
+     */
+    void increment(String key, long window);
+}
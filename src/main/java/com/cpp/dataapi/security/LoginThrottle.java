@@ -0,0 +1,112 @@
+package com.cpp.dataapi.security;
+
+import com.cpp.dataapi.config.ApplicationProperties;
+import com.cpp.dataapi.management.SecurityMetersService;
+import java.time.Duration;
+import java.util.Locale;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Limit of the failed logins per login name and per client address, so that brute force and credential stuffing are
+ * rejected before their passwords are hashed.
+ * <p>
+ * Failures are counted over a sliding window, approximated from two fixed windows: the previous one weighs as much as
+ * it overlaps the sliding window ending now.
+ * <p>
+ * The client address is the one of the request, which is the address of the proxy in front of the application unless
+ * {@code server.forward-headers-strategy} resolves it from the forwarded headers.
+ */
+@Component
+public class LoginThrottle {
+
+    private static final String LOGIN_KEY_PREFIX = "login:";
+
+    private static final String IP_KEY_PREFIX = "ip:";
+
+    private final Logger log = LoggerFactory.getLogger(LoginThrottle.class);
+
+    private final boolean enabled;
+
+    private final long windowMillis;
+
+    private final long maxFailuresPerLogin;
+
+    private final long maxFailuresPerIp;
+
+    private final LoginAttemptStore store;
+
+    private final SecurityMetersService securityMetersService;
+
+    public LoginThrottle(
+        ApplicationProperties applicationProperties,
+        LoginAttemptStore store,
+        SecurityMetersService securityMetersService
+    ) {
+        ApplicationProperties.Security.LoginThrottling properties = applicationProperties.getSecurity().getLoginThrottling();
+        this.enabled = properties.isEnabled();
+        this.windowMillis = properties.getWindow().toMillis();
+        this.maxFailuresPerLogin = properties.getMaxFailuresPerLogin();
+        this.maxFailuresPerIp = properties.getMaxFailuresPerIp();
+        this.store = store;
+        this.securityMetersService = securityMetersService;
+    }
+
+    /**
+     * Checks that a login may be attempted, before its password is checked.
+     *
+     * @param login the login name, or email, of the attempt.
+     * @param ip    the address of the client, or {@code null} if unknown.
+     * @throws LoginThrottledException if the login name or the client address failed too many times.
+     */
+    public void checkAllowed(String login, String ip) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (exceeds(LOGIN_KEY_PREFIX + normalize(login), maxFailuresPerLogin, now)) {
+            log.debug("Throttling the logins of {}", login);
+            securityMetersService.trackLoginThrottledByLogin();
+            throw new LoginThrottledException(retryAfter(now));
+        }
+        if (ip != null && exceeds(IP_KEY_PREFIX + ip, maxFailuresPerIp, now)) {
+            log.debug("Throttling the logins from {}", ip);
+            securityMetersService.trackLoginThrottledByIp();
+            throw new LoginThrottledException(retryAfter(now));
+        }
+    }
+
+    /**
+     * Counts a failed login.
+     *
+     * @param login the login name, or email, of the attempt.
+     * @param ip    the address of the client, or {@code null} if unknown.
+     */
+    public void recordFailure(String login, String ip) {
+        if (!enabled) {
+            return;
+        }
+        long window = System.currentTimeMillis() / windowMillis;
+        store.increment(LOGIN_KEY_PREFIX + normalize(login), window);
+        if (ip != null) {
+            store.increment(IP_KEY_PREFIX + ip, window);
+        }
+        securityMetersService.trackLoginFailure();
+    }
+
+    private boolean exceeds(String key, long maxFailures, long now) {
+        long[] counts = store.getCounts(key, now / windowMillis);
+        double previousWeight = 1 - (double) (now % windowMillis) / windowMillis;
+        return counts[0] * previousWeight + counts[1] >= maxFailures;
+    }
+
+    private Duration retryAfter(long now) {
+        // The failures of the current window weigh less from the next one
+        return Duration.ofMillis(windowMillis - now % windowMillis);
+    }
+
+    private static String normalize(String login) {
+        return login != null ? login.toLowerCase(Locale.ENGLISH) : "";
+    }
+}
@@ -0,0 +1,26 @@
+package com.cpp.dataapi.security;
+
+import java.time.Duration;
+
+/**
+ * This exception is thrown when a login is attempted for a login name, or from a client address, which failed too many
+ * times recently.
+ */
+public class LoginThrottledException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Duration retryAfter;
+
+    public LoginThrottledException(Duration retryAfter) {
+        super("Too many failed logins, retry later");
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @return the delay after which the client should retry.
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,55 @@
+package com.cpp.dataapi.security;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+import com.cpp.dataapi.domain.LoginAttemptWindow;
+import java.time.Duration;
+import java.time.Instant;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+/**
+ * {@link LoginAttemptStore} shared by the nodes of the cluster, with a {@link LoginAttemptWindow} document per key and
+ * window, read and incremented by id.
+ */
+public class MongoLoginAttemptStore implements LoginAttemptStore {
+
+    private final MongoTemplate mongoTemplate;
+
+    private final long windowMillis;
+
+    public MongoLoginAttemptStore(MongoTemplate mongoTemplate, Duration window) {
+        this.mongoTemplate = mongoTemplate;
+        this.windowMillis = window.toMillis();
+    }
+
+    @Override
+    public long[] getCounts(String key, long window) {
+        String currentId = id(key, window);
+        long[] counts = new long[2];
+        Query query = Query.query(where("id").in(id(key, window - 1), currentId));
+        for (LoginAttemptWindow attempts : mongoTemplate.find(query, LoginAttemptWindow.class)) {
+            counts[currentId.equals(attempts.getId()) ? 1 : 0] = attempts.getCount();
+        }
+        return counts;
+    }
+
+    @Override
+    public void increment(String key, long window) {
+        Query query = Query.query(where("id").is(id(key, window)));
+        // Kept until the end of the next window, which still weighs it
+        Update update = new Update().inc("count", 1).setOnInsert("expireAt", Instant.ofEpochMilli((window + 2) * windowMillis));
+        try {
+            mongoTemplate.upsert(query, update, LoginAttemptWindow.class);
+        } catch (DuplicateKeyException e) {
+            // Another node inserted the window at the same time, which is now updated
+            mongoTemplate.upsert(query, update, LoginAttemptWindow.class);
+        }
+    }
+
+    private static String id(String key, long window) {
+        return key + "@" + window;
+    }
+}
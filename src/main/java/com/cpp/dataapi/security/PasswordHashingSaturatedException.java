@@ -0,0 +1,26 @@
+package com.cpp.dataapi.security;
+
+import java.time.Duration;
+
+/**
+ * This exception is thrown when too many passwords are already being hashed or verified, so that the request is shed
+ * instead of waiting.
+ */
+public class PasswordHashingSaturatedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Duration retryAfter;
+
+    public PasswordHashingSaturatedException(Duration retryAfter) {
+        super("Too many passwords are being processed, retry later");
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @return the delay after which the client should retry.
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,39 @@
+package com.cpp.dataapi.security;
+
+import com.cpp.dataapi.service.UserService;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Authenticate a user with their password, and upgrade their password hash when it was made with outdated parameters.
+ * <p>
+ * Unlike the upgrade built into {@link DaoAuthenticationProvider}, the new hash is computed and saved asynchronously,
+ * so that the login does not wait for a second hashing.
+ */
+@Component
+public class PasswordUpgradingAuthenticationProvider extends DaoAuthenticationProvider {
+
+    private final UserService userService;
+
+    public PasswordUpgradingAuthenticationProvider(
+        UserDetailsService userDetailsService,
+        PasswordEncoder passwordEncoder,
+        UserService userService
+    ) {
+        setUserDetailsService(userDetailsService);
+        setPasswordEncoder(passwordEncoder);
+        this.userService = userService;
+    }
+
+    @Override
+    protected Authentication createSuccessAuthentication(Object principal, Authentication authentication, UserDetails user) {
+        if (authentication.getCredentials() != null && getPasswordEncoder().upgradeEncoding(user.getPassword())) {
+            userService.upgradePasswordEncoding(user.getUsername(), user.getPassword(), authentication.getCredentials().toString());
+        }
+        return super.createSuccessAuthentication(principal, authentication, user);
+    }
+}
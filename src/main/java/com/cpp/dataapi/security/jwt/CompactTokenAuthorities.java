@@ -0,0 +1,88 @@
+package com.cpp.dataapi.security.jwt;
+
+import com.cpp.dataapi.security.AuthoritiesConstants;
+import com.cpp.dataapi.security.AuthorityRegistry;
+import io.jsonwebtoken.UnsupportedJwtException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.springframework.security.core.GrantedAuthority;
+
+/**
+ * Compact encoding of token authorities: the well-known authorities are written as a bitmask of their index in
+ * {@link #AUTHORITY_TABLE}, any other authority is kept in the comma-separated claim.
+ * <p>
+ * Issued tokens refer to the table by index, so it must only ever be appended to: reordering or removing an entry
+ * would silently change the authorities of the tokens already issued.
+ */
+final class CompactTokenAuthorities {
+
+    /**
+     * Version of the token format using this encoding; tokens without version use the comma-separated claim only.
+     */
+    static final int TOKEN_VERSION = 2;
+
+    private static final List<String> AUTHORITY_TABLE = Collections.unmodifiableList(
+        Arrays.asList(AuthoritiesConstants.ADMIN, AuthoritiesConstants.USER, AuthoritiesConstants.ANONYMOUS)
+    );
+
+    private final AuthorityRegistry authorityRegistry;
+
+    private final ConcurrentMap<Long, List<GrantedAuthority>> authoritiesByMask = new ConcurrentHashMap<>();
+
+    CompactTokenAuthorities(AuthorityRegistry authorityRegistry) {
+        this.authorityRegistry = authorityRegistry;
+    }
+
+    static long mask(Collection<? extends GrantedAuthority> authorities) {
+        long mask = 0;
+        for (GrantedAuthority authority : authorities) {
+            int index = AUTHORITY_TABLE.indexOf(authority.getAuthority());
+            if (index >= 0) {
+                mask |= 1L << index;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * @return the comma-separated authorities that are not part of the table, or {@code null} if there is none.
+     */
+    static String unmaskedAuthorities(Collection<? extends GrantedAuthority> authorities) {
+        StringJoiner unmasked = new StringJoiner(",");
+        for (GrantedAuthority authority : authorities) {
+            if (!AUTHORITY_TABLE.contains(authority.getAuthority())) {
+                unmasked.add(authority.getAuthority());
+            }
+        }
+        return unmasked.length() > 0 ? unmasked.toString() : null;
+    }
+
+    List<GrantedAuthority> decode(long mask, String unmaskedAuthorities) {
+        List<GrantedAuthority> masked = authoritiesByMask.computeIfAbsent(mask, this::decodeMask);
+        if (unmaskedAuthorities == null || unmaskedAuthorities.isEmpty()) {
+            return masked;
+        }
+        List<GrantedAuthority> authorities = new ArrayList<>(masked);
+        authorities.addAll(authorityRegistry.getAuthoritiesFromClaim(unmaskedAuthorities));
+        return Collections.unmodifiableList(authorities);
+    }
+
+    private List<GrantedAuthority> decodeMask(long mask) {
+        if (mask >>> AUTHORITY_TABLE.size() != 0) {
+            throw new UnsupportedJwtException("Unknown authorities in mask " + Long.toBinaryString(mask));
+        }
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        for (int index = 0; index < AUTHORITY_TABLE.size(); index++) {
+            if ((mask & (1L << index)) != 0) {
+                authorities.add(authorityRegistry.getAuthority(AUTHORITY_TABLE.get(index)));
+            }
+        }
+        return Collections.unmodifiableList(authorities);
+    }
+}
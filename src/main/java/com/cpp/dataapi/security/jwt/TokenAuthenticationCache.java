@@ -0,0 +1,116 @@
+package com.cpp.dataapi.security.jwt;
+
+import com.cpp.dataapi.management.SecurityMetersService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Bounded cache of the {@link Authentication} built from already verified JWTs.
+ * <p>
+ * Entries are keyed by a SHA-256 digest of the raw token, so the cache never holds a token as a key, and each entry
+ * expires at the {@code exp} claim of its token: a cache hit is therefore always a token that is still valid.
+ */
+class TokenAuthenticationCache {
+
+    private final Cache<String, CachedAuthentication> cache;
+
+    private final SecurityMetersService securityMetersService;
+
+    TokenAuthenticationCache(long maxEntries, SecurityMetersService securityMetersService) {
+        this.securityMetersService = securityMetersService;
+        this.cache =
+            Caffeine
+                .newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new ExpiresAtTokenExpiration())
+                .removalListener((String key, CachedAuthentication value, RemovalCause cause) -> {
+                    if (cause.wasEvicted()) {
+                        securityMetersService.trackTokenCacheEviction();
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Returns the cached authentication of a token, or {@code null} if the token was not verified yet or has expired.
+     *
+     * @param token the raw JWT.
+     * @return the cached {@link Authentication}, or {@code null}.
+     */
+    Authentication get(String token) {
+        if (token == null) {
+            return null;
+        }
+        CachedAuthentication cached = cache.getIfPresent(digest(token));
+        if (cached == null) {
+            securityMetersService.trackTokenCacheMiss();
+            return null;
+        }
+        securityMetersService.trackTokenCacheHit();
+        return cached.authentication;
+    }
+
+    /**
+     * Stores the authentication of a verified token until the token expires.
+     *
+     * @param token the raw JWT.
+     * @param authentication the authentication built from the token claims.
+     * @param expiration the {@code exp} claim of the token; tokens without expiration are not cached.
+     */
+    void put(String token, Authentication authentication, Date expiration) {
+        if (expiration == null) {
+            return;
+        }
+        cache.put(digest(token), new CachedAuthentication(authentication, expiration.getTime()));
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(messageDigest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is mandatory on every Java platform
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class CachedAuthentication {
+
+        private final Authentication authentication;
+
+        private final long expiresAtMillis;
+
+        private CachedAuthentication(Authentication authentication, long expiresAtMillis) {
+            this.authentication = authentication;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    private static final class ExpiresAtTokenExpiration implements Expiry<String, CachedAuthentication> {
+
+        @Override
+        public long expireAfterCreate(String key, CachedAuthentication value, long currentTime) {
+            long remainingMillis = value.expiresAtMillis - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedAuthentication value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedAuthentication value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
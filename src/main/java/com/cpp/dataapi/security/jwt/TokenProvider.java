@@ -1,6 +1,8 @@
 package com.cpp.dataapi.security.jwt;
 
+import com.cpp.dataapi.config.ApplicationProperties;
 import com.cpp.dataapi.management.SecurityMetersService;
+import com.cpp.dataapi.security.AuthorityRegistry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
@@ -14,10 +16,10 @@ import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.stereotype.Component;
 import org.springframework.util.ObjectUtils;
+import org.springframework.util.StringUtils;
 import tech.jhipster.config.JHipsterProperties;
 
 @Component
@@ -27,6 +29,10 @@ public class TokenProvider {
 
     private static final String AUTHORITIES_KEY = "auth";
 
+    private static final String AUTHORITIES_MASK_KEY = "am";
+
+    private static final String TOKEN_VERSION_KEY = "ver";
+
     private final Key key;
 
     private final JwtParser jwtParser;
@@ -37,7 +43,20 @@ public class TokenProvider {
 
     private final SecurityMetersService securityMetersService;
 
-    public TokenProvider(JHipsterProperties jHipsterProperties, SecurityMetersService securityMetersService) {
+    private final TokenAuthenticationCache authenticationCache;
+
+    private final AuthorityRegistry authorityRegistry;
+
+    private final CompactTokenAuthorities compactTokenAuthorities;
+
+    private final boolean issueCompactTokens;
+
+    public TokenProvider(
+        JHipsterProperties jHipsterProperties,
+        SecurityMetersService securityMetersService,
+        ApplicationProperties applicationProperties,
+        AuthorityRegistry authorityRegistry
+    ) {
         byte[] keyBytes;
         String secret = jHipsterProperties.getSecurity().getAuthentication().getJwt().getBase64Secret();
         if (!ObjectUtils.isEmpty(secret)) {
@@ -58,11 +77,16 @@ public class TokenProvider {
             1000 * jHipsterProperties.getSecurity().getAuthentication().getJwt().getTokenValidityInSecondsForRememberMe();
 
         this.securityMetersService = securityMetersService;
+
+        ApplicationProperties.Security.TokenCache tokenCache = applicationProperties.getSecurity().getTokenCache();
+        this.authenticationCache =
+            tokenCache.isEnabled() ? new TokenAuthenticationCache(tokenCache.getMaxEntries(), securityMetersService) : null;
+        this.authorityRegistry = authorityRegistry;
+        this.compactTokenAuthorities = new CompactTokenAuthorities(authorityRegistry);
+        this.issueCompactTokens = applicationProperties.getSecurity().isCompactTokenAuthorities();
     }
 
     public String createToken(Authentication authentication, boolean rememberMe) {
-        String authorities = authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).collect(Collectors.joining(","));
-
         long now = (new Date()).getTime();
         Date validity;
         if (rememberMe) {
@@ -71,54 +95,142 @@ public class TokenProvider {
             validity = new Date(now + this.tokenValidityInMilliseconds);
         }
 
-        return Jwts
-            .builder()
-            .setSubject(authentication.getName())
-            .claim(AUTHORITIES_KEY, authorities)
-            .signWith(key, SignatureAlgorithm.HS512)
-            .setExpiration(validity)
-            .compact();
+        JwtBuilder builder = Jwts.builder().setSubject(authentication.getName());
+        if (issueCompactTokens) {
+            builder
+                .claim(TOKEN_VERSION_KEY, CompactTokenAuthorities.TOKEN_VERSION)
+                .claim(AUTHORITIES_MASK_KEY, CompactTokenAuthorities.mask(authentication.getAuthorities()));
+            String unmaskedAuthorities = CompactTokenAuthorities.unmaskedAuthorities(authentication.getAuthorities());
+            if (unmaskedAuthorities != null) {
+                builder.claim(AUTHORITIES_KEY, unmaskedAuthorities);
+            }
+        } else {
+            String authorities = authentication
+                .getAuthorities()
+                .stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.joining(","));
+            builder.claim(AUTHORITIES_KEY, authorities);
+        }
+        return builder.signWith(key, SignatureAlgorithm.HS512).setExpiration(validity).compact();
     }
 
+    /**
+     * Returns the authentication of a token that is known to be valid.
+     *
+     * @param token the JWT.
+     * @return the {@link Authentication} described by the token claims.
+     * @throws JwtException if the token is not valid.
+     */
     public Authentication getAuthentication(String token) {
-        Claims claims = jwtParser.parseClaimsJws(token).getBody();
-
-        Collection<? extends GrantedAuthority> authorities = Arrays
-            .stream(claims.get(AUTHORITIES_KEY).toString().split(","))
-            .filter(auth -> !auth.trim().isEmpty())
-            .map(SimpleGrantedAuthority::new)
-            .collect(Collectors.toList());
-
-        User principal = new User(claims.getSubject(), "", authorities);
-
-        return new UsernamePasswordAuthenticationToken(principal, token, authorities);
+        if (authenticationCache != null) {
+            Authentication cached = authenticationCache.get(token);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        return authenticate(token, jwtParser.parseClaimsJws(token).getBody());
     }
 
     public boolean validateToken(String authToken) {
-        try {
-            jwtParser.parseClaimsJws(authToken);
+        return parseToken(authToken).isValid();
+    }
 
-            return true;
+    /**
+     * Validates a token and resolves its authentication with a single parse.
+     * <p>
+     * Rejected tokens are tracked by the {@link SecurityMetersService} and never throw: the caller gets the
+     * cause of the failure instead. Malformed tokens are rejected before the parser, without paying for its exceptions.
+     * The other tokens, including the expired ones, are rejected by the parser once their signature is verified, so that
+     * a forged token is never counted as expired.
+     *
+     * @param authToken the JWT.
+     * @return the authentication of the token, or the reason why it was rejected.
+     */
+    public TokenValidationResult parseToken(String authToken) {
+        if (authenticationCache != null) {
+            Authentication cached = authenticationCache.get(authToken);
+            if (cached != null) {
+                return TokenValidationResult.valid(cached);
+            }
+        }
+        if (!StringUtils.hasText(authToken)) {
+            return TokenValidationResult.invalid(TokenValidationFailure.INVALID);
+        }
+        if (!isCompactJws(authToken)) {
+            // Reject garbage without paying for the parser exception
+            return rejectToken(TokenValidationFailure.MALFORMED, null);
+        }
+        try {
+            Claims claims = jwtParser.parseClaimsJws(authToken).getBody();
+            return TokenValidationResult.valid(authenticate(authToken, claims));
         } catch (ExpiredJwtException e) {
-            this.securityMetersService.trackTokenExpired();
-
-            log.trace("Invalid JWT token.", e);
+            return rejectToken(TokenValidationFailure.EXPIRED, e);
         } catch (UnsupportedJwtException e) {
-            this.securityMetersService.trackTokenUnsupported();
-
-            log.trace("Invalid JWT token.", e);
+            return rejectToken(TokenValidationFailure.UNSUPPORTED, e);
         } catch (MalformedJwtException e) {
-            this.securityMetersService.trackTokenMalformed();
-
-            log.trace("Invalid JWT token.", e);
+            return rejectToken(TokenValidationFailure.MALFORMED, e);
         } catch (SignatureException e) {
-            this.securityMetersService.trackTokenInvalidSignature();
-
-            log.trace("Invalid JWT token.", e);
+            return rejectToken(TokenValidationFailure.INVALID_SIGNATURE, e);
         } catch (IllegalArgumentException e) { // TODO: should we let it bubble (no catch), to avoid defensive programming and follow the fail-fast principle?
             log.error("Token validation error {}", e.getMessage());
+            return TokenValidationResult.invalid(TokenValidationFailure.INVALID);
         }
+    }
+
+    private TokenValidationResult rejectToken(TokenValidationFailure failure, JwtException cause) {
+        this.securityMetersService.trackTokenFailure(failure);
+        if (log.isTraceEnabled()) {
+            log.trace("Invalid JWT token: {}", failure, cause);
+        }
+        return TokenValidationResult.invalid(failure);
+    }
 
-        return false;
+    private Authentication authenticate(String token, Claims claims) {
+        Object authoritiesClaim = claims.get(AUTHORITIES_KEY);
+        String unmaskedAuthorities = authoritiesClaim != null ? authoritiesClaim.toString() : null;
+        List<GrantedAuthority> authorities;
+        Object version = claims.get(TOKEN_VERSION_KEY);
+        if (version == null) {
+            // Tokens issued before the compact format only carry the comma-separated claim
+            authorities = authorityRegistry.getAuthoritiesFromClaim(unmaskedAuthorities);
+        } else if (version instanceof Number && ((Number) version).intValue() == CompactTokenAuthorities.TOKEN_VERSION) {
+            Object mask = claims.get(AUTHORITIES_MASK_KEY);
+            long authoritiesMask = mask instanceof Number ? ((Number) mask).longValue() : 0L;
+            authorities = compactTokenAuthorities.decode(authoritiesMask, unmaskedAuthorities);
+        } else {
+            throw new UnsupportedJwtException("Unsupported token version " + version);
+        }
+
+        User principal = new User(claims.getSubject(), "", authorities);
+
+        Authentication authentication = new UsernamePasswordAuthenticationToken(principal, token, authorities);
+        if (authenticationCache != null) {
+            authenticationCache.put(token, authentication, claims.getExpiration());
+        }
+        return authentication;
+    }
+
+    /**
+     * Checks the compact serialization of a JWS: three base64url segments separated by dots, the signature one being
+     * possibly empty for unsecured tokens (which the parser reports as unsupported).
+     */
+    private static boolean isCompactJws(String token) {
+        int separators = 0;
+        int segmentLength = 0;
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (c == '.') {
+                if (segmentLength == 0 || ++separators > 2) {
+                    return false;
+                }
+                segmentLength = 0;
+            } else if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '_' || c == '=') {
+                segmentLength++;
+            } else {
+                return false;
+            }
+        }
+        return separators == 2;
     }
 }
@@ -0,0 +1,15 @@
+package com.cpp.dataapi.security.jwt;
+
+/**
+ * Reasons for which a JWT presented by a client is rejected by {@link TokenProvider#parseToken(String)}.
+ */
+public enum TokenValidationFailure {
+    EXPIRED,
+    UNSUPPORTED,
+    MALFORMED,
+    INVALID_SIGNATURE,
+    /**
+     * The token is empty or could not be processed at all; it is not tracked by the invalid tokens meter.
+     */
+    INVALID,
+}
@@ -0,0 +1,55 @@
+package com.cpp.dataapi.security.jwt;
+
+import java.util.Objects;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Outcome of parsing a JWT once: either the resolved {@link Authentication} (principal and authorities) of a valid
+ * token, or the {@link TokenValidationFailure} explaining why it was rejected.
+ */
+public final class TokenValidationResult {
+
+    private final Authentication authentication;
+
+    private final TokenValidationFailure failure;
+
+    private TokenValidationResult(Authentication authentication, TokenValidationFailure failure) {
+        this.authentication = authentication;
+        this.failure = failure;
+    }
+
+    public static TokenValidationResult valid(Authentication authentication) {
+        return new TokenValidationResult(Objects.requireNonNull(authentication), null);
+    }
+
+    public static TokenValidationResult invalid(TokenValidationFailure failure) {
+        return new TokenValidationResult(null, Objects.requireNonNull(failure));
+    }
+
+    public boolean isValid() {
+        return authentication != null;
+    }
+
+    /**
+     * @return the authentication of a valid token, {@code null} otherwise.
+     */
+    public Authentication getAuthentication() {
+        return authentication;
+    }
+
+    /**
+     * @return the reason why the token was rejected, {@code null} if it is valid.
+     */
+    public TokenValidationFailure getFailure() {
+        return failure;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "TokenValidationResult{" +
+            "valid=" + isValid() +
+            ", failure=" + failure +
+            "}";
+    }
+}
@@ -0,0 +1,38 @@
+package com.cpp.dataapi.service;
+
+import java.time.Instant;
+
+/**
+ * A lease taken on a job by this node, identified by its fencing token.
+ */
+public final class JobLease {
+
+    private final String name;
+
+    private final long fencingToken;
+
+    private final Instant lockedAt;
+
+    public JobLease(String name, long fencingToken, Instant lockedAt) {
+        this.name = name;
+        this.fencingToken = fencingToken;
+        this.lockedAt = lockedAt;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getFencingToken() {
+        return fencingToken;
+    }
+
+    public Instant getLockedAt() {
+        return lockedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "JobLease{name='" + name + "', fencingToken=" + fencingToken + ", lockedAt=" + lockedAt + "}";
+    }
+}
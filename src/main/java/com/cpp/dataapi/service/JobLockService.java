@@ -0,0 +1,140 @@
+package com.cpp.dataapi.service;
+
+import com.cpp.dataapi.domain.JobLock;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service for the {@link JobLock} leases, which keep scheduled jobs from running on several nodes at once.
+ * <p>
+ * A lease is taken with a single atomic upsert, which only matches an expired lease: while another node holds it, the
+ * upsert collides with the existing document on its id. A lease expires on its own, so that a node crashing while
+ * holding it does not block the job forever. Each acquisition increments the fencing token of the lock, which a long
+ * job can check with {@link #isHeld(JobLease)} before each of its writes.
+ * <p>
+ * The lease taken by a thread is bound to it until it is released, see {@link #currentLease()}.
+ */
+@Service
+public class JobLockService {
+
+    public static final String ACQUISITIONS_METER_NAME = "jobs.lock.acquisitions";
+    public static final String HELD_METER_NAME = "jobs.lock.held";
+    public static final String LOST_METER_NAME = "jobs.lock.lost";
+    public static final String JOB_DIMENSION = "job";
+    public static final String RESULT_DIMENSION = "result";
+
+    private static final ThreadLocal<JobLease> CURRENT_LEASE = new ThreadLocal<>();
+
+    private final Logger log = LoggerFactory.getLogger(JobLockService.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    private final MeterRegistry meterRegistry;
+
+    private final String owner = UUID.randomUUID().toString();
+
+    public JobLockService(MongoTemplate mongoTemplate, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Takes the lease on a job, if no other node holds it, and binds it to the current thread.
+     *
+     * @param name  the name of the job.
+     * @param lease how long the lease is held at most, which must exceed the duration of the job.
+     * @return the lease, or empty if another node holds it.
+     */
+    public Optional<JobLease> tryLock(String name, Duration lease) {
+        Instant now = Instant.now();
+        Query expiredLock = Query.query(Criteria.where("name").is(name).and("lockedUntil").lte(now));
+        Update update = new Update()
+            .set("owner", owner)
+            .set("lockedAt", now)
+            .set("lockedUntil", now.plus(lease))
+            .inc("fencingToken", 1);
+        JobLock jobLock;
+        try {
+            jobLock = mongoTemplate.findAndModify(expiredLock, update, FindAndModifyOptions.options().upsert(true).returnNew(true), JobLock.class);
+        } catch (DuplicateKeyException e) {
+            log.debug("Job {} is locked by another node", name);
+            meterRegistry.counter(ACQUISITIONS_METER_NAME, JOB_DIMENSION, name, RESULT_DIMENSION, "skipped").increment();
+            return Optional.empty();
+        }
+        JobLease jobLease = new JobLease(name, jobLock.getFencingToken(), now);
+        CURRENT_LEASE.set(jobLease);
+        meterRegistry.counter(ACQUISITIONS_METER_NAME, JOB_DIMENSION, name, RESULT_DIMENSION, "acquired").increment();
+        log.debug("Locked job {} with fencing token {}", name, jobLease.getFencingToken());
+        return Optional.of(jobLease);
+    }
+
+    /**
+     * Checks that a lease is still held by this node: it has not expired, and no other node took it over.
+     *
+     * @param jobLease the lease.
+     * @return {@code true} if the lease is still held.
+     */
+    public boolean isHeld(JobLease jobLease) {
+        boolean held = mongoTemplate.exists(
+            Query.query(
+                Criteria
+                    .where("name")
+                    .is(jobLease.getName())
+                    .and("owner")
+                    .is(owner)
+                    .and("fencingToken")
+                    .is(jobLease.getFencingToken())
+                    .and("lockedUntil")
+                    .gt(Instant.now())
+            ),
+            JobLock.class
+        );
+        if (!held) {
+            log.warn("Lost the lock of job {}", jobLease.getName());
+            meterRegistry.counter(LOST_METER_NAME, JOB_DIMENSION, jobLease.getName()).increment();
+        }
+        return held;
+    }
+
+    /**
+     * Returns the lease bound to the current thread.
+     *
+     * @return the lease, or empty if the current thread does not hold any.
+     */
+    public Optional<JobLease> currentLease() {
+        return Optional.ofNullable(CURRENT_LEASE.get());
+    }
+
+    /**
+     * Releases a lease, if it is still held by this node, and unbinds it from the current thread.
+     *
+     * @param jobLease the lease.
+     * @param minLease how long the lease is held at least since it was taken, so that nodes whose clock is late do
+     *                 not run the job again right after it completed.
+     */
+    public void unlock(JobLease jobLease, Duration minLease) {
+        CURRENT_LEASE.remove();
+        Instant now = Instant.now();
+        Instant minLockedUntil = jobLease.getLockedAt().plus(minLease);
+        Query ownedLock = Query.query(
+            Criteria.where("name").is(jobLease.getName()).and("owner").is(owner).and("fencingToken").is(jobLease.getFencingToken())
+        );
+        mongoTemplate.updateFirst(ownedLock, Update.update("lockedUntil", minLockedUntil.isAfter(now) ? minLockedUntil : now), JobLock.class);
+        meterRegistry
+            .timer(HELD_METER_NAME, JOB_DIMENSION, jobLease.getName())
+            .record(Duration.between(jobLease.getLockedAt(), now).toNanos(), TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,276 @@
+package com.cpp.dataapi.service;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+import com.cpp.dataapi.config.ApplicationProperties;
+import com.cpp.dataapi.config.AsyncConfiguration;
+import com.cpp.dataapi.domain.OutboxMail;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Service for the outbox of the emails, which are stored before being sent so that none is lost on a restart.
+ * <p>
+ * The outbox is drained by a single node of the cluster, in batches sent over a single SMTP connection. An email which
+ * could not be sent is retried with an exponential backoff, and kept as {@link OutboxMail.Status#FAILED} after the max
+ * attempts.
+ * <p>
+ * Every node polls the outbox, but only takes the lock when emails are due, so that an empty outbox costs a single
+ * indexed read per poll.
+ */
+@Service
+public class MailOutboxService {
+
+    public static final String PENDING_METER_NAME = "mail.outbox.pending";
+    public static final String SEND_METER_NAME = "mail.outbox.send";
+    public static final String DELAY_METER_NAME = "mail.outbox.delay";
+    public static final String SENT_METER_NAME = "mail.outbox.sent";
+    public static final String FAILURES_METER_NAME = "mail.outbox.failures";
+    public static final String RESULT_DIMENSION = "result";
+
+    static final String LOCK_NAME = "mailOutbox";
+
+    private final Logger log = LoggerFactory.getLogger(MailOutboxService.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    private final JavaMailSender javaMailSender;
+
+    private final JHipsterProperties jHipsterProperties;
+
+    private final JobLockService jobLockService;
+
+    private final ApplicationProperties.MailOutbox properties;
+
+    private final Timer sendTimer;
+
+    private final Timer delayTimer;
+
+    private final Counter sentCounter;
+
+    private final Counter retriedCounter;
+
+    private final Counter abandonedCounter;
+
+    /**
+     * The pending emails, counted at the end of each run of this node, instead of by each scrape of the metrics.
+     */
+    private final AtomicLong pending = new AtomicLong();
+
+    public MailOutboxService(
+        MongoTemplate mongoTemplate,
+        JavaMailSender javaMailSender,
+        JHipsterProperties jHipsterProperties,
+        JobLockService jobLockService,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.javaMailSender = javaMailSender;
+        this.jHipsterProperties = jHipsterProperties;
+        this.jobLockService = jobLockService;
+        this.properties = applicationProperties.getMailOutbox();
+        Gauge
+            .builder(PENDING_METER_NAME, pending, AtomicLong::get)
+            .description("Indicates the emails waiting in the outbox, as of the last emails sent by this node.")
+            .register(meterRegistry);
+        this.sendTimer =
+            Timer.builder(SEND_METER_NAME).description("Indicates the time taken to send a batch of emails.").register(meterRegistry);
+        this.delayTimer =
+            Timer
+                .builder(DELAY_METER_NAME)
+                .description("Indicates the time emails waited in the outbox until sent.")
+                .register(meterRegistry);
+        this.sentCounter = Counter.builder(SENT_METER_NAME).description("Indicates the emails sent.").register(meterRegistry);
+        this.retriedCounter = failuresCounterForResultBuilder("retried").register(meterRegistry);
+        this.abandonedCounter = failuresCounterForResultBuilder("abandoned").register(meterRegistry);
+    }
+
+    private static Counter.Builder failuresCounterForResultBuilder(String result) {
+        return Counter
+            .builder(FAILURES_METER_NAME)
+            .description("Indicates the emails which could not be sent, to be retried or given up on.")
+            .tag(RESULT_DIMENSION, result);
+    }
+
+    /**
+     * Stores an email in the outbox, to be sent shortly.
+     *
+     * @param to          the recipient.
+     * @param subject     the subject.
+     * @param content     the content.
+     * @param isMultipart whether the email is multipart.
+     * @param isHtml      whether the content is HTML.
+     */
+    public void enqueue(String to, String subject, String content, boolean isMultipart, boolean isHtml) {
+        Instant now = Instant.now();
+        OutboxMail mail = new OutboxMail();
+        mail.setTo(to);
+        mail.setSubject(subject);
+        mail.setContent(content);
+        mail.setMultipart(isMultipart);
+        mail.setHtml(isHtml);
+        mail.setCreatedDate(now);
+        mail.setNextAttemptDate(now);
+        mongoTemplate.insert(mail);
+        log.debug("Queued email to '{}' with subject '{}'", to, subject);
+    }
+
+    /**
+     * Sends the emails due, in batches, on a single node of the cluster.
+     * <p>
+     * This runs on the mail executor, so that a slow SMTP server holds none of the scheduler threads. A poll finding the
+     * executor still busy with the previous one is dropped.
+     */
+    @Scheduled(fixedDelayString = "${application.mail-outbox.poll-interval-millis:1000}")
+    @Async(AsyncConfiguration.MAIL_EXECUTOR)
+    public void sendPendingMails() {
+        if (!properties.isEnabled() || !hasDueMails()) {
+            return;
+        }
+        Optional<JobLease> jobLease = jobLockService.tryLock(LOCK_NAME, properties.getLockLease());
+        if (jobLease.isEmpty()) {
+            log.debug("Skipping the outbox, locked by another node");
+            return;
+        }
+        try {
+            int read;
+            do {
+                if (!jobLockService.isHeld(jobLease.get())) {
+                    return;
+                }
+                read = sendBatch();
+            } while (read == properties.getBatchSize());
+            pending.set(countPending());
+        } finally {
+            jobLockService.unlock(jobLease.get(), Duration.ZERO);
+        }
+    }
+
+    private boolean hasDueMails() {
+        return mongoTemplate.exists(
+            Query.query(where("status").is(OutboxMail.Status.PENDING).and("nextAttemptDate").lte(Instant.now())),
+            OutboxMail.class
+        );
+    }
+
+    /**
+     * Sends a batch of the emails due.
+     *
+     * @return the number of emails read from the outbox, sent or not.
+     */
+    int sendBatch() {
+        Instant now = Instant.now();
+        Query due = Query
+            .query(where("status").is(OutboxMail.Status.PENDING).and("nextAttemptDate").lte(now))
+            .with(Sort.by("nextAttemptDate"))
+            .limit(properties.getBatchSize());
+        List<OutboxMail> mails = mongoTemplate.find(due, OutboxMail.class);
+        // MimeMessage keeps the identity equality, as the failures of MailSendException are keyed by message
+        Map<MimeMessage, OutboxMail> messages = new LinkedHashMap<>();
+        for (OutboxMail mail : mails) {
+            try {
+                messages.put(toMimeMessage(mail), mail);
+            } catch (MessagingException e) {
+                fail(mail, e, now, true);
+            }
+        }
+        if (messages.isEmpty()) {
+            return mails.size();
+        }
+
+        Map<Object, Exception> failures = new LinkedHashMap<>();
+        long start = System.nanoTime();
+        try {
+            javaMailSender.send(messages.keySet().toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            failures.putAll(e.getFailedMessages());
+            if (failures.isEmpty()) {
+                messages.keySet().forEach(message -> failures.put(message, e));
+            }
+        } catch (MailException e) {
+            messages.keySet().forEach(message -> failures.put(message, e));
+        } finally {
+            sendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        List<String> sentIds = new ArrayList<>();
+        for (Map.Entry<MimeMessage, OutboxMail> entry : messages.entrySet()) {
+            OutboxMail mail = entry.getValue();
+            Exception failure = failures.get(entry.getKey());
+            if (failure != null) {
+                fail(mail, failure, now, false);
+            } else {
+                sentIds.add(mail.getId());
+                sentCounter.increment();
+                delayTimer.record(Duration.between(mail.getCreatedDate(), Instant.now()));
+                log.debug("Sent email to User '{}'", mail.getTo());
+            }
+        }
+        if (!sentIds.isEmpty()) {
+            mongoTemplate.remove(Query.query(where("id").in(sentIds)), OutboxMail.class);
+        }
+        return mails.size();
+    }
+
+    private MimeMessage toMimeMessage(OutboxMail mail) throws MessagingException {
+        MimeMessage mimeMessage = javaMailSender.createMimeMessage();
+        MimeMessageHelper message = new MimeMessageHelper(mimeMessage, mail.isMultipart(), StandardCharsets.UTF_8.name());
+        message.setTo(mail.getTo());
+        message.setFrom(jHipsterProperties.getMail().getFrom());
+        message.setSubject(mail.getSubject());
+        message.setText(mail.getContent(), mail.isHtml());
+        return mimeMessage;
+    }
+
+    private void fail(OutboxMail mail, Exception failure, Instant now, boolean permanent) {
+        mail.setAttempts(mail.getAttempts() + 1);
+        mail.setLastError(failure.getMessage());
+        if (permanent || mail.getAttempts() >= properties.getMaxAttempts()) {
+            log.warn("Email could not be sent to user '{}', giving up after {} attempts", mail.getTo(), mail.getAttempts(), failure);
+            mail.setStatus(OutboxMail.Status.FAILED);
+            abandonedCounter.increment();
+        } else {
+            log.warn("Email could not be sent to user '{}', retrying: {}", mail.getTo(), failure.getMessage());
+            mail.setNextAttemptDate(now.plus(backoff(mail.getAttempts())));
+            retriedCounter.increment();
+        }
+        mongoTemplate.save(mail);
+    }
+
+    private Duration backoff(int attempts) {
+        Duration backoff = properties.getInitialBackoff().multipliedBy(1L << Math.min(attempts - 1, 30));
+        return backoff.compareTo(properties.getMaxBackoff()) > 0 ? properties.getMaxBackoff() : backoff;
+    }
+
+    private long countPending() {
+        return mongoTemplate.count(Query.query(where("status").is(OutboxMail.Status.PENDING)), OutboxMail.class);
+    }
+}
@@ -0,0 +1,329 @@
+package com.cpp.dataapi.service;
+
+import com.cpp.dataapi.config.Constants;
+import com.cpp.dataapi.domain.Authority;
+import com.cpp.dataapi.domain.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.thymeleaf.ThymeleafProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.MessageSource;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.HtmlUtils;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring5.SpringTemplateEngine;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Renders the emails sent to the users from the Thymeleaf templates of {@code templates/mail}.
+ * <p>
+ * Only the user differs between two emails of a template in a locale: the messages, the base URL and the markup are
+ * the same. So each template is rendered once per locale with placeholders for the user properties, and split into its
+ * static fragments and the properties between them. An email is then the concatenation of the fragments and of the
+ * escaped properties of its user, without evaluating the template again. The subjects are cached per locale as well.
+ * <p>
+ * A template whose output depends on the user in another way than by printing its properties, as checked by rendering
+ * it for sample users, is rendered by Thymeleaf for every email, as are the users missing one of the printed
+ * properties. Nothing is cached when the Thymeleaf cache is disabled, so that the templates can be edited in development.
+ */
+@Service
+public class MailTemplateRenderer {
+
+    public static final String RENDER_METER_NAME = "mail.template.render";
+
+    private static final String MAIL_TEMPLATES = "classpath*:templates/mail/*.html";
+
+    private static final String MAIL_TEMPLATE_PREFIX = "mail/";
+
+    private static final String MAIL_TEMPLATE_SUFFIX = ".html";
+
+    private static final String USER = "user";
+
+    private static final String BASE_URL = "baseUrl";
+
+    private static final int MAX_CACHED_RENDERINGS = 1024;
+
+    private final Logger log = LoggerFactory.getLogger(MailTemplateRenderer.class);
+
+    private final JHipsterProperties jHipsterProperties;
+
+    private final MessageSource messageSource;
+
+    private final SpringTemplateEngine templateEngine;
+
+    private final MeterRegistry meterRegistry;
+
+    private final boolean cacheEnabled;
+
+    private final String placeholderPrefix = "mailvar" + UUID.randomUUID().toString().replace("-", "");
+
+    /**
+     * Placeholders are lower case, as the user setters normalize some properties, such as the login and the email.
+     */
+    private final Pattern placeholderPattern = Pattern.compile(placeholderPrefix + "([a-z_]+)0");
+
+    private final ConcurrentMap<String, CompiledTemplate> compiledTemplates = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, String> subjects = new ConcurrentHashMap<>();
+
+    public MailTemplateRenderer(
+        JHipsterProperties jHipsterProperties,
+        MessageSource messageSource,
+        SpringTemplateEngine templateEngine,
+        ThymeleafProperties thymeleafProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this.jHipsterProperties = jHipsterProperties;
+        this.messageSource = messageSource;
+        this.templateEngine = templateEngine;
+        this.meterRegistry = meterRegistry;
+        this.cacheEnabled = thymeleafProperties.isCache();
+    }
+
+    /**
+     * Compiles the mail templates in the default language once the application is ready, so that the first emails do
+     * not pay for parsing them.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void preloadTemplates() {
+        if (!cacheEnabled) {
+            return;
+        }
+        Resource[] resources;
+        try {
+            resources = new PathMatchingResourcePatternResolver().getResources(MAIL_TEMPLATES);
+        } catch (IOException e) {
+            log.warn("Could not list the mail templates: {}", e.getMessage());
+            return;
+        }
+        Locale locale = Locale.forLanguageTag(Constants.DEFAULT_LANGUAGE);
+        for (Resource resource : resources) {
+            String filename = resource.getFilename();
+            if (filename == null || !filename.endsWith(MAIL_TEMPLATE_SUFFIX)) {
+                continue;
+            }
+            String templateName = MAIL_TEMPLATE_PREFIX + filename.substring(0, filename.length() - MAIL_TEMPLATE_SUFFIX.length());
+            try {
+                getCompiledTemplate(templateName, locale);
+            } catch (RuntimeException e) {
+                log.warn("Could not preload the mail template {}: {}", templateName, e.getMessage());
+            }
+        }
+        log.debug("Preloaded {} mail templates", compiledTemplates.size());
+    }
+
+    /**
+     * Renders the content of an email to a user.
+     *
+     * @param templateName the name of the template, such as {@code mail/activationEmail}.
+     * @param user         the user the email is sent to.
+     * @param locale       the locale of the user.
+     * @return the HTML content.
+     */
+    public String render(String templateName, User user, Locale locale) {
+        long start = System.nanoTime();
+        CompiledTemplate compiled = cacheEnabled ? getCompiledTemplate(templateName, locale) : CompiledTemplate.NONE;
+        String content = compiled.render(user);
+        boolean fromFragments = content != null;
+        if (!fromFragments) {
+            content = process(templateName, user, locale);
+        }
+        Timer
+            .builder(RENDER_METER_NAME)
+            .description("Time taken to render an email from its template")
+            .tag("template", templateName)
+            .tag("cached", String.valueOf(fromFragments))
+            .register(meterRegistry)
+            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return content;
+    }
+
+    /**
+     * Resolves the subject of an email.
+     *
+     * @param titleKey the key of the subject in the messages.
+     * @param locale   the locale of the user.
+     * @return the subject.
+     */
+    public String getSubject(String titleKey, Locale locale) {
+        if (!cacheEnabled) {
+            return messageSource.getMessage(titleKey, null, locale);
+        }
+        String key = titleKey + '|' + locale.toLanguageTag();
+        String subject = subjects.get(key);
+        if (subject == null) {
+            subject = messageSource.getMessage(titleKey, null, locale);
+            // Do not let unexpected language keys grow the cache without bound
+            if (subjects.size() < MAX_CACHED_RENDERINGS) {
+                subjects.putIfAbsent(key, subject);
+            }
+        }
+        return subject;
+    }
+
+    private CompiledTemplate getCompiledTemplate(String templateName, Locale locale) {
+        String key = templateName + '|' + locale.toLanguageTag();
+        CompiledTemplate compiled = compiledTemplates.get(key);
+        if (compiled == null) {
+            compiled = compile(templateName, locale);
+            if (compiledTemplates.size() < MAX_CACHED_RENDERINGS) {
+                compiledTemplates.putIfAbsent(key, compiled);
+            }
+        }
+        return compiled;
+    }
+
+    private CompiledTemplate compile(String templateName, Locale locale) {
+        User placeholders = new User();
+        for (UserProperty property : UserProperty.values()) {
+            property.setter.accept(placeholders, placeholderPrefix + property.name().toLowerCase(Locale.ROOT) + '0');
+        }
+        String output = process(templateName, placeholders, locale);
+
+        List<String> fragments = new ArrayList<>();
+        List<UserProperty> properties = new ArrayList<>();
+        Matcher matcher = placeholderPattern.matcher(output);
+        int end = 0;
+        while (matcher.find()) {
+            fragments.add(output.substring(end, matcher.start()));
+            properties.add(UserProperty.valueOf(matcher.group(1).toUpperCase(Locale.ROOT)));
+            end = matcher.end();
+        }
+        fragments.add(output.substring(end));
+        CompiledTemplate compiled = new CompiledTemplate(fragments, properties);
+
+        // The output must only depend on the printed properties, which must be escaped as Thymeleaf does
+        User sample = sampleUser(EnumSet.allOf(UserProperty.class));
+        User sparseSample = sampleUser(compiled.getProperties());
+        if (
+            !process(templateName, sample, locale).equals(compiled.render(sample)) ||
+            !process(templateName, sparseSample, locale).equals(compiled.render(sparseSample))
+        ) {
+            log.info("The mail template {} does not only print user properties, it is rendered for every email", templateName);
+            return CompiledTemplate.NONE;
+        }
+        log.debug("Compiled the mail template {} in {} to {} fragments", templateName, locale, fragments.size());
+        return compiled;
+    }
+
+    private String process(String templateName, User user, Locale locale) {
+        Context context = new Context(locale);
+        context.setVariable(USER, user);
+        context.setVariable(BASE_URL, jHipsterProperties.getMail().getBaseUrl());
+        return templateEngine.process(templateName, context);
+    }
+
+    /**
+     * A user whose properties differ from the placeholders, and contain the characters to escape.
+     */
+    private static User sampleUser(Set<UserProperty> properties) {
+        User user = new User();
+        for (UserProperty property : properties) {
+            property.setter.accept(user, "<sample & \"" + property.name().toLowerCase(Locale.ROOT) + "'>");
+        }
+        user.setActivated(true);
+        Instant date = Instant.EPOCH.plus(1, ChronoUnit.DAYS);
+        user.setResetDate(date);
+        user.setCreatedDate(date);
+        user.setLastModifiedDate(date);
+        Authority authority = new Authority();
+        authority.setName("sample");
+        user.setAuthorities(Collections.singleton(authority));
+        return user;
+    }
+
+    /**
+     * The text properties of a user which can be printed by a template.
+     */
+    private enum UserProperty {
+        ID(User::getId, User::setId),
+        LOGIN(User::getLogin, User::setLogin),
+        FIRST_NAME(User::getFirstName, User::setFirstName),
+        LAST_NAME(User::getLastName, User::setLastName),
+        EMAIL(User::getEmail, User::setEmail),
+        LANG_KEY(User::getLangKey, User::setLangKey),
+        IMAGE_URL(User::getImageUrl, User::setImageUrl),
+        ACTIVATION_KEY(User::getActivationKey, User::setActivationKey),
+        RESET_KEY(User::getResetKey, User::setResetKey),
+        CREATED_BY(User::getCreatedBy, User::setCreatedBy),
+        LAST_MODIFIED_BY(User::getLastModifiedBy, User::setLastModifiedBy);
+
+        private final Function<User, String> getter;
+
+        private final BiConsumer<User, String> setter;
+
+        UserProperty(Function<User, String> getter, BiConsumer<User, String> setter) {
+            this.getter = getter;
+            this.setter = setter;
+        }
+    }
+
+    /**
+     * A template rendered in a locale, as its static fragments and the user properties printed between them.
+     */
+    private static final class CompiledTemplate {
+
+        /**
+         * A template to be rendered by Thymeleaf.
+         */
+        static final CompiledTemplate NONE = new CompiledTemplate(Collections.emptyList(), Collections.emptyList());
+
+        private final List<String> fragments;
+
+        private final List<UserProperty> properties;
+
+        private final int length;
+
+        CompiledTemplate(List<String> fragments, List<UserProperty> properties) {
+            this.fragments = fragments;
+            this.properties = properties;
+            this.length = fragments.stream().mapToInt(String::length).sum();
+        }
+
+        Set<UserProperty> getProperties() {
+            return properties.isEmpty() ? EnumSet.noneOf(UserProperty.class) : EnumSet.copyOf(properties);
+        }
+
+        /**
+         * @return the content for the user, or {@code null} if it must be rendered by Thymeleaf.
+         */
+        String render(User user) {
+            if (fragments.isEmpty()) {
+                return null;
+            }
+            StringBuilder content = new StringBuilder(length + 32 * properties.size());
+            content.append(fragments.get(0));
+            for (int i = 0; i < properties.size(); i++) {
+                String value = properties.get(i).getter.apply(user);
+                if (value == null) {
+                    // Thymeleaf decides how a missing value is printed
+                    return null;
+                }
+                content.append(HtmlUtils.htmlEscape(value, "UTF-8")).append(fragments.get(i + 1));
+            }
+            return content.toString();
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.cpp.dataapi.service;
+
+public class ResumeTokenExpiredException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ResumeTokenExpiredException() {
+        super("Changes are no longer kept since this position, a full resync is needed");
+    }
+}
@@ -0,0 +1,313 @@
+package com.cpp.dataapi.service;
+
+import com.cpp.dataapi.config.ApplicationProperties;
+import com.cpp.dataapi.domain.User;
+import com.cpp.dataapi.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Local cache of the users looked up by login and by email, in front of the {@link UserRepository}.
+ * <p>
+ * The cache is size-bounded and entries expire after a configurable time-to-live. Only found users are cached, so a
+ * lookup of an unknown login or email always reaches the database. Every mutation of a user must {@link #evict(User)}
+ * it, both before changing its login or email and after saving it. A user read from the database while it is evicted
+ * may be the stale copy the eviction is about, so it is not kept in the cache.
+ * <p>
+ * Cached users are shared between threads: they must be treated as read-only, and loaded from the
+ * {@link UserRepository} when they are about to be modified.
+ */
+@Component
+public class UserCache {
+
+    public static final String USERS_BY_LOGIN_CACHE = "usersByLogin";
+
+    public static final String USERS_BY_EMAIL_CACHE = "usersByEmail";
+
+    /**
+     * Evictions remembered to check the users read from the database against, beyond which a user read while so many
+     * evictions ran is not cached.
+     */
+    private static final int RECENT_EVICTIONS = 1024;
+
+    private final Logger log = LoggerFactory.getLogger(UserCache.class);
+
+    private final UserRepository userRepository;
+
+    private final Cache<String, User> usersByLogin;
+
+    private final Cache<String, User> usersByEmail;
+
+    /**
+     * The cached users by id, so that a user is evicted by its id without scanning the caches. A user is in both caches
+     * and in this index, or in none of them.
+     */
+    private final ConcurrentMap<String, User> usersById = new ConcurrentHashMap<>();
+
+    /**
+     * Incremented by every eviction, which is then recorded in {@link #recentEvictions} at the index of its sequence.
+     */
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final AtomicReferenceArray<Eviction> recentEvictions = new AtomicReferenceArray<>(RECENT_EVICTIONS);
+
+    public UserCache(UserRepository userRepository, ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        ApplicationProperties.Cache.Users properties = applicationProperties.getCache().getUsers();
+        if (properties.isEnabled()) {
+            this.usersByLogin = createCache(properties);
+            this.usersByEmail = createCache(properties);
+            CaffeineCacheMetrics.monitor(meterRegistry, usersByLogin, USERS_BY_LOGIN_CACHE);
+            CaffeineCacheMetrics.monitor(meterRegistry, usersByEmail, USERS_BY_EMAIL_CACHE);
+        } else {
+            log.debug("User cache is disabled");
+            this.usersByLogin = null;
+            this.usersByEmail = null;
+        }
+    }
+
+    private Cache<String, User> createCache(ApplicationProperties.Cache.Users properties) {
+        return Caffeine
+            .newBuilder()
+            .maximumSize(properties.getMaxEntries())
+            .expireAfterWrite(Duration.ofSeconds(properties.getTimeToLiveSeconds()))
+            // Run on the calling thread, so that a user leaves the other cache and the index along with this one
+            .executor(Runnable::run)
+            .<String, User>removalListener((key, user, cause) -> {
+                if (user != null && cause != RemovalCause.REPLACED) {
+                    remove(user);
+                }
+            })
+            .recordStats()
+            .build();
+    }
+
+    public Optional<User> findOneByLogin(String login) {
+        if (usersByLogin == null || login == null) {
+            return userRepository.findOneByLogin(login);
+        }
+        User user = usersByLogin.getIfPresent(login);
+        if (user == null) {
+            long evictionsBeforeRead = evictions.get();
+            user = userRepository.findOneByLogin(login).orElse(null);
+            put(user, evictionsBeforeRead);
+        }
+        return Optional.ofNullable(user);
+    }
+
+    public Optional<User> findOneByEmailIgnoreCase(String email) {
+        if (usersByEmail == null || email == null) {
+            return userRepository.findOneByEmailIgnoreCase(email);
+        }
+        String key = email.toLowerCase(Locale.ENGLISH);
+        User user = usersByEmail.getIfPresent(key);
+        if (user == null) {
+            long evictionsBeforeRead = evictions.get();
+            user = userRepository.findOneByEmailIgnoreCase(email).orElse(null);
+            put(user, evictionsBeforeRead);
+        }
+        return Optional.ofNullable(user);
+    }
+
+    /**
+     * Returns the user cached with a login, without reaching the database, for the callers loading it otherwise, such as
+     * from the reactive driver.
+     *
+     * @param login the login.
+     * @return the cached user, if any.
+     */
+    public Optional<User> findCachedByLogin(String login) {
+        if (usersByLogin == null || login == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(usersByLogin.getIfPresent(login));
+    }
+
+    /**
+     * Returns the number of evictions so far, to be read by the callers loading a user otherwise right before they query
+     * the database, and passed back to {@link #cache(User, long)}.
+     *
+     * @return the number of evictions.
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * Caches a user loaded by the caller, for the next lookups by login and by email, unless it was evicted while it was
+     * read.
+     *
+     * @param user the user, as read from the database.
+     * @param evictionsBeforeRead the {@link #getEvictionCount()} read before querying the database.
+     */
+    public void cache(User user, long evictionsBeforeRead) {
+        if (usersByLogin != null) {
+            put(user, evictionsBeforeRead);
+        }
+    }
+
+    private void put(User user, long evictionsBeforeRead) {
+        if (user == null) {
+            return;
+        }
+        User previous = user.getId() != null ? usersById.put(user.getId(), user) : null;
+        if (previous != null && previous != user) {
+            // The login or email of the previous copy may have changed since
+            remove(previous);
+        }
+        usersByLogin.put(user.getLogin(), user);
+        if (user.getEmail() != null) {
+            usersByEmail.put(user.getEmail().toLowerCase(Locale.ENGLISH), user);
+        }
+        // Checked after the put: an eviction either removes the user, or was recorded before this check
+        if (evictedSince(user, evictionsBeforeRead)) {
+            invalidate(user);
+        }
+    }
+
+    private boolean evictedSince(User user, long evictionsBeforeRead) {
+        long evictionCount = evictions.get();
+        if (evictionCount - evictionsBeforeRead > RECENT_EVICTIONS) {
+            return true;
+        }
+        for (long sequence = evictionsBeforeRead + 1; sequence <= evictionCount; sequence++) {
+            Eviction eviction = recentEvictions.get((int) (sequence % RECENT_EVICTIONS));
+            // An eviction not recorded yet, or already overwritten, may be the one of this user
+            if (eviction == null || eviction.sequence != sequence || eviction.id == null || eviction.id.equals(user.getId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Records an eviction, before it removes the users.
+     *
+     * @param id the id of the evicted user, or {@code null} for all the users.
+     */
+    private void recordEviction(String id) {
+        long sequence = evictions.incrementAndGet();
+        recentEvictions.set((int) (sequence % RECENT_EVICTIONS), new Eviction(sequence, id));
+    }
+
+    private void invalidate(User user) {
+        if (user.getLogin() != null) {
+            usersByLogin.invalidate(user.getLogin());
+        }
+        if (user.getEmail() != null) {
+            usersByEmail.invalidate(user.getEmail().toLowerCase(Locale.ENGLISH));
+        }
+        if (user.getId() != null) {
+            usersById.remove(user.getId(), user);
+        }
+    }
+
+    /**
+     * Removes a copy of a user, unless the caches hold another one under its keys.
+     */
+    private void remove(User user) {
+        if (user.getId() != null) {
+            usersById.remove(user.getId(), user);
+        }
+        if (user.getLogin() != null) {
+            usersByLogin.asMap().remove(user.getLogin(), user);
+        }
+        if (user.getEmail() != null) {
+            usersByEmail.asMap().remove(user.getEmail().toLowerCase(Locale.ENGLISH), user);
+        }
+    }
+
+    /**
+     * Removes a user from the cache, using its current login and email.
+     *
+     * @param user the user to evict.
+     */
+    public void evict(User user) {
+        if (usersByLogin == null) {
+            return;
+        }
+        recordEviction(user.getId());
+        invalidate(user);
+        User cached = user.getId() != null ? usersById.get(user.getId()) : null;
+        if (cached != null) {
+            invalidate(cached);
+        }
+    }
+
+    /**
+     * Removes a user from the cache by its id, for changes made elsewhere where its previous login and email are not
+     * known.
+     *
+     * @param id the id of the user to evict.
+     */
+    public void evictById(String id) {
+        if (usersByLogin == null || id == null) {
+            return;
+        }
+        recordEviction(id);
+        User cached = usersById.get(id);
+        if (cached != null) {
+            invalidate(cached);
+        }
+    }
+
+    /**
+     * Returns the ids of the users currently cached.
+     *
+     * @return a snapshot of the cached ids.
+     */
+    public Set<String> getCachedIds() {
+        if (usersByLogin == null) {
+            return Collections.emptySet();
+        }
+        return new HashSet<>(usersById.keySet());
+    }
+
+    public boolean isEnabled() {
+        return usersByLogin != null;
+    }
+
+    /**
+     * Removes every user from the cache, for changes that cannot be tracked user by user.
+     */
+    public void evictAll() {
+        if (usersByLogin == null) {
+            return;
+        }
+        recordEviction(null);
+        usersByLogin.invalidateAll();
+        usersByEmail.invalidateAll();
+        usersById.clear();
+    }
+
+    /**
+     * An eviction, by its sequence number.
+     */
+    private static final class Eviction {
+
+        private final long sequence;
+
+        private final String id;
+
+        Eviction(long sequence, String id) {
+            this.sequence = sequence;
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.cpp.dataapi.service;
+
+import com.cpp.dataapi.config.ApplicationProperties;
+import com.cpp.dataapi.config.ApplicationProperties.Cache.Users.InvalidationMode;
+import com.cpp.dataapi.domain.Authority;
+import com.cpp.dataapi.domain.User;
+import com.cpp.dataapi.domain.UserTombstone;
+import com.cpp.dataapi.security.AuthorityRegistry;
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Evicts from the {@link UserCache} the users changed by other nodes.
+ * <p>
+ * On a replica set, a change stream on the {@code jhi_user} and {@code jhi_authority} collections evicts every changed
+ * or deleted user as soon as the change is committed. Without a replica set, the users are polled by their
+ * {@code last_modified_date}, and the deleted ones by the {@code deleted_date} of their {@link UserTombstone}, both
+ * indexed: users deleted without a tombstone stay cached until they expire.
+ * <p>
+ * Any change of the authorities reloads the {@link AuthorityRegistry} and clears the whole cache.
+ */
+@Component
+public class UserCacheInvalidator {
+
+    private static final String USER_COLLECTION = "jhi_user";
+
+    private static final String AUTHORITY_COLLECTION = "jhi_authority";
+
+    /**
+     * Error code of the {@code $changeStream} stage on a standalone server.
+     */
+    private static final int CHANGE_STREAM_NOT_SUPPORTED = 40573;
+
+    private final Logger log = LoggerFactory.getLogger(UserCacheInvalidator.class);
+
+    private final UserCache userCache;
+
+    private final AuthorityRegistry authorityRegistry;
+
+    private final MongoTemplate mongoTemplate;
+
+    private final ApplicationProperties.Cache.Users.Invalidation properties;
+
+    private ScheduledExecutorService executor;
+
+    private volatile boolean running;
+
+    private Instant lastModifiedDate;
+
+    private Map<String, Instant> recentChanges = Collections.emptyMap();
+
+    private Instant lastDeletedDate;
+
+    private Set<String> recentDeletions = Collections.emptySet();
+
+    private Set<String> authorityNames;
+
+    public UserCacheInvalidator(
+        UserCache userCache,
+        AuthorityRegistry authorityRegistry,
+        MongoTemplate mongoTemplate,
+        ApplicationProperties applicationProperties
+    ) {
+        this.userCache = userCache;
+        this.authorityRegistry = authorityRegistry;
+        this.mongoTemplate = mongoTemplate;
+        this.properties = applicationProperties.getCache().getUsers().getInvalidation();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!userCache.isEnabled() || properties.getMode() == InvalidationMode.NONE) {
+            log.debug("User cache invalidation is disabled");
+            return;
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("user-cache-invalidation-");
+        threadFactory.setDaemon(true);
+        executor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        running = true;
+        if (properties.getMode() == InvalidationMode.POLLING) {
+            startPolling();
+        } else {
+            executor.execute(this::watch);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void startPolling() {
+        log.info("Polling for user changes every {} ms", properties.getPollIntervalMillis());
+        executor.scheduleWithFixedDelay(
+            () -> {
+                try {
+                    poll();
+                } catch (RuntimeException e) {
+                    log.warn("Could not poll for user changes: {}", e.getMessage());
+                }
+            },
+            0,
+            properties.getPollIntervalMillis(),
+            TimeUnit.MILLISECONDS
+        );
+    }
+
+    private void watch() {
+        while (running) {
+            ChangeStreamIterable<Document> changeStream = mongoTemplate
+                .getDb()
+                .watch(Collections.singletonList(Aggregates.match(changeFilter())))
+                .maxAwaitTime(1, TimeUnit.SECONDS);
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = changeStream.cursor()) {
+                log.info("Watching user changes");
+                while (running) {
+                    ChangeStreamDocument<Document> change = cursor.tryNext();
+                    if (change != null) {
+                        onChange(change);
+                    }
+                }
+            } catch (MongoCommandException e) {
+                if (e.getErrorCode() == CHANGE_STREAM_NOT_SUPPORTED && properties.getMode() == InvalidationMode.AUTO) {
+                    log.info("Change streams need a replica set, falling back to polling");
+                    startPolling();
+                    return;
+                }
+                onStreamError(e);
+            } catch (MongoException e) {
+                onStreamError(e);
+            }
+        }
+    }
+
+    /**
+     * Matches the changes of the authorities, and the ones of the users but their inserts: a user is only cached once
+     * inserted.
+     */
+    static Bson changeFilter() {
+        return Filters.or(
+            Filters.eq("ns.coll", AUTHORITY_COLLECTION),
+            Filters.and(Filters.eq("ns.coll", USER_COLLECTION), Filters.ne("operationType", OperationType.INSERT.getValue()))
+        );
+    }
+
+    private void onStreamError(MongoException e) {
+        if (!running) {
+            return;
+        }
+        log.warn("User change stream interrupted, reopening it: {}", e.getMessage());
+        // Changes may have been missed in the meantime
+        userCache.evictAll();
+        try {
+            Thread.sleep(properties.getPollIntervalMillis());
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private void onChange(ChangeStreamDocument<Document> change) {
+        String collection = change.getNamespace() != null ? change.getNamespace().getCollectionName() : null;
+        BsonDocument documentKey = change.getDocumentKey();
+        onChange(collection, documentKey != null ? documentKey.get("_id") : null);
+    }
+
+    /**
+     * Evicts the user changed, or every user when the change is not tied to a single one.
+     *
+     * @param collection the collection changed, or {@code null} for a change of the whole database.
+     * @param id         the id of the changed document, if any.
+     */
+    void onChange(String collection, BsonValue id) {
+        if (collection == null || AUTHORITY_COLLECTION.equals(collection)) {
+            // Invalidations, drops and authority changes are not tied to a single user
+            onAuthoritiesChanged();
+            return;
+        }
+        if (id == null) {
+            userCache.evictAll();
+        } else if (id.isObjectId()) {
+            userCache.evictById(id.asObjectId().getValue().toHexString());
+        } else if (id.isString()) {
+            userCache.evictById(id.asString().getValue());
+        } else {
+            userCache.evictAll();
+        }
+    }
+
+    private void onAuthoritiesChanged() {
+        log.debug("Authorities changed, clearing the user cache");
+        authorityRegistry.loadAuthorities();
+        userCache.evictAll();
+    }
+
+    /**
+     * Evicts the users modified or deleted since the previous poll, and reloads the authorities when they changed.
+     */
+    void poll() {
+        if (lastModifiedDate == null) {
+            Query latest = new Query().with(Sort.by(Sort.Direction.DESC, "lastModifiedDate")).limit(1);
+            latest.fields().include("lastModifiedDate");
+            User user = mongoTemplate.findOne(latest, User.class);
+            lastModifiedDate = user != null && user.getLastModifiedDate() != null ? user.getLastModifiedDate() : Instant.EPOCH;
+        }
+        // Go back by the clock skew, so that writes stamped by a node running late are still seen, and skip the
+        // changes already seen by the previous poll
+        Query modifiedUsers = Query.query(
+            Criteria.where("lastModifiedDate").gt(lastModifiedDate.minusMillis(properties.getMaxClockSkewMillis()))
+        );
+        modifiedUsers.fields().include("id").include("lastModifiedDate");
+        Map<String, Instant> changes = new HashMap<>();
+        for (User user : mongoTemplate.find(modifiedUsers, User.class)) {
+            Instant modifiedDate = user.getLastModifiedDate();
+            if (!Objects.equals(modifiedDate, recentChanges.get(user.getId()))) {
+                userCache.evictById(user.getId());
+            }
+            changes.put(user.getId(), modifiedDate);
+            if (modifiedDate != null && modifiedDate.isAfter(lastModifiedDate)) {
+                lastModifiedDate = modifiedDate;
+            }
+        }
+        recentChanges = changes;
+
+        if (lastDeletedDate == null) {
+            Query latest = new Query().with(Sort.by(Sort.Direction.DESC, "deletedDate")).limit(1);
+            UserTombstone tombstone = mongoTemplate.findOne(latest, UserTombstone.class);
+            lastDeletedDate = tombstone != null && tombstone.getDeletedDate() != null ? tombstone.getDeletedDate() : Instant.EPOCH;
+        }
+        // Deletions are read the same way, from their tombstones
+        Query deletedUsers = Query.query(Criteria.where("deletedDate").gt(lastDeletedDate.minusMillis(properties.getMaxClockSkewMillis())));
+        deletedUsers.fields().include("id").include("deletedDate");
+        Set<String> deletions = new HashSet<>();
+        for (UserTombstone tombstone : mongoTemplate.find(deletedUsers, UserTombstone.class)) {
+            if (!recentDeletions.contains(tombstone.getId())) {
+                userCache.evictById(tombstone.getId());
+            }
+            deletions.add(tombstone.getId());
+            Instant deletedDate = tombstone.getDeletedDate();
+            if (deletedDate != null && deletedDate.isAfter(lastDeletedDate)) {
+                lastDeletedDate = deletedDate;
+            }
+        }
+        recentDeletions = deletions;
+
+        Set<String> names = mongoTemplate.findAll(Authority.class).stream().map(Authority::getName).collect(Collectors.toSet());
+        if (authorityNames != null && !authorityNames.equals(names)) {
+            onAuthoritiesChanged();
+        }
+        authorityNames = names;
+    }
+}
@@ -0,0 +1,134 @@
+package com.cpp.dataapi.service;
+
+import com.cpp.dataapi.config.ApplicationProperties;
+import com.cpp.dataapi.domain.User;
+import com.cpp.dataapi.domain.UserTombstone;
+import com.cpp.dataapi.repository.UserCursor;
+import com.cpp.dataapi.repository.UserRepository;
+import com.cpp.dataapi.repository.UserTombstoneRepository;
+import com.cpp.dataapi.service.dto.UserChangeDTO;
+import com.cpp.dataapi.service.dto.UserChangesDTO;
+import com.cpp.dataapi.service.mapper.UserMapper;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service for the change feed of the users: their creations, updates and deletions, in the order they were made.
+ * <p>
+ * Changes are read by scanning the users by their last modification date, and the {@link UserTombstone}s of the deleted
+ * users by their deletion date, both indexed. Their position in the feed is a date and a user id, which readers resume
+ * from with an opaque token. Changes are only read once older than a settle window, so that a write stamped earlier
+ * but committed after a read is not skipped by the readers.
+ * <p>
+ * A change stream would not need a settle window, but requires a replica set and a bounded oplog to resume from, while
+ * the scan works on any deployment.
+ */
+@Service
+public class UserChangeFeedService {
+
+    /**
+     * Order of the changes, the property of their positions.
+     */
+    public static final Sort.Order CHANGE_ORDER = Sort.Order.asc("lastModifiedDate");
+
+    /**
+     * Order of MongoDB on the ids, which are either strings or object ids: strings sort before object ids.
+     */
+    private static final Comparator<String> ID_ORDER = Comparator
+        .comparing((String id) -> ObjectId.isValid(id))
+        .thenComparing(Comparator.naturalOrder());
+
+    private static final Comparator<UserChangeDTO> POSITION_ORDER = Comparator
+        .comparing(UserChangeDTO::getDate, Comparator.nullsFirst(Comparator.naturalOrder()))
+        .thenComparing(UserChangeDTO::getId, ID_ORDER);
+
+    private final Logger log = LoggerFactory.getLogger(UserChangeFeedService.class);
+
+    private final UserRepository userRepository;
+
+    private final UserTombstoneRepository userTombstoneRepository;
+
+    private final UserMapper userMapper;
+
+    private final Duration settleWindow;
+
+    public UserChangeFeedService(
+        UserRepository userRepository,
+        UserTombstoneRepository userTombstoneRepository,
+        UserMapper userMapper,
+        ApplicationProperties applicationProperties
+    ) {
+        this.userRepository = userRepository;
+        this.userTombstoneRepository = userTombstoneRepository;
+        this.userMapper = userMapper;
+        this.settleWindow = applicationProperties.getUserChanges().getSettleWindow();
+    }
+
+    /**
+     * Returns the position before the changes made since a date.
+     *
+     * @param since the date, inclusive.
+     * @return the position.
+     */
+    public static UserCursor since(Instant since) {
+        return UserCursor.at(CHANGE_ORDER, since.truncatedTo(ChronoUnit.MILLIS), "");
+    }
+
+    /**
+     * Reads the changes following a position.
+     *
+     * @param after the position of the last change read, in the {@link #CHANGE_ORDER}, or {@code null} to read all the
+     *              users from the start.
+     * @param limit the maximum number of changes to return.
+     * @return the changes, with the token to resume from.
+     * @throws ResumeTokenExpiredException if the deletions following the position are no longer kept.
+     */
+    public UserChangesDTO getChanges(UserCursor after, int limit) {
+        Instant afterDate = after != null ? (Instant) after.getValue() : null;
+        if (afterDate != null && afterDate.isBefore(Instant.now().minus(UserTombstone.RETENTION))) {
+            throw new ResumeTokenExpiredException();
+        }
+        Instant until = Instant.now().minus(settleWindow);
+        log.debug("Reading user changes after {} until {}", after, until);
+
+        List<UserChangeDTO> changes = new ArrayList<>();
+        for (User user : userRepository.findAllModifiedAfter(after, until, limit + 1)) {
+            boolean created = afterDate == null || (user.getCreatedDate() != null && user.getCreatedDate().isAfter(afterDate));
+            changes.add(
+                new UserChangeDTO(
+                    created ? UserChangeDTO.Type.CREATED : UserChangeDTO.Type.UPDATED,
+                    user.getId(),
+                    user.getLogin(),
+                    user.getLastModifiedDate(),
+                    userMapper.userToAdminUserDTO(user)
+                )
+            );
+        }
+        for (UserTombstone tombstone : userTombstoneRepository.findAllDeletedAfter(after, until, limit + 1)) {
+            changes.add(
+                new UserChangeDTO(UserChangeDTO.Type.DELETED, tombstone.getId(), tombstone.getLogin(), tombstone.getDeletedDate(), null)
+            );
+        }
+        changes.sort(POSITION_ORDER);
+
+        boolean caughtUp = changes.size() <= limit;
+        if (!caughtUp) {
+            changes = new ArrayList<>(changes.subList(0, limit));
+        }
+        UserCursor position = after;
+        if (!changes.isEmpty()) {
+            UserChangeDTO last = changes.get(changes.size() - 1);
+            position = UserCursor.at(CHANGE_ORDER, last.getDate(), last.getId());
+        }
+        return new UserChangesDTO(changes, position != null ? position.encode() : null, caughtUp);
+    }
+}
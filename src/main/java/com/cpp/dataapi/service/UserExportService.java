@@ -0,0 +1,66 @@
+package com.cpp.dataapi.service;
+
+import com.cpp.dataapi.domain.User;
+import com.cpp.dataapi.repository.UserRepository;
+import com.cpp.dataapi.service.dto.AdminUserDTO;
+import com.cpp.dataapi.service.mapper.UserMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service for exporting the users as newline-delimited JSON (NDJSON), one {@link AdminUserDTO} per line.
+ * <p>
+ * Users are read from a database cursor and written one at a time, so that the memory used does not depend on the
+ * number of users, and a slow reader slows down the export instead of buffering it.
+ */
+@Service
+public class UserExportService {
+
+    private static final int LINE_SEPARATOR = '\n';
+
+    private final Logger log = LoggerFactory.getLogger(UserExportService.class);
+
+    private final UserRepository userRepository;
+
+    private final UserMapper userMapper;
+
+    private final ObjectWriter writer;
+
+    public UserExportService(UserRepository userRepository, UserMapper userMapper, ObjectMapper objectMapper) {
+        this.userRepository = userRepository;
+        this.userMapper = userMapper;
+        this.writer = objectMapper.writerFor(AdminUserDTO.class);
+    }
+
+    /**
+     * Writes the users to a stream, which is left open.
+     *
+     * @param modifiedSince the date from which the users were last modified, inclusive, or {@code null} for all the users.
+     * @param out           the stream to write to.
+     * @return the number of users written.
+     * @throws IOException if the stream could not be written, for instance when the client went away.
+     */
+    public long exportUsers(Instant modifiedSince, OutputStream out) throws IOException {
+        log.debug("Exporting users modified since {}", modifiedSince);
+        long count = 0;
+        try (Stream<User> users = userRepository.streamAll(modifiedSince)) {
+            Iterator<User> iterator = users.iterator();
+            while (iterator.hasNext()) {
+                out.write(writer.writeValueAsBytes(userMapper.userToAdminUserDTO(iterator.next())));
+                out.write(LINE_SEPARATOR);
+                count++;
+            }
+        }
+        out.flush();
+        log.debug("Exported {} users", count);
+        return count;
+    }
+}
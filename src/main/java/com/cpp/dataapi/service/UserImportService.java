@@ -0,0 +1,369 @@
+package com.cpp.dataapi.service;
+
+import com.cpp.dataapi.config.ApplicationProperties;
+import com.cpp.dataapi.config.AsyncConfiguration;
+import com.cpp.dataapi.domain.Authority;
+import com.cpp.dataapi.domain.User;
+import com.cpp.dataapi.repository.UserRepository;
+import com.cpp.dataapi.security.AuthorityRegistry;
+import com.cpp.dataapi.security.PasswordHashingSaturatedException;
+import com.cpp.dataapi.service.dto.AdminUserDTO;
+import com.cpp.dataapi.service.dto.UserImportReport;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import tech.jhipster.security.RandomUtil;
+
+/**
+ * Service for importing users in bulk, as {@link UserService#createUser(AdminUserDTO)} creates a single one.
+ * <p>
+ * Rows are read and validated one at a time, and the valid ones are written in batches: their passwords are hashed in
+ * parallel on the password hashing executor, and they are inserted with unordered bulk writes, the unique indexes
+ * rejecting the logins and emails already used. Each created user is sent a creation email.
+ */
+@Service
+public class UserImportService {
+
+    /**
+     * Separator of the authorities in a CSV cell.
+     */
+    public static final String CSV_AUTHORITY_SEPARATOR = ";";
+
+    private static final String AUTHORITIES_COLUMN = "authorities";
+
+    private final Logger log = LoggerFactory.getLogger(UserImportService.class);
+
+    private final UserRepository userRepository;
+
+    private final AuthorityRegistry authorityRegistry;
+
+    private final PasswordEncoder passwordEncoder;
+
+    private final Executor passwordHashingExecutor;
+
+    /**
+     * Passwords of the imports being hashed or queued on the pool, which are limited to its size so that the logins
+     * queue behind a few of them at most.
+     */
+    private final Semaphore hashingPermits;
+
+    private final MailService mailService;
+
+    private final Validator validator;
+
+    private final ObjectMapper objectMapper;
+
+    private final ObjectReader ndjsonReader;
+
+    private final ObjectReader csvReader;
+
+    private final int batchSize;
+
+    public UserImportService(
+        UserRepository userRepository,
+        AuthorityRegistry authorityRegistry,
+        PasswordEncoder passwordEncoder,
+        @Qualifier(AsyncConfiguration.PASSWORD_HASHING_EXECUTOR) Executor passwordHashingExecutor,
+        MailService mailService,
+        Validator validator,
+        ObjectMapper objectMapper,
+        ApplicationProperties applicationProperties
+    ) {
+        this.userRepository = userRepository;
+        this.authorityRegistry = authorityRegistry;
+        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.hashingPermits = new Semaphore(applicationProperties.getSecurity().getPasswordHashing().getPoolSize());
+        this.mailService = mailService;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.ndjsonReader = objectMapper.readerFor(AdminUserDTO.class);
+        this.csvReader = new CsvMapper().readerForMapOf(String.class).with(CsvSchema.emptySchema().withHeader());
+        this.batchSize = applicationProperties.getUserImport().getBatchSize();
+    }
+
+    /**
+     * Format of the imported users.
+     */
+    public enum Format {
+        /**
+         * One {@link AdminUserDTO} as JSON per line.
+         */
+        NDJSON,
+        /**
+         * A header naming the {@link AdminUserDTO} properties, then one user per record, with the authorities separated
+         * by {@link #CSV_AUTHORITY_SEPARATOR}.
+         */
+        CSV,
+    }
+
+    /**
+     * Imports users, created activated with a generated password to be reset, as by an admin.
+     * <p>
+     * A row which cannot be parsed or validated, or whose login or email is already used, fails on its own. Malformed
+     * input stops the import, the users read until then being created.
+     *
+     * @param in     the users to import, in UTF-8.
+     * @param format the format of the users.
+     * @return the outcome of each row.
+     * @throws IOException if the input could not be read.
+     */
+    public UserImportReport importUsers(InputStream in, Format format) throws IOException {
+        UserImport userImport = new UserImport(authorityRegistry.getStoredAuthorities());
+        Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+        try {
+            if (format == Format.CSV) {
+                readCsv(reader, userImport);
+            } else {
+                readNdjson(reader, userImport);
+            }
+        } catch (JsonProcessingException e) {
+            log.debug("Stopping user import on malformed input: {}", e.getMessage());
+            userImport.report.addFailed(userImport.lastRow + 1, null, "Malformed input, import stopped: " + e.getOriginalMessage());
+        }
+        userImport.flush();
+        log.debug("Imported {} users, {} failed", userImport.report.getCreated(), userImport.report.getFailed());
+        return userImport.report;
+    }
+
+    private void readNdjson(Reader reader, UserImport userImport) throws IOException {
+        BufferedReader lines = new BufferedReader(reader);
+        long row = 0;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            row++;
+            if (line.isBlank()) {
+                continue;
+            }
+            AdminUserDTO userDTO;
+            try {
+                userDTO = ndjsonReader.readValue(line);
+            } catch (JsonProcessingException e) {
+                userImport.addInvalid(row, null, "Invalid JSON: " + e.getOriginalMessage());
+                continue;
+            }
+            userImport.add(row, userDTO);
+        }
+    }
+
+    private void readCsv(Reader reader, UserImport userImport) throws IOException {
+        try (MappingIterator<Map<String, String>> records = csvReader.readValues(reader)) {
+            long row = 0;
+            while (records.hasNextValue()) {
+                Map<String, String> record = records.nextValue();
+                row++;
+                AdminUserDTO userDTO;
+                try {
+                    userDTO = toUserDTO(record);
+                } catch (IllegalArgumentException e) {
+                    userImport.addInvalid(row, record.get("login"), "Invalid values: " + e.getMessage());
+                    continue;
+                }
+                userImport.add(row, userDTO);
+            }
+        }
+    }
+
+    private AdminUserDTO toUserDTO(Map<String, String> record) {
+        Map<String, Object> values = new HashMap<>();
+        record.forEach((column, value) -> {
+            // Empty cells are missing values
+            if (value != null && !value.isBlank()) {
+                values.put(column, value.trim());
+            }
+        });
+        Object authorities = values.get(AUTHORITIES_COLUMN);
+        if (authorities != null) {
+            values.put(
+                AUTHORITIES_COLUMN,
+                Arrays.stream(((String) authorities).split(CSV_AUTHORITY_SEPARATOR)).map(String::trim).collect(Collectors.toSet())
+            );
+        }
+        return objectMapper.convertValue(values, AdminUserDTO.class);
+    }
+
+    /**
+     * State of an import: the valid rows waiting to be written, and the report.
+     */
+    private class UserImport {
+
+        private final Map<String, Authority> authorities;
+
+        private final UserImportReport report = new UserImportReport();
+
+        private final List<Long> rows = new ArrayList<>(batchSize);
+
+        private final List<User> users = new ArrayList<>(batchSize);
+
+        private long lastRow;
+
+        UserImport(Map<String, Authority> authorities) {
+            this.authorities = authorities;
+        }
+
+        void addInvalid(long row, String login, String message) {
+            lastRow = row;
+            report.addFailed(row, login, message);
+        }
+
+        void add(long row, AdminUserDTO userDTO) {
+            lastRow = row;
+            String error = validate(userDTO);
+            if (error != null) {
+                report.addFailed(row, userDTO.getLogin(), error);
+                return;
+            }
+            User user = UserService.newManagedUser(userDTO);
+            if (userDTO.getAuthorities() != null) {
+                user.setAuthorities(userDTO.getAuthorities().stream().map(authorities::get).collect(Collectors.toSet()));
+            }
+            rows.add(row);
+            users.add(user);
+            if (users.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        private String validate(AdminUserDTO userDTO) {
+            if (userDTO.getId() != null) {
+                return "A new user cannot already have an ID";
+            }
+            Set<ConstraintViolation<AdminUserDTO>> violations = validator.validate(userDTO);
+            if (!violations.isEmpty()) {
+                return violations
+                    .stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+            }
+            if (userDTO.getAuthorities() != null && !authorities.keySet().containsAll(userDTO.getAuthorities())) {
+                Set<String> unknown = new TreeSet<>(userDTO.getAuthorities());
+                unknown.removeAll(authorities.keySet());
+                return "Unknown authorities: " + String.join(", ", unknown);
+            }
+            return null;
+        }
+
+        void flush() {
+            if (users.isEmpty()) {
+                return;
+            }
+            List<CompletableFuture<String>> passwords = new ArrayList<>(users.size());
+            for (int i = 0; i < users.size(); i++) {
+                passwords.add(hashPassword());
+            }
+            // A row whose password could not be hashed fails alone, so that the report covers every row
+            List<Long> hashedRows = new ArrayList<>(users.size());
+            List<User> hashedUsers = new ArrayList<>(users.size());
+            for (int i = 0; i < users.size(); i++) {
+                User user = users.get(i);
+                String error = passwords
+                    .get(i)
+                    .handle((password, e) -> {
+                        if (e != null) {
+                            return hashingError(e);
+                        }
+                        user.setPassword(password);
+                        return null;
+                    })
+                    .join();
+                if (error != null) {
+                    report.addFailed(rows.get(i), user.getLogin(), error);
+                } else {
+                    hashedRows.add(rows.get(i));
+                    hashedUsers.add(user);
+                }
+            }
+            if (!hashedUsers.isEmpty()) {
+                insert(hashedRows, hashedUsers);
+            }
+            rows.clear();
+            users.clear();
+        }
+
+        private void insert(List<Long> batchRows, List<User> batchUsers) {
+            Map<Integer, String> errors = new HashMap<>();
+            try {
+                userRepository.insertUnordered(batchUsers);
+            } catch (BulkOperationException e) {
+                for (BulkWriteError error : e.getErrors()) {
+                    errors.put(error.getIndex(), insertError(error));
+                }
+            }
+            for (int i = 0; i < batchUsers.size(); i++) {
+                User user = batchUsers.get(i);
+                String error = errors.get(i);
+                if (error != null) {
+                    report.addFailed(batchRows.get(i), user.getLogin(), error);
+                    continue;
+                }
+                report.addCreated(batchRows.get(i), user.getLogin());
+                try {
+                    mailService.sendCreationEmail(user);
+                } catch (DataAccessException e) {
+                    log.warn("Could not queue the creation email of imported user {}", user.getLogin());
+                }
+            }
+        }
+
+        private CompletableFuture<String> hashPassword() {
+            hashingPermits.acquireUninterruptibly();
+            try {
+                return CompletableFuture
+                    .supplyAsync(() -> passwordEncoder.encode(RandomUtil.generatePassword()), passwordHashingExecutor)
+                    .whenComplete((password, e) -> hashingPermits.release());
+            } catch (RejectedExecutionException e) {
+                hashingPermits.release();
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        private String hashingError(Throwable e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof RejectedExecutionException || cause instanceof PasswordHashingSaturatedException) {
+                return "Too many passwords are being hashed, retry later";
+            }
+            log.warn("Could not hash the password of an imported user: {}", cause.getMessage());
+            return "Password could not be hashed";
+        }
+
+        private String insertError(BulkWriteError error) {
+            if (ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY) {
+                if (error.getMessage().contains(User.LOGIN_UNIQUE_INDEX)) {
+                    return "Login name already used";
+                }
+                if (error.getMessage().contains(User.EMAIL_UNIQUE_INDEX)) {
+                    return "Email is already in use";
+                }
+            }
+            return error.getMessage();
+        }
+    }
+}
@@ -1,23 +1,43 @@
 package com.cpp.dataapi.service;
 
+import com.cpp.dataapi.aop.lock.DistributedLock;
+import com.cpp.dataapi.config.ApplicationProperties;
+import com.cpp.dataapi.config.AsyncConfiguration;
 import com.cpp.dataapi.config.Constants;
 import com.cpp.dataapi.domain.Authority;
 import com.cpp.dataapi.domain.User;
-import com.cpp.dataapi.repository.AuthorityRepository;
+import com.cpp.dataapi.domain.UserTombstone;
+import com.cpp.dataapi.repository.UserCursor;
 import com.cpp.dataapi.repository.UserRepository;
+import com.cpp.dataapi.repository.UserTombstoneRepository;
 import com.cpp.dataapi.security.AuthoritiesConstants;
+import com.cpp.dataapi.security.AuthorityRegistry;
 import com.cpp.dataapi.security.SecurityUtils;
 import com.cpp.dataapi.service.dto.AdminUserDTO;
+import com.cpp.dataapi.service.dto.CursorPage;
 import com.cpp.dataapi.service.dto.UserDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import tech.jhipster.security.RandomUtil;
@@ -32,14 +52,60 @@ public class UserService {
 
     private final UserRepository userRepository;
 
+    private final UserTombstoneRepository userTombstoneRepository;
+
     private final PasswordEncoder passwordEncoder;
 
-    private final AuthorityRepository authorityRepository;
+    private final AuthorityRegistry authorityRegistry;
+
+    private final UserCache userCache;
+
+    private final JobLockService jobLockService;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final Counter notActivatedUsersRemovedCounter;
+
+    private final Timer notActivatedUsersCleanupTimer;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, AuthorityRepository authorityRepository) {
+    private final ThreadPoolTaskExecutor passwordHashingExecutor;
+
+    private final Counter passwordUpgradesSkippedCounter;
+
+    public UserService(
+        UserRepository userRepository,
+        UserTombstoneRepository userTombstoneRepository,
+        PasswordEncoder passwordEncoder,
+        AuthorityRegistry authorityRegistry,
+        UserCache userCache,
+        JobLockService jobLockService,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry,
+        @Qualifier(AsyncConfiguration.PASSWORD_HASHING_EXECUTOR) ThreadPoolTaskExecutor passwordHashingExecutor
+    ) {
         this.userRepository = userRepository;
+        this.userTombstoneRepository = userTombstoneRepository;
         this.passwordEncoder = passwordEncoder;
-        this.authorityRepository = authorityRepository;
+        this.authorityRegistry = authorityRegistry;
+        this.userCache = userCache;
+        this.jobLockService = jobLockService;
+        this.applicationProperties = applicationProperties;
+        this.notActivatedUsersRemovedCounter =
+            Counter
+                .builder("users.not-activated.removed")
+                .description("Indicates not activated users removed by the nightly cleanup.")
+                .register(meterRegistry);
+        this.notActivatedUsersCleanupTimer =
+            Timer
+                .builder("users.not-activated.cleanup")
+                .description("Indicates the duration of the nightly cleanup of not activated users.")
+                .register(meterRegistry);
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.passwordUpgradesSkippedCounter =
+            Counter
+                .builder("users.password-upgrade.skipped")
+                .description("Indicates password upgrades skipped on login because the password hashing pool was busy.")
+                .register(meterRegistry);
     }
 
     public Optional<User> activateRegistration(String key) {
@@ -51,6 +117,7 @@ public class UserService {
                 user.setActivated(true);
                 user.setActivationKey(null);
                 userRepository.save(user);
+                userCache.evict(user);
                 log.debug("Activated user: {}", user);
                 return user;
             });
@@ -66,6 +133,7 @@ public class UserService {
                 user.setResetKey(null);
                 user.setResetDate(null);
                 userRepository.save(user);
+                userCache.evict(user);
                 return user;
             });
     }
@@ -78,27 +146,24 @@ public class UserService {
                 user.setResetKey(RandomUtil.generateResetKey());
                 user.setResetDate(Instant.now());
                 userRepository.save(user);
+                userCache.evict(user);
                 return user;
             });
     }
 
+    /**
+     * Registers a new user, which needs to be activated.
+     * <p>
+     * The login and email are checked by the unique indexes of the collection, in the same round-trip as the insert.
+     * They can be reclaimed from existing users who never activated their account.
+     *
+     * @param userDTO  the user to register.
+     * @param password the password of the user.
+     * @return the registered user.
+     * @throws UsernameAlreadyUsedException if the login belongs to an activated user.
+     * @throws EmailAlreadyUsedException    if the email belongs to an activated user.
+     */
     public User registerUser(AdminUserDTO userDTO, String password) {
-        userRepository
-            .findOneByLogin(userDTO.getLogin().toLowerCase())
-            .ifPresent(existingUser -> {
-                boolean removed = removeNonActivatedUser(existingUser);
-                if (!removed) {
-                    throw new UsernameAlreadyUsedException();
-                }
-            });
-        userRepository
-            .findOneByEmailIgnoreCase(userDTO.getEmail())
-            .ifPresent(existingUser -> {
-                boolean removed = removeNonActivatedUser(existingUser);
-                if (!removed) {
-                    throw new EmailAlreadyUsedException();
-                }
-            });
         User newUser = new User();
         String encryptedPassword = passwordEncoder.encode(password);
         newUser.setLogin(userDTO.getLogin().toLowerCase());
@@ -115,23 +180,77 @@ public class UserService {
         newUser.setActivated(false);
         // new user gets registration key
         newUser.setActivationKey(RandomUtil.generateActivationKey());
+        // authorities are embedded by name, and the user one is created by the initial migration
+        Authority userAuthority = authorityRegistry.getStoredAuthorities().get(AuthoritiesConstants.USER);
+        if (userAuthority == null) {
+            userAuthority = new Authority();
+            userAuthority.setName(AuthoritiesConstants.USER);
+        }
         Set<Authority> authorities = new HashSet<>();
-        authorityRepository.findById(AuthoritiesConstants.USER).ifPresent(authorities::add);
+        authorities.add(userAuthority);
         newUser.setAuthorities(authorities);
-        userRepository.save(newUser);
+        try {
+            userRepository.insert(newUser);
+        } catch (DuplicateKeyException e) {
+            removeNonActivatedUsers(newUser.getLogin(), newUser.getEmail());
+            insertUser(newUser);
+        }
         log.debug("Created Information for User: {}", newUser);
         return newUser;
     }
 
-    private boolean removeNonActivatedUser(User existingUser) {
-        if (existingUser.isActivated()) {
-            return false;
+    private void removeNonActivatedUsers(String login, String email) {
+        List<User> existingUsers = userRepository.findAllByLoginOrEmail(login, email);
+        for (User existingUser : existingUsers) {
+            if (existingUser.isActivated() && existingUser.getLogin().equals(login)) {
+                throw new UsernameAlreadyUsedException();
+            }
+        }
+        for (User existingUser : existingUsers) {
+            if (existingUser.isActivated()) {
+                throw new EmailAlreadyUsedException();
+            }
         }
-        userRepository.delete(existingUser);
-        return true;
+        for (User existingUser : existingUsers) {
+            userRepository.delete(existingUser);
+            userCache.evict(existingUser);
+        }
+        addTombstones(existingUsers);
     }
 
-    public User createUser(AdminUserDTO userDTO) {
+    /**
+     * Records the deletion of users, for the change feed.
+     */
+    private void addTombstones(List<User> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        userTombstoneRepository.insert(users.stream().map(user -> new UserTombstone(user, now)).collect(Collectors.toList()));
+    }
+
+    /**
+     * Inserts a new user, relying on the unique indexes to reject a login or email already used.
+     */
+    private User insertUser(User user) {
+        try {
+            return userRepository.insert(user);
+        } catch (DuplicateKeyException e) {
+            String message = e.getMessage();
+            if (message != null && message.contains(User.LOGIN_UNIQUE_INDEX)) {
+                throw new UsernameAlreadyUsedException();
+            }
+            if (message != null && message.contains(User.EMAIL_UNIQUE_INDEX)) {
+                throw new EmailAlreadyUsedException();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Builds a new activated user created by an admin, without its password and authorities.
+     */
+    static User newManagedUser(AdminUserDTO userDTO) {
         User user = new User();
         user.setLogin(userDTO.getLogin().toLowerCase());
         user.setFirstName(userDTO.getFirstName());
@@ -145,22 +264,28 @@ public class UserService {
         } else {
             user.setLangKey(userDTO.getLangKey());
         }
-        String encryptedPassword = passwordEncoder.encode(RandomUtil.generatePassword());
-        user.setPassword(encryptedPassword);
         user.setResetKey(RandomUtil.generateResetKey());
         user.setResetDate(Instant.now());
         user.setActivated(true);
+        return user;
+    }
+
+    /**
+     * Creates a new activated user, with a generated password to be reset.
+     *
+     * @param userDTO the user to create.
+     * @return the created user.
+     * @throws UsernameAlreadyUsedException if the login is already used.
+     * @throws EmailAlreadyUsedException    if the email is already used.
+     */
+    public User createUser(AdminUserDTO userDTO) {
+        User user = newManagedUser(userDTO);
+        String encryptedPassword = passwordEncoder.encode(RandomUtil.generatePassword());
+        user.setPassword(encryptedPassword);
         if (userDTO.getAuthorities() != null) {
-            Set<Authority> authorities = userDTO
-                .getAuthorities()
-                .stream()
-                .map(authorityRepository::findById)
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(Collectors.toSet());
-            user.setAuthorities(authorities);
+            user.setAuthorities(authorityRegistry.findStoredAuthorities(userDTO.getAuthorities()));
         }
-        userRepository.save(user);
+        insertUser(user);
         log.debug("Created Information for User: {}", user);
         return user;
     }
@@ -177,6 +302,8 @@ public class UserService {
             .filter(Optional::isPresent)
             .map(Optional::get)
             .map(user -> {
+                // evict the current login and email, before they are changed
+                userCache.evict(user);
                 user.setLogin(userDTO.getLogin().toLowerCase());
                 user.setFirstName(userDTO.getFirstName());
                 user.setLastName(userDTO.getLastName());
@@ -188,14 +315,9 @@ public class UserService {
                 user.setLangKey(userDTO.getLangKey());
                 Set<Authority> managedAuthorities = user.getAuthorities();
                 managedAuthorities.clear();
-                userDTO
-                    .getAuthorities()
-                    .stream()
-                    .map(authorityRepository::findById)
-                    .filter(Optional::isPresent)
-                    .map(Optional::get)
-                    .forEach(managedAuthorities::add);
+                managedAuthorities.addAll(authorityRegistry.findStoredAuthorities(userDTO.getAuthorities()));
                 userRepository.save(user);
+                userCache.evict(user);
                 log.debug("Changed Information for User: {}", user);
                 return user;
             })
@@ -207,6 +329,8 @@ public class UserService {
             .findOneByLogin(login)
             .ifPresent(user -> {
                 userRepository.delete(user);
+                userCache.evict(user);
+                addTombstones(Collections.singletonList(user));
                 log.debug("Deleted User: {}", user);
             });
     }
@@ -225,6 +349,7 @@ public class UserService {
             .getCurrentUserLogin()
             .flatMap(userRepository::findOneByLogin)
             .ifPresent(user -> {
+                userCache.evict(user);
                 user.setFirstName(firstName);
                 user.setLastName(lastName);
                 if (email != null) {
@@ -233,6 +358,7 @@ public class UserService {
                 user.setLangKey(langKey);
                 user.setImageUrl(imageUrl);
                 userRepository.save(user);
+                userCache.evict(user);
                 log.debug("Changed Information for User: {}", user);
             });
     }
@@ -249,46 +375,191 @@ public class UserService {
                 String encryptedPassword = passwordEncoder.encode(newPassword);
                 user.setPassword(encryptedPassword);
                 userRepository.save(user);
+                userCache.evict(user);
                 log.debug("Changed password for User: {}", user);
             });
     }
 
+    /**
+     * Re-encodes the password of a user whose hash was made with outdated parameters, unless it was changed meanwhile.
+     * <p>
+     * This runs after a successful login, which is the only time the clear text password is known, on the password
+     * hashing executor. The upgrade is only handed to an idle thread of the executor, and skipped until a next login
+     * otherwise: the login must not wait for a second hash when the pool is busy, and the clear text password must not
+     * wait in its queue.
+     *
+     * @param login             the login of the user.
+     * @param encodedPassword   the outdated password hash.
+     * @param clearTextPassword the password the user logged in with.
+     */
+    public void upgradePasswordEncoding(String login, String encodedPassword, String clearTextPassword) {
+        ThreadPoolExecutor pool = passwordHashingExecutor.getThreadPoolExecutor();
+        if (!pool.getQueue().isEmpty() || pool.getActiveCount() >= pool.getMaximumPoolSize()) {
+            skipPasswordUpgrade(login);
+            return;
+        }
+        try {
+            passwordHashingExecutor.execute(() -> replacePasswordEncoding(login, encodedPassword, clearTextPassword));
+        } catch (TaskRejectedException e) {
+            skipPasswordUpgrade(login);
+        }
+    }
+
+    private void skipPasswordUpgrade(String login) {
+        passwordUpgradesSkippedCounter.increment();
+        log.debug("Postponing the password upgrade of User {} to a next login, as passwords are being hashed", login);
+    }
+
+    private void replacePasswordEncoding(String login, String encodedPassword, String clearTextPassword) {
+        Optional<User> found = userRepository.findOneByLogin(login).filter(user -> encodedPassword.equals(user.getPassword()));
+        if (found.isEmpty()) {
+            return;
+        }
+        User user = found.get();
+        // Hashed on this thread of the pool
+        String upgradedPassword = passwordEncoder.encode(clearTextPassword);
+        if (userRepository.replacePassword(user.getId(), encodedPassword, upgradedPassword)) {
+            userCache.evict(user);
+            log.debug("Upgraded password encoding for User: {}", login);
+        }
+    }
+
     public Page<AdminUserDTO> getAllManagedUsers(Pageable pageable) {
-        return userRepository.findAll(pageable).map(AdminUserDTO::new);
+        return userRepository.findAllManagedUsers(pageable).map(AdminUserDTO::new);
     }
 
     public Page<UserDTO> getAllPublicUsers(Pageable pageable) {
-        return userRepository.findAllByIdNotNullAndActivatedIsTrue(pageable).map(UserDTO::new);
+        return userRepository.findAllPublicUsers(pageable).map(UserDTO::new);
+    }
+
+    /**
+     * Gets a page of all the users, in keyset pagination.
+     *
+     * @param after     the cursor returned with the previous page, or {@code null} for the first page.
+     * @param pageable  the size and sort of the first page; the page number is ignored.
+     * @param withTotal whether to estimate the total number of users.
+     * @return the page of users.
+     * @throws IllegalArgumentException if the sort is on more than one property.
+     */
+    public CursorPage<AdminUserDTO> getAllManagedUsers(UserCursor after, Pageable pageable, boolean withTotal) {
+        return getUsersAfter(after, pageable, false, AdminUserDTO::new, withTotal ? userRepository::estimateCount : null);
+    }
+
+    /**
+     * Gets a page of the activated users, in keyset pagination.
+     *
+     * @param after     the cursor returned with the previous page, or {@code null} for the first page.
+     * @param pageable  the size and sort of the first page; the page number is ignored.
+     * @param withTotal whether to count the activated users.
+     * @return the page of users.
+     * @throws IllegalArgumentException if the sort is on more than one property.
+     */
+    public CursorPage<UserDTO> getAllPublicUsers(UserCursor after, Pageable pageable, boolean withTotal) {
+        return getUsersAfter(after, pageable, true, UserDTO::new, withTotal ? userRepository::countByActivatedIsTrue : null);
+    }
+
+    private <T> CursorPage<T> getUsersAfter(
+        UserCursor after,
+        Pageable pageable,
+        boolean publicOnly,
+        Function<User, T> mapper,
+        LongSupplier totalCount
+    ) {
+        // The cursor carries the order of the first page
+        Sort.Order order = after != null ? after.getOrder() : cursorOrder(pageable.getSort());
+        int size = pageable.getPageSize();
+        // Read one more user to know whether there is a next page
+        List<User> users = userRepository.findAllAfter(order, after, size + 1, publicOnly);
+        String nextCursor = null;
+        if (users.size() > size) {
+            users = users.subList(0, size);
+            nextCursor = UserCursor.after(order, users.get(size - 1)).encode();
+        }
+        return new CursorPage<>(
+            users.stream().map(mapper).collect(Collectors.toList()),
+            nextCursor,
+            totalCount != null ? totalCount.getAsLong() : null
+        );
+    }
+
+    static Sort.Order cursorOrder(Sort sort) {
+        List<Sort.Order> orders = sort.filter(order -> !"id".equals(order.getProperty())).toList();
+        if (orders.size() > 1) {
+            throw new IllegalArgumentException("Cursor pagination sorts on a single property");
+        }
+        if (orders.size() == 1) {
+            return orders.get(0);
+        }
+        Sort.Order idOrder = sort.getOrderFor("id");
+        return idOrder != null ? idOrder : Sort.Order.asc("id");
     }
 
     public Optional<User> getUserWithAuthoritiesByLogin(String login) {
-        return userRepository.findOneByLogin(login);
+        return userCache.findOneByLogin(login);
     }
 
     public Optional<User> getUserWithAuthorities() {
-        return SecurityUtils.getCurrentUserLogin().flatMap(userRepository::findOneByLogin);
+        return SecurityUtils.getCurrentUserLogin().flatMap(userCache::findOneByLogin);
     }
 
     /**
      * Not activated users should be automatically deleted after 3 days.
      * <p>
-     * This is scheduled to get fired everyday, at 01:00 (am).
+     * This is scheduled to get fired everyday, at 01:00 (am), and runs on a single node of the cluster. Users are read and
+     * deleted in batches, so that neither the heap nor the database get a whole spam-registration wave at once. It runs on
+     * the cleanup executor, holding none of the scheduler threads.
      */
     @Scheduled(cron = "0 0 1 * * ?")
+    @Async(AsyncConfiguration.CLEANUP_EXECUTOR)
+    @DistributedLock(
+        name = "removeNotActivatedUsers",
+        lease = "${application.jobs.remove-not-activated-users.lock-lease:1h}",
+        minLease = "${application.jobs.remove-not-activated-users.min-lock-lease:5m}"
+    )
     public void removeNotActivatedUsers() {
-        userRepository
-            .findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(Instant.now().minus(3, ChronoUnit.DAYS))
-            .forEach(user -> {
-                log.debug("Deleting not activated user {}", user.getLogin());
-                userRepository.delete(user);
-            });
+        notActivatedUsersCleanupTimer.record(
+            () -> removeNotActivatedUsers(applicationProperties.getJobs().getRemoveNotActivatedUsers().getBatchSize())
+        );
+    }
+
+    private void removeNotActivatedUsers(int batchSize) {
+        Instant createdBefore = Instant.now().minus(3, ChronoUnit.DAYS);
+        Pageable batch = PageRequest.of(0, batchSize);
+        long removed = 0;
+        List<User> users;
+        Optional<JobLease> jobLease = jobLockService.currentLease();
+        do {
+            if (jobLease.isPresent() && !jobLockService.isHeld(jobLease.get())) {
+                // Another node took over after the lease expired
+                break;
+            }
+            // Removed users leave the query, so the first page is always the next batch
+            users = userRepository.findNotActivatedUsersCreatedBefore(createdBefore, batch);
+            if (users.isEmpty()) {
+                break;
+            }
+            List<String> ids = users.stream().map(User::getId).collect(Collectors.toList());
+            long deleted = userRepository.deleteByIdInAndActivatedIsFalse(ids);
+            users.forEach(userCache::evict);
+            if (deleted < users.size()) {
+                // Users activated in the meantime were kept
+                Set<String> keptIds = new HashSet<>();
+                userRepository.findAllById(ids).forEach(user -> keptIds.add(user.getId()));
+                addTombstones(users.stream().filter(user -> !keptIds.contains(user.getId())).collect(Collectors.toList()));
+            } else {
+                addTombstones(users);
+            }
+            notActivatedUsersRemovedCounter.increment(deleted);
+            removed += deleted;
+        } while (users.size() == batchSize);
+        log.debug("Deleted {} not activated users", removed);
     }
 
     /**
-     * Gets a list of all the authorities.
-     * @return a list of all the authorities.
+     * Gets a list of all the authorities, from the in-memory catalog.
+     * @return a list of all the authorities, sorted by name.
      */
     public List<String> getAuthorities() {
-        return authorityRepository.findAll().stream().map(Authority::getName).collect(Collectors.toList());
+        return new ArrayList<>(authorityRegistry.getStoredAuthorities().keySet());
     }
 }
@@ -0,0 +1,41 @@
+package com.cpp.dataapi.service.dto;
+
+import java.util.List;
+
+/**
+ * A page of a keyset pagination, with the cursor of the next page.
+ *
+ * @param <T> the type of the elements.
+ */
+public class CursorPage<T> {
+
+    private final List<T> content;
+
+    private final String nextCursor;
+
+    private final Long totalCount;
+
+    public CursorPage(List<T> content, String nextCursor, Long totalCount) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.totalCount = totalCount;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    /**
+     * @return the cursor of the next page, or {@code null} if this page is the last one.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * @return the total number of elements, possibly approximate, or {@code null} if it was not requested.
+     */
+    public Long getTotalCount() {
+        return totalCount;
+    }
+}
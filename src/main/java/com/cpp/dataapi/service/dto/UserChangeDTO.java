@@ -0,0 +1,64 @@
+package com.cpp.dataapi.service.dto;
+
+import java.time.Instant;
+
+/**
+ * A change of a user, read from the user change feed.
+ */
+public class UserChangeDTO {
+
+    private final Type type;
+
+    private final String id;
+
+    private final String login;
+
+    private final Instant date;
+
+    private final AdminUserDTO user;
+
+    public UserChangeDTO(Type type, String id, String login, Instant date, AdminUserDTO user) {
+        this.type = type;
+        this.id = id;
+        this.login = login;
+        this.date = date;
+        this.user = user;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getLogin() {
+        return login;
+    }
+
+    /**
+     * @return when the user was last modified or deleted, or {@code null} if it was never modified since its creation
+     * by a migration.
+     */
+    public Instant getDate() {
+        return date;
+    }
+
+    /**
+     * @return the current state of the user, or {@code null} if it was deleted.
+     */
+    public AdminUserDTO getUser() {
+        return user;
+    }
+
+    /**
+     * Type of a change. Creations are told apart from updates by the creation date of the user, so both should be
+     * applied as upserts.
+     */
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+    }
+}
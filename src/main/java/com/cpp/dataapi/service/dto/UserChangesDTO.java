@@ -0,0 +1,40 @@
+package com.cpp.dataapi.service.dto;
+
+import java.util.List;
+
+/**
+ * A page of the user change feed, with the token to resume reading it from.
+ */
+public class UserChangesDTO {
+
+    private final List<UserChangeDTO> changes;
+
+    private final String resumeToken;
+
+    private final boolean caughtUp;
+
+    public UserChangesDTO(List<UserChangeDTO> changes, String resumeToken, boolean caughtUp) {
+        this.changes = changes;
+        this.resumeToken = resumeToken;
+        this.caughtUp = caughtUp;
+    }
+
+    public List<UserChangeDTO> getChanges() {
+        return changes;
+    }
+
+    /**
+     * @return the token of the last change read, to get the following ones; {@code null} if no change was ever read.
+     */
+    public String getResumeToken() {
+        return resumeToken;
+    }
+
+    /**
+     * @return whether all the changes were read, more having to be waited for; otherwise the following ones can be
+     * read right away.
+     */
+    public boolean isCaughtUp() {
+        return caughtUp;
+    }
+}
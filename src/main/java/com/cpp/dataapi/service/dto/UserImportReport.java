@@ -0,0 +1,91 @@
+package com.cpp.dataapi.service.dto;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The result of a bulk import of users, with the outcome of each row.
+ */
+public class UserImportReport {
+
+    private long created;
+
+    private long failed;
+
+    private final List<Row> rows = new ArrayList<>();
+
+    public void addCreated(long row, String login) {
+        created++;
+        rows.add(new Row(row, login, Status.CREATED, null));
+    }
+
+    public void addFailed(long row, String login, String message) {
+        failed++;
+        rows.add(new Row(row, login, Status.FAILED, message));
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * @return the outcome of each row, in the order of the input.
+     */
+    public List<Row> getRows() {
+        rows.sort(Comparator.comparingLong(Row::getRow));
+        return rows;
+    }
+
+    public enum Status {
+        CREATED,
+        FAILED,
+    }
+
+    /**
+     * The outcome of a row of the import.
+     */
+    public static class Row {
+
+        private final long row;
+
+        private final String login;
+
+        private final Status status;
+
+        private final String message;
+
+        Row(long row, String login, Status status, String message) {
+            this.row = row;
+            this.login = login;
+            this.status = status;
+            this.message = message;
+        }
+
+        /**
+         * @return the number of the row, starting at 1: its line in NDJSON, its record after the header in CSV.
+         */
+        public long getRow() {
+            return row;
+        }
+
+        public String getLogin() {
+            return login;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * @return why the row failed, or {@code null} if the user was created.
+         */
+        public String getMessage() {
+            return message;
+        }
+    }
+}
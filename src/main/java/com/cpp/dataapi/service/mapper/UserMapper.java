@@ -2,6 +2,7 @@ package com.cpp.dataapi.service.mapper;
 
 import com.cpp.dataapi.domain.Authority;
 import com.cpp.dataapi.domain.User;
+import com.cpp.dataapi.security.AuthorityRegistry;
 import com.cpp.dataapi.service.dto.AdminUserDTO;
 import com.cpp.dataapi.service.dto.UserDTO;
 import java.util.*;
@@ -20,6 +21,12 @@ import org.springframework.stereotype.Service;
 @Service
 public class UserMapper {
 
+    private final AuthorityRegistry authorityRegistry;
+
+    public UserMapper(AuthorityRegistry authorityRegistry) {
+        this.authorityRegistry = authorityRegistry;
+    }
+
     public List<UserDTO> usersToUserDTOs(List<User> users) {
         return users.stream().filter(Objects::nonNull).map(this::userToUserDTO).collect(Collectors.toList());
     }
@@ -63,12 +70,17 @@ public class UserMapper {
         Set<Authority> authorities = new HashSet<>();
 
         if (authoritiesAsString != null) {
+            Map<String, Authority> storedAuthorities = authorityRegistry.getStoredAuthorities();
             authorities =
                 authoritiesAsString
                     .stream()
                     .map(string -> {
-                        Authority auth = new Authority();
-                        auth.setName(string);
+                        // Share the catalog instance when the authority is known
+                        Authority auth = storedAuthorities.get(string);
+                        if (auth == null) {
+                            auth = new Authority();
+                            auth.setName(string);
+                        }
                         return auth;
                     })
                     .collect(Collectors.toSet());
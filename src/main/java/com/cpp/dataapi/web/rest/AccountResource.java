@@ -1,9 +1,9 @@
 package com.cpp.dataapi.web.rest;
 
 import com.cpp.dataapi.domain.User;
-import com.cpp.dataapi.repository.UserRepository;
 import com.cpp.dataapi.security.SecurityUtils;
 import com.cpp.dataapi.service.MailService;
+import com.cpp.dataapi.service.UserCache;
 import com.cpp.dataapi.service.UserService;
 import com.cpp.dataapi.service.dto.AdminUserDTO;
 import com.cpp.dataapi.service.dto.PasswordChangeDTO;
@@ -35,14 +35,14 @@ public class AccountResource {
 
     private final Logger log = LoggerFactory.getLogger(AccountResource.class);
 
-    private final UserRepository userRepository;
+    private final UserCache userCache;
 
     private final UserService userService;
 
     private final MailService mailService;
 
-    public AccountResource(UserRepository userRepository, UserService userService, MailService mailService) {
-        this.userRepository = userRepository;
+    public AccountResource(UserCache userCache, UserService userService, MailService mailService) {
+        this.userCache = userCache;
         this.userService = userService;
         this.mailService = mailService;
     }
@@ -117,11 +117,11 @@ public class AccountResource {
         String userLogin = SecurityUtils
             .getCurrentUserLogin()
             .orElseThrow(() -> new AccountResourceException("Current user login not found"));
-        Optional<User> existingUser = userRepository.findOneByEmailIgnoreCase(userDTO.getEmail());
+        Optional<User> existingUser = userCache.findOneByEmailIgnoreCase(userDTO.getEmail());
         if (existingUser.isPresent() && (!existingUser.get().getLogin().equalsIgnoreCase(userLogin))) {
             throw new EmailAlreadyUsedException();
         }
-        Optional<User> user = userRepository.findOneByLogin(userLogin);
+        Optional<User> user = userCache.findOneByLogin(userLogin);
         if (!user.isPresent()) {
             throw new AccountResourceException("User could not be found");
         }
@@ -0,0 +1,85 @@
+package com.cpp.dataapi.web.rest;
+
+import com.cpp.dataapi.repository.UserCursor;
+import com.cpp.dataapi.service.dto.CursorPage;
+import com.cpp.dataapi.web.rest.errors.BadRequestAlertException;
+import java.util.Collection;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Utility class for the keyset (cursor) pagination of the user listings.
+ * <p>
+ * A listing switches to cursor pagination when it gets a {@code cursor} parameter, empty for the first page. Each page
+ * links to the next one with a {@code Link} header, and only reports a total count when asked to.
+ */
+final class CursorPaginationUtil {
+
+    static final String CURSOR_PARAMETER = "cursor";
+
+    private static final String HEADER_X_TOTAL_COUNT = "X-Total-Count";
+
+    private static final String ENTITY_NAME = "userManagement";
+
+    private CursorPaginationUtil() {}
+
+    /**
+     * Checks that a cursor pagination sorts on a single allowed property.
+     *
+     * @param pageable          the pagination of the first page.
+     * @param allowedProperties the properties allowed in the sort.
+     * @return {@code true} if the sort is allowed.
+     */
+    static boolean isSortAllowed(Pageable pageable, Collection<String> allowedProperties) {
+        return (
+            pageable.getSort().stream().map(Sort.Order::getProperty).allMatch(allowedProperties::contains) &&
+            pageable.getSort().filter(order -> !"id".equals(order.getProperty())).stream().count() <= 1
+        );
+    }
+
+    /**
+     * Decodes the cursor of a page.
+     *
+     * @param cursor            the cursor parameter, empty for the first page.
+     * @param allowedProperties the properties allowed in the sort.
+     * @return the cursor, or {@code null} for the first page.
+     * @throws BadRequestAlertException {@code 400 (Bad Request)} if the cursor is not valid.
+     */
+    static UserCursor decodeCursor(String cursor, Collection<String> allowedProperties) {
+        if (cursor.isEmpty()) {
+            return null;
+        }
+        UserCursor after;
+        try {
+            after = UserCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid cursor", ENTITY_NAME, "invalidcursor");
+        }
+        // The cursor comes from the client: it must not sort on a property hidden from it
+        if (!allowedProperties.contains(after.getOrder().getProperty())) {
+            throw new BadRequestAlertException("Invalid cursor", ENTITY_NAME, "invalidcursor");
+        }
+        return after;
+    }
+
+    /**
+     * Generates the pagination HTTP headers of a page: the link to the next page, and the total count if requested.
+     *
+     * @param uriBuilder the URI of the current page.
+     * @param page       the page.
+     * @return the HTTP headers.
+     */
+    static HttpHeaders generateCursorPaginationHttpHeaders(UriComponentsBuilder uriBuilder, CursorPage<?> page) {
+        HttpHeaders headers = new HttpHeaders();
+        if (page.getTotalCount() != null) {
+            headers.add(HEADER_X_TOTAL_COUNT, Long.toString(page.getTotalCount()));
+        }
+        if (page.getNextCursor() != null) {
+            String next = uriBuilder.replaceQueryParam(CURSOR_PARAMETER, page.getNextCursor()).replaceQueryParam("page").toUriString();
+            headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return headers;
+    }
+}
@@ -1,6 +1,8 @@
 package com.cpp.dataapi.web.rest;
 
+import com.cpp.dataapi.repository.UserCursor;
 import com.cpp.dataapi.service.UserService;
+import com.cpp.dataapi.service.dto.CursorPage;
 import com.cpp.dataapi.service.dto.UserDTO;
 import java.util.*;
 import java.util.Collections;
@@ -20,10 +22,16 @@ import tech.jhipster.web.util.PaginationUtil;
 @RequestMapping("/api")
 public class PublicUserResource {
 
-    private static final List<String> ALLOWED_ORDERED_PROPERTIES = Collections.unmodifiableList(
+    static final List<String> ALLOWED_ORDERED_PROPERTIES = Collections.unmodifiableList(
         Arrays.asList("id", "login", "firstName", "lastName", "email", "activated", "langKey")
     );
 
+    /**
+     * The properties allowed in the sort of a keyset pagination: its cursors carry the value of the last user of each
+     * page, so they must only sort on the properties of the {@link UserDTO}.
+     */
+    static final List<String> ALLOWED_CURSOR_ORDERED_PROPERTIES = Collections.unmodifiableList(Arrays.asList("id", "login"));
+
     private final Logger log = LoggerFactory.getLogger(PublicUserResource.class);
 
     private final UserService userService;
@@ -36,11 +44,30 @@ public class PublicUserResource {
      * {@code GET /users} : get all users with only the public informations - calling this are allowed for anyone.
      *
      * @param pageable the pagination information.
+     * @param cursor   the cursor of the page in keyset pagination sorted by id or login, empty for the first page; offset
+     *                 pagination if absent.
+     * @param total    whether to return the total count in keyset pagination.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body all users.
      */
     @GetMapping("/users")
-    public ResponseEntity<List<UserDTO>> getAllPublicUsers(Pageable pageable) {
+    public ResponseEntity<List<UserDTO>> getAllPublicUsers(
+        Pageable pageable,
+        @RequestParam(value = CursorPaginationUtil.CURSOR_PARAMETER, required = false) String cursor,
+        @RequestParam(value = "total", defaultValue = "false") boolean total
+    ) {
         log.debug("REST request to get all public User names");
+        if (cursor != null) {
+            if (!CursorPaginationUtil.isSortAllowed(pageable, ALLOWED_CURSOR_ORDERED_PROPERTIES)) {
+                return ResponseEntity.badRequest().build();
+            }
+            UserCursor after = CursorPaginationUtil.decodeCursor(cursor, ALLOWED_CURSOR_ORDERED_PROPERTIES);
+            CursorPage<UserDTO> page = userService.getAllPublicUsers(after, pageable, total);
+            HttpHeaders headers = CursorPaginationUtil.generateCursorPaginationHttpHeaders(
+                ServletUriComponentsBuilder.fromCurrentRequest(),
+                page
+            );
+            return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+        }
         if (!onlyContainsAllowedProperties(pageable)) {
             return ResponseEntity.badRequest().build();
         }
@@ -50,7 +77,7 @@ public class PublicUserResource {
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
 
-    private boolean onlyContainsAllowedProperties(Pageable pageable) {
+    static boolean onlyContainsAllowedProperties(Pageable pageable) {
         return pageable.getSort().stream().map(Sort.Order::getProperty).allMatch(ALLOWED_ORDERED_PROPERTIES::contains);
     }
 
@@ -1,32 +1,54 @@
 package com.cpp.dataapi.web.rest;
 
+import com.cpp.dataapi.config.ApplicationProperties;
+import com.cpp.dataapi.config.AsyncConfiguration;
 import com.cpp.dataapi.config.Constants;
 import com.cpp.dataapi.domain.User;
-import com.cpp.dataapi.repository.UserRepository;
+import com.cpp.dataapi.repository.UserCursor;
 import com.cpp.dataapi.security.AuthoritiesConstants;
 import com.cpp.dataapi.service.MailService;
+import com.cpp.dataapi.service.UserChangeFeedService;
+import com.cpp.dataapi.service.UserCache;
+import com.cpp.dataapi.service.UserExportService;
+import com.cpp.dataapi.service.UserImportService;
 import com.cpp.dataapi.service.UserService;
 import com.cpp.dataapi.service.dto.AdminUserDTO;
+import com.cpp.dataapi.service.dto.CursorPage;
+import com.cpp.dataapi.service.dto.UserChangesDTO;
+import com.cpp.dataapi.service.dto.UserImportReport;
 import com.cpp.dataapi.web.rest.errors.BadRequestAlertException;
 import com.cpp.dataapi.web.rest.errors.EmailAlreadyUsedException;
 import com.cpp.dataapi.web.rest.errors.LoginAlreadyUsedException;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.Instant;
 import java.util.*;
 import java.util.Collections;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.Pattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.PaginationUtil;
@@ -60,7 +82,13 @@ import tech.jhipster.web.util.ResponseUtil;
 @RequestMapping("/api/admin")
 public class UserResource {
 
-    private static final List<String> ALLOWED_ORDERED_PROPERTIES = Collections.unmodifiableList(
+    static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+
+    static final String CSV_MEDIA_TYPE = "text/csv";
+
+    private static final int MAX_CHANGES_SIZE = 1000;
+
+    static final List<String> ALLOWED_ORDERED_PROPERTIES = Collections.unmodifiableList(
         Arrays.asList(
             "id",
             "login",
@@ -83,14 +111,38 @@ public class UserResource {
 
     private final UserService userService;
 
-    private final UserRepository userRepository;
+    private final UserCache userCache;
 
     private final MailService mailService;
 
-    public UserResource(UserService userService, UserRepository userRepository, MailService mailService) {
+    private final UserExportService userExportService;
+
+    private final UserImportService userImportService;
+
+    private final UserChangeFeedService userChangeFeedService;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final AsyncTaskExecutor exportExecutor;
+
+    public UserResource(
+        UserService userService,
+        UserCache userCache,
+        MailService mailService,
+        UserExportService userExportService,
+        UserImportService userImportService,
+        UserChangeFeedService userChangeFeedService,
+        ApplicationProperties applicationProperties,
+        @Qualifier(AsyncConfiguration.EXPORT_EXECUTOR) AsyncTaskExecutor exportExecutor
+    ) {
         this.userService = userService;
-        this.userRepository = userRepository;
+        this.userCache = userCache;
         this.mailService = mailService;
+        this.userExportService = userExportService;
+        this.userImportService = userImportService;
+        this.userChangeFeedService = userChangeFeedService;
+        this.applicationProperties = applicationProperties;
+        this.exportExecutor = exportExecutor;
     }
 
     /**
@@ -112,12 +164,8 @@ public class UserResource {
 
         if (userDTO.getId() != null) {
             throw new BadRequestAlertException("A new user cannot already have an ID", "userManagement", "idexists");
-            // Lowercase the user login before comparing with database
-        } else if (userRepository.findOneByLogin(userDTO.getLogin().toLowerCase()).isPresent()) {
-            throw new LoginAlreadyUsedException();
-        } else if (userRepository.findOneByEmailIgnoreCase(userDTO.getEmail()).isPresent()) {
-            throw new EmailAlreadyUsedException();
         } else {
+            // The unique indexes reject a login or email already in use, translated by the ExceptionTranslator
             User newUser = userService.createUser(userDTO);
             mailService.sendCreationEmail(newUser);
             return ResponseEntity
@@ -141,11 +189,11 @@ public class UserResource {
     @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
     public ResponseEntity<AdminUserDTO> updateUser(@Valid @RequestBody AdminUserDTO userDTO) {
         log.debug("REST request to update User : {}", userDTO);
-        Optional<User> existingUser = userRepository.findOneByEmailIgnoreCase(userDTO.getEmail());
+        Optional<User> existingUser = userCache.findOneByEmailIgnoreCase(userDTO.getEmail());
         if (existingUser.isPresent() && (!existingUser.get().getId().equals(userDTO.getId()))) {
             throw new EmailAlreadyUsedException();
         }
-        existingUser = userRepository.findOneByLogin(userDTO.getLogin().toLowerCase());
+        existingUser = userCache.findOneByLogin(userDTO.getLogin().toLowerCase());
         if (existingUser.isPresent() && (!existingUser.get().getId().equals(userDTO.getId()))) {
             throw new LoginAlreadyUsedException();
         }
@@ -161,12 +209,30 @@ public class UserResource {
      * {@code GET /admin/users} : get all users with all the details - calling this are only allowed for the administrators.
      *
      * @param pageable the pagination information.
+     * @param cursor   the cursor of the page in keyset pagination, empty for the first page; offset pagination if absent.
+     * @param total    whether to return an estimated total count in keyset pagination.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body all users.
      */
     @GetMapping("/users")
     @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
-    public ResponseEntity<List<AdminUserDTO>> getAllUsers(Pageable pageable) {
+    public ResponseEntity<List<AdminUserDTO>> getAllUsers(
+        Pageable pageable,
+        @RequestParam(value = CursorPaginationUtil.CURSOR_PARAMETER, required = false) String cursor,
+        @RequestParam(value = "total", defaultValue = "false") boolean total
+    ) {
         log.debug("REST request to get all User for an admin");
+        if (cursor != null) {
+            if (!CursorPaginationUtil.isSortAllowed(pageable, ALLOWED_ORDERED_PROPERTIES)) {
+                return ResponseEntity.badRequest().build();
+            }
+            UserCursor after = CursorPaginationUtil.decodeCursor(cursor, ALLOWED_ORDERED_PROPERTIES);
+            CursorPage<AdminUserDTO> page = userService.getAllManagedUsers(after, pageable, total);
+            HttpHeaders headers = CursorPaginationUtil.generateCursorPaginationHttpHeaders(
+                ServletUriComponentsBuilder.fromCurrentRequest(),
+                page
+            );
+            return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+        }
         if (!onlyContainsAllowedProperties(pageable)) {
             return ResponseEntity.badRequest().build();
         }
@@ -176,7 +242,97 @@ public class UserResource {
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
 
-    private boolean onlyContainsAllowedProperties(Pageable pageable) {
+    /**
+     * {@code GET /admin/export/users} : export all users as newline-delimited JSON, streamed from the database.
+     * <p>
+     * The export is written on the export executor, with its own timeout, rather than with the defaults of the async
+     * requests.
+     *
+     * @param modifiedSince the date from which the users were last modified, inclusive, for incremental exports.
+     * @param request       the request, whose async processing is configured for the export.
+     * @param response      the response.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body one user per line.
+     */
+    @GetMapping(value = "/export/users", produces = NDJSON_MEDIA_TYPE)
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+        @RequestParam(value = "modifiedSince", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant modifiedSince,
+        HttpServletRequest request,
+        HttpServletResponse response
+    ) {
+        log.debug("REST request to export users modified since {}", modifiedSince);
+        // The body is streamed by the async manager of this request, set up before it starts
+        AsyncWebRequest asyncWebRequest = WebAsyncUtils.createAsyncWebRequest(request, response);
+        asyncWebRequest.setTimeout(applicationProperties.getUserExport().getTimeout().toMillis());
+        WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(request);
+        asyncManager.setAsyncWebRequest(asyncWebRequest);
+        asyncManager.setTaskExecutor(exportExecutor);
+        StreamingResponseBody body = out -> userExportService.exportUsers(modifiedSince, out);
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON_MEDIA_TYPE)).body(body);
+    }
+
+    /**
+     * {@code POST /admin/import/users} : import users as newline-delimited JSON or CSV.
+     * <p>
+     * Users are created as by {@code POST /admin/users}, and sent a creation email. Each row is created or fails on its
+     * own.
+     *
+     * @param contentType the format of the users: {@code application/x-ndjson} or {@code text/csv}.
+     * @param body        the users, in UTF-8.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the outcome of each row.
+     * @throws IOException if the body could not be read.
+     */
+    @PostMapping(value = "/import/users", consumes = { NDJSON_MEDIA_TYPE, CSV_MEDIA_TYPE })
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<UserImportReport> importUsers(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body)
+        throws IOException {
+        log.debug("REST request to import users");
+        UserImportService.Format format = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.parseMediaType(CSV_MEDIA_TYPE))
+            ? UserImportService.Format.CSV
+            : UserImportService.Format.NDJSON;
+        return ResponseEntity.ok(userImportService.importUsers(body, format));
+    }
+
+    /**
+     * {@code GET /admin/changes/users} : get the user creations, updates and deletions following a position.
+     * <p>
+     * Without a token or a date, all the users are read from the start. The changes are then read by resuming from the
+     * token returned with each page.
+     *
+     * @param token the resume token returned with the previous page.
+     * @param since the date from which to read the changes, inclusive, for a first read.
+     * @param size  the maximum number of changes to return.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the changes, with status
+     * {@code 400 (Bad Request)} if the token is invalid, or with status {@code 410 (Gone)} if the changes following the
+     * position are no longer kept.
+     */
+    @GetMapping("/changes/users")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<UserChangesDTO> getUserChanges(
+        @RequestParam(value = "token", required = false) String token,
+        @RequestParam(value = "since", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant since,
+        @RequestParam(value = "size", defaultValue = "100") int size
+    ) {
+        log.debug("REST request to get user changes after {} or since {}", token, since);
+        if (token != null && since != null) {
+            return ResponseEntity.badRequest().build();
+        }
+        UserCursor after = null;
+        if (token != null) {
+            after = CursorPaginationUtil.decodeCursor(token, Collections.singletonList(UserChangeFeedService.CHANGE_ORDER.getProperty()));
+            boolean validPosition =
+                after == null ||
+                (after.getOrder().equals(UserChangeFeedService.CHANGE_ORDER) && (after.getValue() == null || after.getValue() instanceof Instant));
+            if (!validPosition) {
+                throw new BadRequestAlertException("Invalid cursor", "userManagement", "invalidcursor");
+            }
+        } else if (since != null) {
+            after = UserChangeFeedService.since(since);
+        }
+        return ResponseEntity.ok(userChangeFeedService.getChanges(after, Math.max(1, Math.min(size, MAX_CHANGES_SIZE))));
+    }
+
+    static boolean onlyContainsAllowedProperties(Pageable pageable) {
         return pageable.getSort().stream().map(Sort.Order::getProperty).allMatch(ALLOWED_ORDERED_PROPERTIES::contains);
     }
 
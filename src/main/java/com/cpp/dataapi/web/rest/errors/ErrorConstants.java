@@ -6,6 +6,10 @@ public final class ErrorConstants {
 
     public static final String ERR_CONCURRENCY_FAILURE = "error.concurrencyFailure";
     public static final String ERR_VALIDATION = "error.validation";
+    public static final String ERR_RESUME_TOKEN_EXPIRED = "error.resumeTokenExpired";
+    public static final String ERR_PASSWORD_HASHING_SATURATED = "error.passwordHashingSaturated";
+    public static final String ERR_LOGIN_THROTTLED = "error.loginThrottled";
+    public static final String ERR_EXECUTOR_SATURATED = "error.executorSaturated";
     public static final String PROBLEM_BASE_URL = "https://www.jhipster.tech/problem";
     public static final URI DEFAULT_TYPE = URI.create(PROBLEM_BASE_URL + "/problem-with-message");
     public static final URI CONSTRAINT_VIOLATION_TYPE = URI.create(PROBLEM_BASE_URL + "/constraint-violation");
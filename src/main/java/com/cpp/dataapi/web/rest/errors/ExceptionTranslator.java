@@ -1,6 +1,7 @@
 package com.cpp.dataapi.web.rest.errors;
 
 import java.net.URI;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
@@ -14,6 +15,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.env.Environment;
 import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageConversionException;
 import org.springframework.validation.BindingResult;
@@ -149,6 +151,71 @@ public class ExceptionTranslator implements ProblemHandling, SecurityAdviceTrait
         return create(new InvalidPasswordException(), request);
     }
 
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleResumeTokenExpiredException(
+        com.cpp.dataapi.service.ResumeTokenExpiredException ex,
+        NativeWebRequest request
+    ) {
+        Problem problem = Problem
+            .builder()
+            .withStatus(Status.GONE)
+            .withDetail(ex.getMessage())
+            .with(MESSAGE_KEY, ErrorConstants.ERR_RESUME_TOKEN_EXPIRED)
+            .build();
+        return create(ex, problem, request);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Problem> handlePasswordHashingSaturatedException(
+        com.cpp.dataapi.security.PasswordHashingSaturatedException ex,
+        NativeWebRequest request
+    ) {
+        Problem problem = Problem
+            .builder()
+            .withStatus(Status.SERVICE_UNAVAILABLE)
+            .withDetail(ex.getMessage())
+            .with(MESSAGE_KEY, ErrorConstants.ERR_PASSWORD_HASHING_SATURATED)
+            .build();
+        return create(ex, problem, request, retryAfterHeaders(ex.getRetryAfter()));
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleLoginThrottledException(
+        com.cpp.dataapi.security.LoginThrottledException ex,
+        NativeWebRequest request
+    ) {
+        Problem problem = Problem
+            .builder()
+            .withStatus(Status.TOO_MANY_REQUESTS)
+            .withDetail(ex.getMessage())
+            .with(MESSAGE_KEY, ErrorConstants.ERR_LOGIN_THROTTLED)
+            .build();
+        return create(ex, problem, request, retryAfterHeaders(ex.getRetryAfter()));
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleTaskRejectedException(
+        org.springframework.core.task.TaskRejectedException ex,
+        NativeWebRequest request
+    ) {
+        // A bounded executor, such as the one of the exports, is full: the message names its internals
+        Problem problem = Problem
+            .builder()
+            .withStatus(Status.SERVICE_UNAVAILABLE)
+            .withDetail("Too many requests of this kind are running, please retry later")
+            .with(MESSAGE_KEY, ErrorConstants.ERR_EXECUTOR_SATURATED)
+            .build();
+        return create(ex, problem, request);
+    }
+
+    private static HttpHeaders retryAfterHeaders(Duration retryAfter) {
+        HttpHeaders headers = new HttpHeaders();
+        // Retry-After is in whole seconds, rounded up
+        long seconds = Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+        headers.set(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+        return headers;
+    }
+
     @ExceptionHandler
     public ResponseEntity<Problem> handleBadRequestAlertException(BadRequestAlertException ex, NativeWebRequest request) {
         return create(
@@ -0,0 +1,86 @@
+package com.cpp.dataapi.config;
+
+import com.cpp.dataapi.web.rest.ReactiveEndpoint;
+import java.lang.reflect.Method;
+import java.util.HashSet;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcRegistrations;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.mongodb.repository.config.EnableReactiveMongoRepositories;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+/**
+ * Serves the high-fanout reads of the account and users from the reactive MongoDB driver, in the {@code reactive}
+ * build profile.
+ * <p>
+ * The controllers annotated with {@link ReactiveEndpoint} return {@code Mono}s, which Spring MVC completes
+ * asynchronously: the request thread is released while the queries run, and the page and its count are read
+ * concurrently. Their mappings replace the identical ones of the blocking controllers, so that the REST contract,
+ * security and error handling stay the same.
+ */
+@Configuration
+@EnableReactiveMongoRepositories("com.cpp.dataapi.repository")
+public class ReactiveEndpointsConfiguration {
+
+    @Bean
+    public WebMvcRegistrations reactiveEndpointsWebMvcRegistrations() {
+        return new WebMvcRegistrations() {
+            @Override
+            public RequestMappingHandlerMapping getRequestMappingHandlerMapping() {
+                return new ReactiveEndpointHandlerMapping();
+            }
+        };
+    }
+
+    /**
+     * Handler mapping ignoring the handler methods whose mapping is also declared by a {@link ReactiveEndpoint}.
+     */
+    static class ReactiveEndpointHandlerMapping extends RequestMappingHandlerMapping {
+
+        private final Logger log = LoggerFactory.getLogger(ReactiveEndpointHandlerMapping.class);
+
+        private Set<RequestMappingInfo> reactiveMappings = new HashSet<>();
+
+        @Override
+        protected void initHandlerMethods() {
+            Set<RequestMappingInfo> mappings = new HashSet<>();
+            for (String beanName : obtainApplicationContext().getBeanNamesForAnnotation(ReactiveEndpoint.class)) {
+                Class<?> beanType = obtainApplicationContext().getType(beanName);
+                if (beanType == null) {
+                    continue;
+                }
+                Class<?> userType = ClassUtils.getUserClass(beanType);
+                mappings.addAll(
+                    MethodIntrospector
+                        .selectMethods(userType, (MethodIntrospector.MetadataLookup<RequestMappingInfo>) method ->
+                            super.getMappingForMethod(method, userType)
+                        )
+                        .values()
+                );
+            }
+            reactiveMappings = mappings;
+            super.initHandlerMethods();
+        }
+
+        @Override
+        protected RequestMappingInfo getMappingForMethod(Method method, Class<?> handlerType) {
+            RequestMappingInfo info = super.getMappingForMethod(method, handlerType);
+            if (
+                info != null &&
+                reactiveMappings.contains(info) &&
+                !AnnotatedElementUtils.hasAnnotation(ClassUtils.getUserClass(handlerType), ReactiveEndpoint.class)
+            ) {
+                log.debug("Replacing {} of {} by its reactive endpoint", info, handlerType.getSimpleName());
+                return null;
+            }
+            return info;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.cpp.dataapi.repository;
+
+import com.cpp.dataapi.domain.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Spring Data MongoDB reactive repository for the {@link User} entity, serving the same reads as the
+ * {@link UserRepository} without holding a thread while the database answers.
+ */
+@Repository
+public interface ReactiveUserRepository extends ReactiveMongoRepository<User, String>, ReactiveUserRepositoryCustom {
+    Mono<User> findOneByLogin(String login);
+
+    @Query(value = "{}", fields = UserRepository.MANAGED_USER_EXCLUDED_FIELDS)
+    Flux<User> findAllManagedUsers(Pageable pageable);
+
+    @Query(value = "{ 'activated': true }", fields = UserRepository.PUBLIC_USER_FIELDS)
+    Flux<User> findAllPublicUsers(Pageable pageable);
+
+    Mono<Long> countByActivatedIsTrue();
+}
@@ -0,0 +1,25 @@
+package com.cpp.dataapi.repository;
+
+import com.cpp.dataapi.domain.User;
+import org.springframework.data.domain.Sort;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Custom queries of the {@link ReactiveUserRepository}, as in {@link UserRepositoryCustom}.
+ */
+public interface ReactiveUserRepositoryCustom {
+    /**
+     * Finds the users following a position in a keyset order.
+     *
+     * @see UserRepositoryCustom#findAllAfter
+     */
+    Flux<User> findAllAfter(Sort.Order order, UserCursor after, int limit, boolean publicOnly);
+
+    /**
+     * Estimates the number of users from the collection metadata, without scanning it.
+     *
+     * @return the approximate number of users.
+     */
+    Mono<Long> estimateCount();
+}
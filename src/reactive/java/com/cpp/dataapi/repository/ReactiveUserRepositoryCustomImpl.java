@@ -0,0 +1,28 @@
+package com.cpp.dataapi.repository;
+
+import com.cpp.dataapi.domain.User;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class ReactiveUserRepositoryCustomImpl implements ReactiveUserRepositoryCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    public ReactiveUserRepositoryCustomImpl(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Flux<User> findAllAfter(Sort.Order order, UserCursor after, int limit, boolean publicOnly) {
+        return mongoTemplate.find(UserRepositoryCustomImpl.findAllAfterQuery(order, after, limit, publicOnly), User.class);
+    }
+
+    @Override
+    public Mono<Long> estimateCount() {
+        return mongoTemplate
+            .getCollection(mongoTemplate.getCollectionName(User.class))
+            .flatMap(collection -> Mono.from(collection.estimatedDocumentCount()));
+    }
+}
@@ -0,0 +1,106 @@
+package com.cpp.dataapi.service;
+
+import com.cpp.dataapi.domain.User;
+import com.cpp.dataapi.repository.ReactiveUserRepository;
+import com.cpp.dataapi.repository.UserCursor;
+import com.cpp.dataapi.service.dto.AdminUserDTO;
+import com.cpp.dataapi.service.dto.CursorPage;
+import com.cpp.dataapi.service.dto.UserDTO;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Service for the reads of the users served by the reactive endpoints, with the same results as the {@link UserService}.
+ * <p>
+ * The users of a page and their count are queried concurrently, and no thread waits for them.
+ */
+@Service
+public class ReactiveUserService {
+
+    private final ReactiveUserRepository reactiveUserRepository;
+
+    private final UserCache userCache;
+
+    public ReactiveUserService(ReactiveUserRepository reactiveUserRepository, UserCache userCache) {
+        this.reactiveUserRepository = reactiveUserRepository;
+        this.userCache = userCache;
+    }
+
+    public Mono<User> getUserWithAuthoritiesByLogin(String login) {
+        Optional<User> cached = userCache.findCachedByLogin(login);
+        if (cached.isPresent()) {
+            return Mono.just(cached.get());
+        }
+        return Mono.defer(() -> {
+            long evictionsBeforeRead = userCache.getEvictionCount();
+            return reactiveUserRepository.findOneByLogin(login).doOnNext(user -> userCache.cache(user, evictionsBeforeRead));
+        });
+    }
+
+    public Mono<Page<AdminUserDTO>> getAllManagedUsers(Pageable pageable) {
+        return Mono
+            .zip(reactiveUserRepository.findAllManagedUsers(pageable).map(AdminUserDTO::new).collectList(), reactiveUserRepository.count())
+            .map(result -> new PageImpl<>(result.getT1(), pageable, result.getT2()));
+    }
+
+    public Mono<Page<UserDTO>> getAllPublicUsers(Pageable pageable) {
+        return Mono
+            .zip(
+                reactiveUserRepository.findAllPublicUsers(pageable).map(UserDTO::new).collectList(),
+                reactiveUserRepository.countByActivatedIsTrue()
+            )
+            .map(result -> new PageImpl<>(result.getT1(), pageable, result.getT2()));
+    }
+
+    /**
+     * Gets a page of all the users, in keyset pagination.
+     *
+     * @see UserService#getAllManagedUsers(UserCursor, Pageable, boolean)
+     */
+    public Mono<CursorPage<AdminUserDTO>> getAllManagedUsers(UserCursor after, Pageable pageable, boolean withTotal) {
+        return getUsersAfter(after, pageable, false, AdminUserDTO::new, withTotal ? reactiveUserRepository.estimateCount() : null);
+    }
+
+    /**
+     * Gets a page of the activated users, in keyset pagination.
+     *
+     * @see UserService#getAllPublicUsers(UserCursor, Pageable, boolean)
+     */
+    public Mono<CursorPage<UserDTO>> getAllPublicUsers(UserCursor after, Pageable pageable, boolean withTotal) {
+        return getUsersAfter(after, pageable, true, UserDTO::new, withTotal ? reactiveUserRepository.countByActivatedIsTrue() : null);
+    }
+
+    private <T> Mono<CursorPage<T>> getUsersAfter(
+        UserCursor after,
+        Pageable pageable,
+        boolean publicOnly,
+        Function<User, T> mapper,
+        Mono<Long> totalCount
+    ) {
+        // The cursor carries the order of the first page
+        Sort.Order order = after != null ? after.getOrder() : UserService.cursorOrder(pageable.getSort());
+        int size = pageable.getPageSize();
+        // Read one more user to know whether there is a next page
+        Mono<List<User>> users = reactiveUserRepository.findAllAfter(order, after, size + 1, publicOnly).collectList();
+        Mono<Optional<Long>> total = totalCount != null ? totalCount.map(Optional::of) : Mono.just(Optional.empty());
+        return Mono
+            .zip(users, total)
+            .map(result -> {
+                List<User> page = result.getT1();
+                String nextCursor = null;
+                if (page.size() > size) {
+                    page = page.subList(0, size);
+                    nextCursor = UserCursor.after(order, page.get(size - 1)).encode();
+                }
+                return new CursorPage<>(page.stream().map(mapper).collect(Collectors.toList()), nextCursor, result.getT2().orElse(null));
+            });
+    }
+}
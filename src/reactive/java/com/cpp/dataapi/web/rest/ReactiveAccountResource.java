@@ -0,0 +1,47 @@
+package com.cpp.dataapi.web.rest;
+
+import com.cpp.dataapi.security.SecurityUtils;
+import com.cpp.dataapi.service.ReactiveUserService;
+import com.cpp.dataapi.service.dto.AdminUserDTO;
+import java.util.Optional;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive REST controller for the current user's account, replacing {@code GET /api/account} of {@link AccountResource}.
+ */
+@RestController
+@RequestMapping("/api")
+@ReactiveEndpoint
+public class ReactiveAccountResource {
+
+    private static class AccountResourceException extends RuntimeException {
+
+        private AccountResourceException(String message) {
+            super(message);
+        }
+    }
+
+    private final ReactiveUserService reactiveUserService;
+
+    public ReactiveAccountResource(ReactiveUserService reactiveUserService) {
+        this.reactiveUserService = reactiveUserService;
+    }
+
+    /**
+     * {@code GET  /account} : get the current user.
+     *
+     * @return the current user.
+     * @throws RuntimeException {@code 500 (Internal Server Error)} if the user couldn't be returned.
+     */
+    @GetMapping("/account")
+    public Mono<AdminUserDTO> getAccount() {
+        // The security context is bound to the request thread, not to the one completing the query
+        Optional<String> login = SecurityUtils.getCurrentUserLogin();
+        return Mono
+            .justOrEmpty(login)
+            .flatMap(reactiveUserService::getUserWithAuthoritiesByLogin)
+            .map(AdminUserDTO::new)
+            .switchIfEmpty(Mono.defer(() -> Mono.error(new AccountResourceException("User could not be found"))));
+    }
+}
@@ -0,0 +1,19 @@
+package com.cpp.dataapi.web.rest;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a REST controller serving reactive endpoints, which replace the endpoints of the other controllers having the
+ * same request mappings.
+ *
+ * @see com.cpp.dataapi.config.ReactiveEndpointsConfiguration
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ReactiveEndpoint {
+}
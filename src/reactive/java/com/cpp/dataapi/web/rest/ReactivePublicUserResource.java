@@ -0,0 +1,77 @@
+package com.cpp.dataapi.web.rest;
+
+import com.cpp.dataapi.repository.UserCursor;
+import com.cpp.dataapi.service.ReactiveUserService;
+import com.cpp.dataapi.service.dto.UserDTO;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+import tech.jhipster.web.util.PaginationUtil;
+
+/**
+ * Reactive REST controller for the public users, replacing {@code GET /api/users} of {@link PublicUserResource}.
+ */
+@RestController
+@RequestMapping("/api")
+@ReactiveEndpoint
+public class ReactivePublicUserResource {
+
+    private final Logger log = LoggerFactory.getLogger(ReactivePublicUserResource.class);
+
+    private final ReactiveUserService reactiveUserService;
+
+    public ReactivePublicUserResource(ReactiveUserService reactiveUserService) {
+        this.reactiveUserService = reactiveUserService;
+    }
+
+    /**
+     * {@code GET /users} : get all users with only the public informations - calling this are allowed for anyone.
+     *
+     * @param pageable the pagination information.
+     * @param cursor   the cursor of the page in keyset pagination sorted by id or login, empty for the first page; offset
+     *                 pagination if absent.
+     * @param total    whether to return the total count in keyset pagination.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body all users.
+     */
+    @GetMapping("/users")
+    public Mono<ResponseEntity<List<UserDTO>>> getAllPublicUsers(
+        Pageable pageable,
+        @RequestParam(value = CursorPaginationUtil.CURSOR_PARAMETER, required = false) String cursor,
+        @RequestParam(value = "total", defaultValue = "false") boolean total
+    ) {
+        log.debug("REST request to get all public User names");
+        // The current request is bound to the request thread, not to the one completing the query
+        UriComponentsBuilder uriBuilder = ServletUriComponentsBuilder.fromCurrentRequest();
+        if (cursor != null) {
+            if (!CursorPaginationUtil.isSortAllowed(pageable, PublicUserResource.ALLOWED_CURSOR_ORDERED_PROPERTIES)) {
+                return Mono.just(ResponseEntity.badRequest().build());
+            }
+            UserCursor after = CursorPaginationUtil.decodeCursor(cursor, PublicUserResource.ALLOWED_CURSOR_ORDERED_PROPERTIES);
+            return reactiveUserService
+                .getAllPublicUsers(after, pageable, total)
+                .map(page ->
+                    new ResponseEntity<>(
+                        page.getContent(),
+                        CursorPaginationUtil.generateCursorPaginationHttpHeaders(uriBuilder, page),
+                        HttpStatus.OK
+                    )
+                );
+        }
+        if (!PublicUserResource.onlyContainsAllowedProperties(pageable)) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        return reactiveUserService
+            .getAllPublicUsers(pageable)
+            .map(page ->
+                new ResponseEntity<>(page.getContent(), PaginationUtil.generatePaginationHttpHeaders(uriBuilder, page), HttpStatus.OK)
+            );
+    }
+}
@@ -0,0 +1,79 @@
+package com.cpp.dataapi.web.rest;
+
+import com.cpp.dataapi.repository.UserCursor;
+import com.cpp.dataapi.security.AuthoritiesConstants;
+import com.cpp.dataapi.service.ReactiveUserService;
+import com.cpp.dataapi.service.dto.AdminUserDTO;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+import tech.jhipster.web.util.PaginationUtil;
+
+/**
+ * Reactive REST controller for managing users, replacing {@code GET /api/admin/users} of {@link UserResource}.
+ */
+@RestController
+@RequestMapping("/api/admin")
+@ReactiveEndpoint
+public class ReactiveUserResource {
+
+    private final Logger log = LoggerFactory.getLogger(ReactiveUserResource.class);
+
+    private final ReactiveUserService reactiveUserService;
+
+    public ReactiveUserResource(ReactiveUserService reactiveUserService) {
+        this.reactiveUserService = reactiveUserService;
+    }
+
+    /**
+     * {@code GET /admin/users} : get all users with all the details - calling this are only allowed for the administrators.
+     *
+     * @param pageable the pagination information.
+     * @param cursor   the cursor of the page in keyset pagination, empty for the first page; offset pagination if absent.
+     * @param total    whether to return an estimated total count in keyset pagination.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body all users.
+     */
+    @GetMapping("/users")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public Mono<ResponseEntity<List<AdminUserDTO>>> getAllUsers(
+        Pageable pageable,
+        @RequestParam(value = CursorPaginationUtil.CURSOR_PARAMETER, required = false) String cursor,
+        @RequestParam(value = "total", defaultValue = "false") boolean total
+    ) {
+        log.debug("REST request to get all User for an admin");
+        // The current request is bound to the request thread, not to the one completing the query
+        UriComponentsBuilder uriBuilder = ServletUriComponentsBuilder.fromCurrentRequest();
+        if (cursor != null) {
+            if (!CursorPaginationUtil.isSortAllowed(pageable, UserResource.ALLOWED_ORDERED_PROPERTIES)) {
+                return Mono.just(ResponseEntity.badRequest().build());
+            }
+            UserCursor after = CursorPaginationUtil.decodeCursor(cursor, UserResource.ALLOWED_ORDERED_PROPERTIES);
+            return reactiveUserService
+                .getAllManagedUsers(after, pageable, total)
+                .map(page ->
+                    new ResponseEntity<>(
+                        page.getContent(),
+                        CursorPaginationUtil.generateCursorPaginationHttpHeaders(uriBuilder, page),
+                        HttpStatus.OK
+                    )
+                );
+        }
+        if (!UserResource.onlyContainsAllowedProperties(pageable)) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        return reactiveUserService
+            .getAllManagedUsers(pageable)
+            .map(page ->
+                new ResponseEntity<>(page.getContent(), PaginationUtil.generatePaginationHttpHeaders(uriBuilder, page), HttpStatus.OK)
+            );
+    }
+}
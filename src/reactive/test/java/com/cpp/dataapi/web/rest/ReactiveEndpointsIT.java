@@ -0,0 +1,128 @@
+package com.cpp.dataapi.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.cpp.dataapi.IntegrationTest;
+import com.cpp.dataapi.domain.User;
+import com.cpp.dataapi.repository.UserRepository;
+import com.cpp.dataapi.security.AuthoritiesConstants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+/**
+ * Integration tests for the {@link ReactiveEndpoint} REST controllers, in the {@code reactive} build profile.
+ */
+@AutoConfigureMockMvc
+@WithMockUser(username = ReactiveEndpointsIT.DEFAULT_LOGIN, authorities = AuthoritiesConstants.ADMIN)
+@IntegrationTest
+class ReactiveEndpointsIT {
+
+    static final String DEFAULT_LOGIN = "johndoe";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RequestMappingHandlerMapping requestMappingHandlerMapping;
+
+    @Autowired
+    private MockMvc restMockMvc;
+
+    private User user;
+
+    @BeforeEach
+    public void initTest() {
+        user = UserResourceIT.initTestUser(userRepository);
+    }
+
+    @Test
+    void assertThatReactiveEndpointsReplaceBlockingOnes() throws Exception {
+        assertThat(handlerType("/api/account")).isEqualTo(ReactiveAccountResource.class);
+        assertThat(handlerType("/api/users")).isEqualTo(ReactivePublicUserResource.class);
+        assertThat(handlerType("/api/admin/users")).isEqualTo(ReactiveUserResource.class);
+        assertThat(handlerType("/api/authorities")).isEqualTo(PublicUserResource.class);
+    }
+
+    @Test
+    void getAccount() throws Exception {
+        userRepository.save(user);
+
+        MvcResult result = restMockMvc
+            .perform(get("/api/account").accept(MediaType.APPLICATION_JSON))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        restMockMvc
+            .perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.login").value(DEFAULT_LOGIN))
+            .andExpect(jsonPath("$.password").doesNotExist());
+    }
+
+    @Test
+    void getAllUsers() throws Exception {
+        userRepository.save(user);
+
+        MvcResult result = restMockMvc
+            .perform(get("/api/admin/users?sort=id,desc").accept(MediaType.APPLICATION_JSON))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        restMockMvc
+            .perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "1"))
+            .andExpect(jsonPath("$.[*].login").value(hasItem(DEFAULT_LOGIN)))
+            .andExpect(jsonPath("$.[*].email").value(hasItem(user.getEmail())));
+    }
+
+    @Test
+    void getAllPublicUsersWithCursor() throws Exception {
+        userRepository.save(user);
+
+        MvcResult result = restMockMvc
+            .perform(get("/api/users?cursor=&size=1&total=true").accept(MediaType.APPLICATION_JSON))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        restMockMvc
+            .perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "1"))
+            .andExpect(jsonPath("$.[*].login").value(hasItem(DEFAULT_LOGIN)))
+            .andExpect(jsonPath("$.[*].email").doesNotExist());
+    }
+
+    @Test
+    void getAllUsersWithUnsupportedSort() throws Exception {
+        MvcResult result = restMockMvc
+            .perform(get("/api/admin/users?sort=password,asc").accept(MediaType.APPLICATION_JSON))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        restMockMvc.perform(asyncDispatch(result)).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getAllPublicUsersWithCursorSortedOnHiddenProperty() throws Exception {
+        MvcResult result = restMockMvc
+            .perform(get("/api/users?cursor=&sort=email,asc").accept(MediaType.APPLICATION_JSON))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        restMockMvc.perform(asyncDispatch(result)).andExpect(status().isBadRequest());
+    }
+
+    private Class<?> handlerType(String uri) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        return ((HandlerMethod) requestMappingHandlerMapping.getHandler(request).getHandler()).getBeanType();
+    }
+}
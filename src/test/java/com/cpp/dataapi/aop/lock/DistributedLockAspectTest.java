@@ -0,0 +1,89 @@
+package com.cpp.dataapi.aop.lock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.cpp.dataapi.service.JobLease;
+import com.cpp.dataapi.service.JobLockService;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.mock.env.MockEnvironment;
+
+/**
+ * Test class for the {@link DistributedLockAspect}.
+ */
+class DistributedLockAspectTest {
+
+    private JobLockService jobLockService;
+
+    private Job job;
+
+    private Job proxy;
+
+    @BeforeEach
+    public void setup() {
+        jobLockService = mock(JobLockService.class);
+        MockEnvironment env = new MockEnvironment().withProperty("test.lease", "10m");
+        job = new Job();
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(job);
+        proxyFactory.addAspect(new DistributedLockAspect(jobLockService, env));
+        proxy = proxyFactory.getProxy();
+    }
+
+    @Test
+    void testMethodRunsWithTheLease() {
+        JobLease jobLease = new JobLease("test-job", 1, Instant.now());
+        when(jobLockService.tryLock("test-job", Duration.ofMinutes(10))).thenReturn(Optional.of(jobLease));
+
+        proxy.run();
+
+        assertThat(job.runs).isEqualTo(1);
+        verify(jobLockService).unlock(jobLease, Duration.ofSeconds(30));
+    }
+
+    @Test
+    void testMethodIsSkippedWithoutTheLease() {
+        when(jobLockService.tryLock(eq("test-job"), any())).thenReturn(Optional.empty());
+
+        proxy.run();
+
+        assertThat(job.runs).isZero();
+        verify(jobLockService, never()).unlock(any(), any());
+    }
+
+    @Test
+    void testLeaseIsReleasedWhenMethodFails() {
+        JobLease jobLease = new JobLease("test-job", 1, Instant.now());
+        when(jobLockService.tryLock(eq("test-job"), any())).thenReturn(Optional.of(jobLease));
+        job.failure = new IllegalStateException("failed");
+
+        assertThatIllegalStateException().isThrownBy(proxy::run);
+
+        verify(jobLockService).unlock(jobLease, Duration.ofSeconds(30));
+    }
+
+    static class Job {
+
+        int runs;
+
+        RuntimeException failure;
+
+        @DistributedLock(name = "test-job", lease = "${test.lease}", minLease = "PT30S")
+        public void run() {
+            if (failure != null) {
+                throw failure;
+            }
+            runs++;
+        }
+    }
+}
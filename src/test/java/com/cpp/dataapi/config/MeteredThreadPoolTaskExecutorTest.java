@@ -0,0 +1,69 @@
+package com.cpp.dataapi.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+
+class MeteredThreadPoolTaskExecutorTest {
+
+    private MeterRegistry meterRegistry;
+
+    private MeteredThreadPoolTaskExecutor executor;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = new MeteredThreadPoolTaskExecutor("test", meterRegistry);
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.initialize();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void testTasksAreTimed() throws Exception {
+        executor.submit(() -> {}).get(10, TimeUnit.SECONDS);
+
+        assertThat(meterRegistry.get(MeteredThreadPoolTaskExecutor.EXECUTION_METER_NAME).tag("name", "test").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(MeteredThreadPoolTaskExecutor.IDLE_METER_NAME).tag("name", "test").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testPoolIsMonitored() {
+        assertThat(meterRegistry.get("executor.pool.size").tag("name", "test").gauge()).isNotNull();
+        assertThat(meterRegistry.get("executor.queued").tag("name", "test").gauge()).isNotNull();
+        assertThat(meterRegistry.get("executor.active").tag("name", "test").gauge()).isNotNull();
+    }
+
+    @Test
+    void testRejectedTasksAreCounted() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> running = executor.submit(() -> {
+            release.await();
+            return null;
+        });
+        Future<?> queued = executor.submit(() -> {});
+
+        assertThatExceptionOfType(TaskRejectedException.class).isThrownBy(() -> executor.submit(() -> {}));
+        assertThat(meterRegistry.get(MeteredThreadPoolTaskExecutor.REJECTED_METER_NAME).tag("name", "test").counter().count())
+            .isEqualTo(1);
+
+        release.countDown();
+        running.get(10, TimeUnit.SECONDS);
+        queued.get(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,66 @@
+package com.cpp.dataapi.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class VirtualThreadPinningMonitorTest {
+
+    /**
+     * From Java 24, blocking in a {@code synchronized} block no longer pins the virtual thread.
+     */
+    private static final int UNPINNED_SYNCHRONIZED_VERSION = 24;
+
+    private MeterRegistry meterRegistry;
+
+    private VirtualThreadPinningMonitor monitor;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        monitor = new VirtualThreadPinningMonitor(Duration.ofMillis(10), meterRegistry);
+        monitor.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        monitor.stop();
+    }
+
+    @Test
+    void testMeterIsRegisteredOnAnyJavaVersion() {
+        assertThat(meterRegistry.get(VirtualThreadPinningMonitor.PINNED_METER_NAME).counter().count()).isZero();
+    }
+
+    @Test
+    void testBlockingInASynchronizedBlockIsCounted() throws Exception {
+        assumeTrue(VirtualThreadSupport.isSupported() && Runtime.version().feature() < UNPINNED_SYNCHRONIZED_VERSION);
+        Object lock = new Object();
+        Thread thread = VirtualThreadSupport
+            .threadFactory("pinned-")
+            .newThread(() -> {
+                synchronized (lock) {
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+        thread.start();
+        thread.join();
+
+        // The events are streamed about once a second
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (meterRegistry.get(VirtualThreadPinningMonitor.PINNED_METER_NAME).counter().count() < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+        assertThat(meterRegistry.get(VirtualThreadPinningMonitor.PINNED_METER_NAME).counter().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,46 @@
+package com.cpp.dataapi.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class VirtualThreadSupportTest {
+
+    private static final int VIRTUAL_THREADS_VERSION = 21;
+
+    @Test
+    void testSupportFollowsTheJavaVersion() {
+        assertThat(VirtualThreadSupport.isSupported()).isEqualTo(Runtime.version().feature() >= VIRTUAL_THREADS_VERSION);
+    }
+
+    @Test
+    void testThreadsAreVirtual() throws Exception {
+        assumeTrue(VirtualThreadSupport.isSupported());
+        Thread thread = VirtualThreadSupport.threadFactory("test-").newThread(() -> {});
+
+        assertThat(thread.getName()).isEqualTo("test-0");
+        assertThat(Thread.class.getMethod("isVirtual").invoke(thread)).isEqualTo(true);
+
+        ExecutorService executor = VirtualThreadSupport.newThreadPerTaskExecutor("test-");
+        try {
+            assertThat(executor.submit(() -> Thread.currentThread().getName()).get(10, TimeUnit.SECONDS)).startsWith("test-");
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testVirtualThreadsModeFailsBeforeJava21() {
+        assumeFalse(VirtualThreadSupport.isSupported());
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getVirtualThreads().setEnabled(true);
+
+        assertThatIllegalStateException().isThrownBy(() -> VirtualThreadSupport.threadFactory("test-"));
+        assertThatIllegalStateException().isThrownBy(() -> new VirtualThreadsConfiguration(applicationProperties));
+    }
+}
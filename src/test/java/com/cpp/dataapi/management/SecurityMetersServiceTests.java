@@ -67,4 +67,16 @@ class SecurityMetersServiceTests {
 
         assertThat(meterRegistry.get(INVALID_TOKENS_METER_EXPECTED_NAME).tag("cause", "malformed").counter().count()).isEqualTo(1);
     }
+
+    @Test
+    public void testLoginMethodsShouldBeBoundToCorrectCounters() {
+        securityMetersService.trackLoginFailure();
+        securityMetersService.trackLoginThrottledByLogin();
+        securityMetersService.trackLoginThrottledByLogin();
+        securityMetersService.trackLoginThrottledByIp();
+
+        assertThat(meterRegistry.get(SecurityMetersService.LOGIN_FAILURES_METER_NAME).counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(SecurityMetersService.LOGIN_THROTTLED_METER_NAME).tag("key", "login").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get(SecurityMetersService.LOGIN_THROTTLED_METER_NAME).tag("key", "ip").counter().count()).isEqualTo(1);
+    }
 }
@@ -0,0 +1,58 @@
+package com.cpp.dataapi.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import com.cpp.dataapi.domain.User;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Test class for the {@link UserCursor}.
+ */
+class UserCursorTest {
+
+    @Test
+    void testEncodeDecodeStringValue() {
+        User user = new User();
+        user.setId("user-1");
+        user.setLogin("johndoe");
+
+        UserCursor cursor = UserCursor.after(Sort.Order.desc("login"), user);
+
+        UserCursor decoded = UserCursor.decode(cursor.encode());
+        assertThat(decoded).isEqualTo(cursor);
+        assertThat(decoded.getOrder()).isEqualTo(Sort.Order.desc("login"));
+        assertThat(decoded.getValue()).isEqualTo("johndoe");
+        assertThat(decoded.getId()).isEqualTo("user-1");
+    }
+
+    @Test
+    void testEncodeDecodeOtherValues() {
+        User user = new User();
+        user.setId("5f1d7e9a2b3c4d5e6f708192");
+        user.setActivated(true);
+        user.setCreatedDate(Instant.ofEpochMilli(1_600_000_000_000L));
+
+        assertThat(UserCursor.decode(UserCursor.after(Sort.Order.asc("activated"), user).encode()).getValue()).isEqualTo(true);
+        assertThat(UserCursor.decode(UserCursor.after(Sort.Order.asc("createdDate"), user).encode()).getValue())
+            .isEqualTo(Instant.ofEpochMilli(1_600_000_000_000L));
+        assertThat(UserCursor.decode(UserCursor.after(Sort.Order.asc("firstName"), user).encode()).getValue()).isNull();
+    }
+
+    @Test
+    void testTokenIsUrlSafe() {
+        User user = new User();
+        user.setId("user-1");
+        user.setFirstName("Zoë ?&/+=");
+
+        assertThat(UserCursor.after(Sort.Order.asc("firstName"), user).encode()).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void testDecodeInvalidToken() {
+        assertThatIllegalArgumentException().isThrownBy(() -> UserCursor.decode("not a cursor"));
+        assertThatIllegalArgumentException().isThrownBy(() -> UserCursor.decode("AAAA"));
+    }
+}
@@ -0,0 +1,83 @@
+package com.cpp.dataapi.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.cpp.dataapi.IntegrationTest;
+import com.cpp.dataapi.domain.User;
+import java.time.Instant;
+import java.util.List;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Integration tests for the projections of the user listings, and the custom updates, of {@link UserRepository}.
+ */
+@IntegrationTest
+class UserRepositoryIT {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    public void init() {
+        userRepository.deleteAll();
+        User user = new User();
+        user.setLogin("johndoe");
+        user.setPassword(RandomStringUtils.random(60));
+        user.setActivated(true);
+        user.setEmail("johndoe@localhost");
+        user.setFirstName("john");
+        user.setResetKey("reset-key");
+        user.setResetDate(Instant.now());
+        userRepository.save(user);
+    }
+
+    @Test
+    void assertThatManagedUsersAreReadWithoutSecrets() {
+        List<User> users = userRepository.findAllManagedUsers(PageRequest.of(0, 10)).getContent();
+
+        assertThat(users).hasSize(1);
+        assertThat(users.get(0).getEmail()).isEqualTo("johndoe@localhost");
+        assertThat(users.get(0).getPassword()).isNull();
+        assertThat(users.get(0).getResetKey()).isNull();
+        assertThat(users.get(0).getResetDate()).isNull();
+    }
+
+    @Test
+    void assertThatPublicUsersAreReadWithTheirLoginOnly() {
+        List<User> users = userRepository.findAllPublicUsers(PageRequest.of(0, 10)).getContent();
+
+        assertThat(users).hasSize(1);
+        assertThat(users.get(0).getId()).isNotNull();
+        assertThat(users.get(0).getLogin()).isEqualTo("johndoe");
+        assertThat(users.get(0).getEmail()).isNull();
+        assertThat(users.get(0).getPassword()).isNull();
+    }
+
+    @Test
+    void assertThatPublicUsersAfterACursorAreReadWithTheirSortProperty() {
+        List<User> users = userRepository.findAllAfter(Sort.Order.asc("firstName"), null, 10, true);
+
+        assertThat(users).hasSize(1);
+        assertThat(users.get(0).getLogin()).isEqualTo("johndoe");
+        assertThat(users.get(0).getFirstName()).isEqualTo("john");
+        assertThat(users.get(0).getEmail()).isNull();
+    }
+
+    @Test
+    void assertThatPasswordIsReplacedOnlyWhenUnchanged() {
+        User user = userRepository.findOneByLogin("johndoe").orElseThrow();
+        String password = user.getPassword();
+
+        assertThat(userRepository.replacePassword(user.getId(), "another-password", RandomStringUtils.random(60))).isFalse();
+        assertThat(userRepository.findOneByLogin("johndoe").orElseThrow().getPassword()).isEqualTo(password);
+
+        String upgradedPassword = RandomStringUtils.random(68);
+        assertThat(userRepository.replacePassword(user.getId(), password, upgradedPassword)).isTrue();
+        assertThat(userRepository.findOneByLogin("johndoe").orElseThrow().getPassword()).isEqualTo(upgradedPassword);
+    }
+}
@@ -0,0 +1,105 @@
+package com.cpp.dataapi.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.cpp.dataapi.domain.Authority;
+import com.cpp.dataapi.repository.AuthorityRepository;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+
+class AuthorityRegistryTest {
+
+    private AuthorityRepository authorityRepository;
+
+    private AuthorityRegistry authorityRegistry;
+
+    @BeforeEach
+    public void setup() {
+        authorityRepository = mock(AuthorityRepository.class);
+        authorityRegistry = new AuthorityRegistry(authorityRepository);
+    }
+
+    @Test
+    void testGetAuthorityReturnsCanonicalInstance() {
+        GrantedAuthority admin = authorityRegistry.getAuthority(AuthoritiesConstants.ADMIN);
+
+        assertThat(admin.getAuthority()).isEqualTo(AuthoritiesConstants.ADMIN);
+        assertThat(authorityRegistry.getAuthority(AuthoritiesConstants.ADMIN)).isSameAs(admin);
+    }
+
+    @Test
+    void testLoadAuthoritiesRegistersStoredAuthorities() {
+        Authority authority = new Authority();
+        authority.setName("ROLE_SITE_MONITOR");
+        when(authorityRepository.findAll()).thenReturn(Collections.singletonList(authority));
+
+        authorityRegistry.loadAuthorities();
+
+        assertThat(authorityRegistry.getAuthority("ROLE_SITE_MONITOR").getAuthority()).isEqualTo("ROLE_SITE_MONITOR");
+    }
+
+    @Test
+    void testGetAuthoritiesFromClaim() {
+        List<GrantedAuthority> authorities = authorityRegistry.getAuthoritiesFromClaim("ROLE_ADMIN,,ROLE_USER,");
+
+        assertThat(authorities)
+            .extracting(GrantedAuthority::getAuthority)
+            .containsExactly(AuthoritiesConstants.ADMIN, AuthoritiesConstants.USER);
+        assertThat(authorities.get(0)).isSameAs(authorityRegistry.getAuthority(AuthoritiesConstants.ADMIN));
+        assertThat(authorityRegistry.getAuthoritiesFromClaim("ROLE_ADMIN,,ROLE_USER,")).isSameAs(authorities);
+    }
+
+    @Test
+    void testGetAuthoritiesFromEmptyClaim() {
+        assertThat(authorityRegistry.getAuthoritiesFromClaim("")).isEmpty();
+        assertThat(authorityRegistry.getAuthoritiesFromClaim(null)).isEmpty();
+    }
+
+    @Test
+    void testGetStoredAuthoritiesIsLoadedOnce() {
+        Authority user = new Authority();
+        user.setName(AuthoritiesConstants.USER);
+        Authority admin = new Authority();
+        admin.setName(AuthoritiesConstants.ADMIN);
+        when(authorityRepository.findAll()).thenReturn(Arrays.asList(user, admin));
+
+        assertThat(authorityRegistry.getStoredAuthorities())
+            .containsOnlyKeys(AuthoritiesConstants.ADMIN, AuthoritiesConstants.USER)
+            .containsEntry(AuthoritiesConstants.USER, user);
+        assertThat(authorityRegistry.getStoredAuthorities().keySet()).containsExactly(AuthoritiesConstants.ADMIN, AuthoritiesConstants.USER);
+        verify(authorityRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testFindStoredAuthoritiesIgnoresUnknownNames() {
+        Authority user = new Authority();
+        user.setName(AuthoritiesConstants.USER);
+        when(authorityRepository.findAll()).thenReturn(Collections.singletonList(user));
+        authorityRegistry.loadAuthorities();
+
+        assertThat(authorityRegistry.findStoredAuthorities(Arrays.asList(AuthoritiesConstants.USER, "ROLE_UNKNOWN")))
+            .containsExactly(user);
+        assertThat(authorityRegistry.findStoredAuthorities(null)).isEmpty();
+    }
+
+    @Test
+    void testLoadAuthoritiesReplacesStoredAuthorities() {
+        Authority user = new Authority();
+        user.setName(AuthoritiesConstants.USER);
+        when(authorityRepository.findAll()).thenReturn(Collections.singletonList(user));
+        authorityRegistry.loadAuthorities();
+        when(authorityRepository.findAll()).thenReturn(Collections.emptyList());
+
+        authorityRegistry.loadAuthorities();
+
+        assertThat(authorityRegistry.getStoredAuthorities()).isEmpty();
+    }
+}
@@ -0,0 +1,19 @@
+package com.cpp.dataapi.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class BCryptCostCalibratorTest {
+
+    @Test
+    void testCalibrateKeepsMinCostWhenTooSlow() {
+        assertThat(BCryptCostCalibrator.calibrate(Duration.ZERO, 4, 6)).isEqualTo(4);
+    }
+
+    @Test
+    void testCalibrateStopsAtMaxCost() {
+        assertThat(BCryptCostCalibrator.calibrate(Duration.ofMinutes(1), 4, 5)).isEqualTo(5);
+    }
+}
@@ -0,0 +1,196 @@
+package com.cpp.dataapi.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+class BoundedPasswordEncoderTest {
+
+    private static final String THREAD_NAME_PREFIX = "password-hashing-test-";
+
+    private static final Duration ADMISSION_TIMEOUT = Duration.ofMillis(500);
+
+    private MeterRegistry meterRegistry;
+
+    private ThreadPoolTaskExecutor executor;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setThreadNamePrefix(THREAD_NAME_PREFIX);
+        executor.setThreadFactory(BoundedPasswordEncoder.poolThreadFactory(THREAD_NAME_PREFIX));
+        executor.initialize();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void testEncodeAndMatchesRunOnThePool() {
+        BoundedPasswordEncoder encoder = encoder(new BCryptPasswordEncoder(4), 1, ADMISSION_TIMEOUT);
+
+        String encoded = encoder.encode("password");
+
+        assertThat(encoder.matches("password", encoded)).isTrue();
+        assertThat(encoder.matches("wrong", encoded)).isFalse();
+        assertThat(meterRegistry.get(BoundedPasswordEncoder.DURATION_METER_NAME).tag("operation", "encode").timer().count())
+            .isEqualTo(1);
+        assertThat(meterRegistry.get(BoundedPasswordEncoder.DURATION_METER_NAME).tag("operation", "matches").timer().count())
+            .isEqualTo(2);
+        assertThat(meterRegistry.get(BoundedPasswordEncoder.WAIT_METER_NAME).tag("operation", "matches").timer().count())
+            .isEqualTo(2);
+        assertThat(meterRegistry.get(BoundedPasswordEncoder.PENDING_METER_NAME).gauge().value()).isZero();
+    }
+
+    @Test
+    void testRejectsWhenSaturated() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        BoundedPasswordEncoder encoder = encoder(new BlockingPasswordEncoder(release), 1, ADMISSION_TIMEOUT);
+        CompletableFuture<String> pending = CompletableFuture.supplyAsync(() -> encoder.encode("first"));
+        while (meterRegistry.get(BoundedPasswordEncoder.PENDING_METER_NAME).gauge().value() < 1) {
+            Thread.sleep(10);
+        }
+
+        assertThatThrownBy(() -> encoder.encode("second"))
+            .isInstanceOf(PasswordHashingSaturatedException.class)
+            .extracting(e -> ((PasswordHashingSaturatedException) e).getRetryAfter())
+            .isEqualTo(Duration.ofSeconds(1));
+        assertThat(meterRegistry.get(BoundedPasswordEncoder.REJECTED_METER_NAME).counter().count()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(pending.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+        assertThat(encoder.encode("third")).isEqualTo("third");
+    }
+
+    @Test
+    void testRejectsWhenTheQueueIsFull() throws Exception {
+        executor.shutdown();
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(0);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        CountDownLatch release = new CountDownLatch(1);
+        BoundedPasswordEncoder encoder = encoder(new BlockingPasswordEncoder(release), 2, ADMISSION_TIMEOUT);
+        CompletableFuture<String> pending = CompletableFuture.supplyAsync(() -> encoder.encode("first"));
+        while (executor.getActiveCount() < 1) {
+            Thread.sleep(10);
+        }
+
+        assertThatThrownBy(() -> encoder.encode("second")).isInstanceOf(PasswordHashingSaturatedException.class);
+        assertThat(meterRegistry.get(BoundedPasswordEncoder.REJECTED_METER_NAME).counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(BoundedPasswordEncoder.PENDING_METER_NAME).gauge().value()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(pending.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+    }
+
+    @Test
+    void testRejectsWhenWaitingTooLongForAThread() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        BoundedPasswordEncoder encoder = encoder(new BlockingPasswordEncoder(release), 2, ADMISSION_TIMEOUT);
+        CompletableFuture<String> pending = CompletableFuture.supplyAsync(() -> encoder.encode("first"));
+        while (executor.getActiveCount() < 1) {
+            Thread.sleep(10);
+        }
+
+        assertThatThrownBy(() -> encoder.encode("second")).isInstanceOf(PasswordHashingSaturatedException.class);
+        assertThat(meterRegistry.get(BoundedPasswordEncoder.REJECTED_METER_NAME).counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(BoundedPasswordEncoder.PENDING_METER_NAME).gauge().value()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(pending.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+        assertThat(encoder.encode("third")).isEqualTo("third");
+        // The rejected password was never hashed
+        assertThat(meterRegistry.get(BoundedPasswordEncoder.DURATION_METER_NAME).tag("operation", "encode").timer().count())
+            .isEqualTo(2);
+    }
+
+    @Test
+    void testRunsInlineOnThePoolThreads() throws Exception {
+        BoundedPasswordEncoder encoder = encoder(new BCryptPasswordEncoder(4), 1, ADMISSION_TIMEOUT);
+
+        // With a single thread, submitting again from the pool would never complete
+        String encoded = executor.submit(() -> encoder.encode("password")).get(5, TimeUnit.SECONDS);
+
+        assertThat(encoder.matches("password", encoded)).isTrue();
+    }
+
+    @Test
+    void testDoesNotRunInlineOnThreadsNamedLikeThePool() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        BoundedPasswordEncoder encoder = encoder(new BlockingPasswordEncoder(release), 1, ADMISSION_TIMEOUT);
+        CompletableFuture<String> pending = CompletableFuture.supplyAsync(() -> encoder.encode("first"));
+        while (meterRegistry.get(BoundedPasswordEncoder.PENDING_METER_NAME).gauge().value() < 1) {
+            Thread.sleep(10);
+        }
+
+        CompletableFuture<Throwable> spoofed = new CompletableFuture<>();
+        Thread thread = new Thread(
+            () -> {
+                try {
+                    encoder.encode("second");
+                    spoofed.complete(null);
+                } catch (RuntimeException e) {
+                    spoofed.complete(e);
+                }
+            },
+            THREAD_NAME_PREFIX + "spoofed"
+        );
+        thread.start();
+
+        assertThat(spoofed.get(5, TimeUnit.SECONDS)).isInstanceOf(PasswordHashingSaturatedException.class);
+        release.countDown();
+        assertThat(pending.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+    }
+
+    private BoundedPasswordEncoder encoder(PasswordEncoder delegate, int maxPending, Duration admissionTimeout) {
+        return new BoundedPasswordEncoder(delegate, executor, maxPending, admissionTimeout, Duration.ofSeconds(1), meterRegistry);
+    }
+
+    /**
+     * Encoder returning the raw passwords once released.
+     */
+    private static class BlockingPasswordEncoder implements PasswordEncoder {
+
+        private final CountDownLatch release;
+
+        BlockingPasswordEncoder(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return rawPassword.toString();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return rawPassword.toString().equals(encodedPassword);
+        }
+    }
+}
@@ -96,6 +96,17 @@ class DomainUserDetailsServiceIT {
         assertThat(userDetails.getUsername()).isEqualTo(USER_TWO_LOGIN);
     }
 
+    @Test
+    void assertThatEmailIsStoredInLowercase() {
+        User user = userRepository.findOneByLogin(USER_TWO_LOGIN).orElseThrow();
+        user.setEmail(USER_TWO_EMAIL.toUpperCase(Locale.ENGLISH));
+        userRepository.save(user);
+
+        assertThat(userRepository.findOneByEmail(USER_TWO_EMAIL)).isPresent();
+        UserDetails userDetails = domainUserDetailsService.loadUserByUsername(USER_TWO_EMAIL);
+        assertThat(userDetails.getUsername()).isEqualTo(USER_TWO_LOGIN);
+    }
+
     @Test
     void assertThatEmailIsPrioritizedOverLogin() {
         UserDetails userDetails = domainUserDetailsService.loadUserByUsername(USER_ONE_EMAIL);
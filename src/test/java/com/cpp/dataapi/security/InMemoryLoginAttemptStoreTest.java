@@ -0,0 +1,31 @@
+package com.cpp.dataapi.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class InMemoryLoginAttemptStoreTest {
+
+    private final InMemoryLoginAttemptStore store = new InMemoryLoginAttemptStore(Duration.ofMinutes(1), 100);
+
+    @Test
+    void testCountsCurrentAndPreviousWindows() {
+        store.increment("login:johndoe", 5);
+        store.increment("login:johndoe", 5);
+
+        assertThat(store.getCounts("login:johndoe", 5)).containsExactly(0, 2);
+
+        store.increment("login:johndoe", 6);
+
+        assertThat(store.getCounts("login:johndoe", 6)).containsExactly(2, 1);
+        assertThat(store.getCounts("login:janedoe", 6)).containsExactly(0, 0);
+    }
+
+    @Test
+    void testForgetsWindowsOlderThanThePreviousOne() {
+        store.increment("login:johndoe", 5);
+
+        assertThat(store.getCounts("login:johndoe", 7)).containsExactly(0, 0);
+    }
+}
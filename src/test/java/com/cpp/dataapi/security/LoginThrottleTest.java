@@ -0,0 +1,79 @@
+package com.cpp.dataapi.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.cpp.dataapi.config.ApplicationProperties;
+import com.cpp.dataapi.management.SecurityMetersService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LoginThrottleTest {
+
+    private static final String IP = "192.0.2.1";
+
+    private ApplicationProperties applicationProperties;
+
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setup() {
+        applicationProperties = new ApplicationProperties();
+        ApplicationProperties.Security.LoginThrottling properties = applicationProperties.getSecurity().getLoginThrottling();
+        properties.setWindow(Duration.ofHours(1));
+        properties.setMaxFailuresPerLogin(3);
+        properties.setMaxFailuresPerIp(5);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void testThrottlesLoginAfterMaxFailures() {
+        LoginThrottle loginThrottle = loginThrottle();
+        for (int i = 0; i < 3; i++) {
+            loginThrottle.checkAllowed("johndoe", IP);
+            loginThrottle.recordFailure("JohnDoe", IP);
+        }
+
+        assertThatThrownBy(() -> loginThrottle.checkAllowed("johndoe", "192.0.2.2"))
+            .isInstanceOf(LoginThrottledException.class)
+            .extracting(e -> ((LoginThrottledException) e).getRetryAfter())
+            .matches(retryAfter -> !retryAfter.isNegative() && retryAfter.compareTo(Duration.ofHours(1)) <= 0);
+        assertThatCode(() -> loginThrottle.checkAllowed("janedoe", "192.0.2.2")).doesNotThrowAnyException();
+        assertThat(meterRegistry.get(SecurityMetersService.LOGIN_THROTTLED_METER_NAME).tag("key", "login").counter().count())
+            .isEqualTo(1);
+        assertThat(meterRegistry.get(SecurityMetersService.LOGIN_FAILURES_METER_NAME).counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    void testThrottlesIpAfterMaxFailures() {
+        LoginThrottle loginThrottle = loginThrottle();
+        for (int i = 0; i < 5; i++) {
+            loginThrottle.recordFailure("user" + i, IP);
+        }
+
+        assertThatThrownBy(() -> loginThrottle.checkAllowed("johndoe", IP)).isInstanceOf(LoginThrottledException.class);
+        assertThatCode(() -> loginThrottle.checkAllowed("johndoe", "192.0.2.2")).doesNotThrowAnyException();
+        assertThat(meterRegistry.get(SecurityMetersService.LOGIN_THROTTLED_METER_NAME).tag("key", "ip").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testNeverThrottlesWhenDisabled() {
+        applicationProperties.getSecurity().getLoginThrottling().setEnabled(false);
+        LoginThrottle loginThrottle = loginThrottle();
+        for (int i = 0; i < 10; i++) {
+            loginThrottle.recordFailure("johndoe", IP);
+        }
+
+        assertThatCode(() -> loginThrottle.checkAllowed("johndoe", IP)).doesNotThrowAnyException();
+    }
+
+    private LoginThrottle loginThrottle() {
+        ApplicationProperties.Security.LoginThrottling properties = applicationProperties.getSecurity().getLoginThrottling();
+        LoginAttemptStore store = new InMemoryLoginAttemptStore(properties.getWindow(), properties.getMaxTrackedKeys());
+        return new LoginThrottle(applicationProperties, store, new SecurityMetersService(meterRegistry));
+    }
+}
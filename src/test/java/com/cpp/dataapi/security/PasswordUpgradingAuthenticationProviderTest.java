@@ -0,0 +1,77 @@
+package com.cpp.dataapi.security;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.cpp.dataapi.service.UserService;
+import java.util.Collections;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+
+class PasswordUpgradingAuthenticationProviderTest {
+
+    private static final String LOGIN = "johndoe";
+
+    private static final String PASSWORD = "password";
+
+    private BCryptPasswordEncoder bcrypt;
+
+    private DelegatingPasswordEncoder passwordEncoder;
+
+    private UserDetailsService userDetailsService;
+
+    private UserService userService;
+
+    private PasswordUpgradingAuthenticationProvider provider;
+
+    @BeforeEach
+    public void setup() {
+        bcrypt = new BCryptPasswordEncoder(4);
+        passwordEncoder = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        passwordEncoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        userDetailsService = mock(UserDetailsService.class);
+        userService = mock(UserService.class);
+        provider = new PasswordUpgradingAuthenticationProvider(userDetailsService, passwordEncoder, userService);
+    }
+
+    @Test
+    void testUpgradesHashWithoutEncodingId() {
+        String legacyPassword = bcrypt.encode(PASSWORD);
+        when(userDetailsService.loadUserByUsername(LOGIN)).thenReturn(new User(LOGIN, legacyPassword, Collections.emptyList()));
+
+        provider.authenticate(new UsernamePasswordAuthenticationToken(LOGIN, PASSWORD));
+
+        verify(userService).upgradePasswordEncoding(LOGIN, legacyPassword, PASSWORD);
+    }
+
+    @Test
+    void testUpgradesHashWithLowerCost() {
+        String weakPassword = "{bcrypt}" + new BCryptPasswordEncoder(4).encode(PASSWORD);
+        passwordEncoder = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", new BCryptPasswordEncoder(5)));
+        provider = new PasswordUpgradingAuthenticationProvider(userDetailsService, passwordEncoder, userService);
+        when(userDetailsService.loadUserByUsername(LOGIN)).thenReturn(new User(LOGIN, weakPassword, Collections.emptyList()));
+
+        provider.authenticate(new UsernamePasswordAuthenticationToken(LOGIN, PASSWORD));
+
+        verify(userService).upgradePasswordEncoding(LOGIN, weakPassword, PASSWORD);
+    }
+
+    @Test
+    void testKeepsCurrentHash() {
+        when(userDetailsService.loadUserByUsername(LOGIN))
+            .thenReturn(new User(LOGIN, passwordEncoder.encode(PASSWORD), Collections.emptyList()));
+
+        provider.authenticate(new UsernamePasswordAuthenticationToken(LOGIN, PASSWORD));
+
+        verify(userService, never()).upgradePasswordEncoding(anyString(), anyString(), anyString());
+    }
+}
@@ -1,9 +1,13 @@
 package com.cpp.dataapi.security.jwt;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
 
+import com.cpp.dataapi.config.ApplicationProperties;
 import com.cpp.dataapi.management.SecurityMetersService;
+import com.cpp.dataapi.repository.AuthorityRepository;
 import com.cpp.dataapi.security.AuthoritiesConstants;
+import com.cpp.dataapi.security.AuthorityRegistry;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
@@ -34,7 +38,7 @@ class JWTFilterTest {
 
         SecurityMetersService securityMetersService = new SecurityMetersService(new SimpleMeterRegistry());
 
-        tokenProvider = new TokenProvider(jHipsterProperties, securityMetersService);
+        tokenProvider = new TokenProvider(jHipsterProperties, securityMetersService, new ApplicationProperties(), authorityRegistry());
         ReflectionTestUtils.setField(tokenProvider, "key", Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret)));
 
         ReflectionTestUtils.setField(tokenProvider, "tokenValidityInMilliseconds", 60000);
@@ -114,4 +118,8 @@ class JWTFilterTest {
         assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
         assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
     }
+
+    private static AuthorityRegistry authorityRegistry() {
+        return new AuthorityRegistry(mock(AuthorityRepository.class));
+    }
 }
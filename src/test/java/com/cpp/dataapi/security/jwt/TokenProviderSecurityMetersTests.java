@@ -1,9 +1,13 @@
 package com.cpp.dataapi.security.jwt;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
 
+import com.cpp.dataapi.config.ApplicationProperties;
 import com.cpp.dataapi.management.SecurityMetersService;
+import com.cpp.dataapi.repository.AuthorityRepository;
 import com.cpp.dataapi.security.AuthoritiesConstants;
+import com.cpp.dataapi.security.AuthorityRegistry;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
@@ -43,7 +47,7 @@ class TokenProviderSecurityMetersTests {
 
         SecurityMetersService securityMetersService = new SecurityMetersService(meterRegistry);
 
-        tokenProvider = new TokenProvider(jHipsterProperties, securityMetersService);
+        tokenProvider = new TokenProvider(jHipsterProperties, securityMetersService, new ApplicationProperties(), authorityRegistry());
         Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret));
 
         ReflectionTestUtils.setField(tokenProvider, "key", key);
@@ -107,6 +111,29 @@ class TokenProviderSecurityMetersTests {
         assertThat(meterRegistry.get(INVALID_TOKENS_METER_EXPECTED_NAME).tag("cause", "malformed").counter().count()).isEqualTo(1);
     }
 
+    @Test
+    void testTokenCacheHitAndMissCount() {
+        String validToken = createValidToken();
+
+        tokenProvider.validateToken(validToken);
+
+        assertThat(meterRegistry.get("security.authentication.token-cache.requests").tag("result", "miss").counter().count())
+            .isEqualTo(1);
+
+        tokenProvider.getAuthentication(validToken);
+        tokenProvider.validateToken(validToken);
+
+        assertThat(meterRegistry.get("security.authentication.token-cache.requests").tag("result", "hit").counter().count())
+            .isEqualTo(2);
+    }
+
+    @Test
+    void testMalformedTokenRejectedBeforeParsingIsCounted() {
+        tokenProvider.parseToken("not a jwt");
+
+        assertThat(meterRegistry.get(INVALID_TOKENS_METER_EXPECTED_NAME).tag("cause", "malformed").counter().count()).isEqualTo(1);
+    }
+
     private String createValidToken() {
         Authentication authentication = createAuthentication();
 
@@ -155,4 +182,8 @@ class TokenProviderSecurityMetersTests {
     private double aggregate(Collection<Counter> counters) {
         return counters.stream().mapToDouble(Counter::count).sum();
     }
+
+    private static AuthorityRegistry authorityRegistry() {
+        return new AuthorityRegistry(mock(AuthorityRepository.class));
+    }
 }
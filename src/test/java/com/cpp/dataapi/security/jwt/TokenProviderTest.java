@@ -1,9 +1,13 @@
 package com.cpp.dataapi.security.jwt;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
 
+import com.cpp.dataapi.config.ApplicationProperties;
 import com.cpp.dataapi.management.SecurityMetersService;
+import com.cpp.dataapi.repository.AuthorityRepository;
 import com.cpp.dataapi.security.AuthoritiesConstants;
+import com.cpp.dataapi.security.AuthorityRegistry;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
@@ -36,7 +40,7 @@ class TokenProviderTest {
 
         SecurityMetersService securityMetersService = new SecurityMetersService(new SimpleMeterRegistry());
 
-        tokenProvider = new TokenProvider(jHipsterProperties, securityMetersService);
+        tokenProvider = new TokenProvider(jHipsterProperties, securityMetersService, new ApplicationProperties(), authorityRegistry());
         key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret));
 
         ReflectionTestUtils.setField(tokenProvider, "key", key);
@@ -88,6 +92,125 @@ class TokenProviderTest {
         assertThat(isTokenValid).isFalse();
     }
 
+    @Test
+    void testParseTokenReturnsAuthenticationOfValidToken() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        TokenValidationResult result = tokenProvider.parseToken(token);
+
+        assertThat(result.isValid()).isTrue();
+        assertThat(result.getFailure()).isNull();
+        assertThat(result.getAuthentication().getName()).isEqualTo("anonymous");
+        assertThat(result.getAuthentication().getAuthorities())
+            .extracting(GrantedAuthority::getAuthority)
+            .containsExactly(AuthoritiesConstants.ANONYMOUS);
+    }
+
+    @Test
+    void testParseTokenReturnsFailureCause() {
+        assertThat(tokenProvider.parseToken(createTokenWithDifferentSignature()).getFailure())
+            .isEqualTo(TokenValidationFailure.INVALID_SIGNATURE);
+        assertThat(tokenProvider.parseToken(createUnsupportedToken()).getFailure()).isEqualTo(TokenValidationFailure.UNSUPPORTED);
+        assertThat(tokenProvider.parseToken("not-a-jwt").getFailure()).isEqualTo(TokenValidationFailure.MALFORMED);
+        assertThat(tokenProvider.parseToken("").getFailure()).isEqualTo(TokenValidationFailure.INVALID);
+
+        ReflectionTestUtils.setField(tokenProvider, "tokenValidityInMilliseconds", -ONE_MINUTE);
+        String expiredToken = tokenProvider.createToken(createAuthentication(), false);
+        assertThat(tokenProvider.parseToken(expiredToken).getFailure()).isEqualTo(TokenValidationFailure.EXPIRED);
+    }
+
+    @Test
+    void testExpiredTokenWithAnotherSignatureIsRejectedForItsSignature() {
+        Key otherKey = Keys.hmacShaKeyFor(
+            Decoders.BASE64.decode("Xfd54a45s65fds737b9aafcb3412e07ed99b267f33413274720ddbb7f6c5e64e9f14075f2d7ed041592f0b7657baf8")
+        );
+        String expiredToken = Jwts
+            .builder()
+            .setSubject("anonymous")
+            .signWith(otherKey, SignatureAlgorithm.HS512)
+            .setExpiration(new Date(new Date().getTime() - ONE_MINUTE))
+            .compact();
+
+        assertThat(tokenProvider.parseToken(expiredToken).getFailure()).isEqualTo(TokenValidationFailure.INVALID_SIGNATURE);
+    }
+
+    @Test
+    void testCompactTokenKeepsAuthorities() {
+        ReflectionTestUtils.setField(tokenProvider, "issueCompactTokens", true);
+        Collection<GrantedAuthority> authorities = Arrays.asList(
+            new SimpleGrantedAuthority(AuthoritiesConstants.ADMIN),
+            new SimpleGrantedAuthority(AuthoritiesConstants.USER),
+            new SimpleGrantedAuthority("ROLE_SITE_MONITOR")
+        );
+        String token = tokenProvider.createToken(new UsernamePasswordAuthenticationToken("admin", "admin", authorities), false);
+
+        Authentication authentication = tokenProvider.getAuthentication(token);
+
+        assertThat(authentication.getAuthorities())
+            .extracting(GrantedAuthority::getAuthority)
+            .containsExactlyInAnyOrder(AuthoritiesConstants.ADMIN, AuthoritiesConstants.USER, "ROLE_SITE_MONITOR");
+        assertThat(Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody())
+            .containsEntry("am", 3)
+            .containsEntry("auth", "ROLE_SITE_MONITOR");
+    }
+
+    @Test
+    void testLegacyTokenIsAcceptedWhenIssuingCompactTokens() {
+        String legacyToken = tokenProvider.createToken(createAuthentication(), false);
+        ReflectionTestUtils.setField(tokenProvider, "issueCompactTokens", true);
+
+        assertThat(tokenProvider.getAuthentication(legacyToken).getAuthorities())
+            .extracting(GrantedAuthority::getAuthority)
+            .containsExactly(AuthoritiesConstants.ANONYMOUS);
+    }
+
+    @Test
+    void testTokenWithUnknownVersionIsUnsupported() {
+        String token = Jwts
+            .builder()
+            .setSubject("anonymous")
+            .claim("ver", 99)
+            .claim("am", 1)
+            .signWith(key, SignatureAlgorithm.HS512)
+            .setExpiration(new Date(new Date().getTime() + ONE_MINUTE))
+            .compact();
+
+        assertThat(tokenProvider.parseToken(token).getFailure()).isEqualTo(TokenValidationFailure.UNSUPPORTED);
+    }
+
+    @Test
+    void testGetAuthenticationIsServedFromCacheOnceValidated() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        assertThat(tokenProvider.validateToken(token)).isTrue();
+        Authentication authentication = tokenProvider.getAuthentication(token);
+
+        assertThat(authentication.getName()).isEqualTo("anonymous");
+        assertThat(tokenProvider.getAuthentication(token)).isSameAs(authentication);
+    }
+
+    @Test
+    void testGetAuthenticationIsNotCachedWhenCacheIsDisabled() {
+        JHipsterProperties jHipsterProperties = new JHipsterProperties();
+        jHipsterProperties
+            .getSecurity()
+            .getAuthentication()
+            .getJwt()
+            .setBase64Secret("fd54a45s65fds737b9aafcb3412e07ed99b267f33413274720ddbb7f6c5e64e9f14075f2d7ed041592f0b7657baf8");
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getSecurity().getTokenCache().setEnabled(false);
+        TokenProvider tokenProvider = new TokenProvider(
+            jHipsterProperties,
+            new SecurityMetersService(new SimpleMeterRegistry()),
+            applicationProperties,
+            authorityRegistry()
+        );
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        assertThat(tokenProvider.validateToken(token)).isTrue();
+        assertThat(tokenProvider.getAuthentication(token)).isNotSameAs(tokenProvider.getAuthentication(token));
+    }
+
     @Test
     void testKeyIsSetFromSecretWhenSecretIsNotEmpty() {
         final String secret = "NwskoUmKHZtzGRKJKVjsJF7BtQMMxNWi";
@@ -96,7 +219,7 @@ class TokenProviderTest {
 
         SecurityMetersService securityMetersService = new SecurityMetersService(new SimpleMeterRegistry());
 
-        TokenProvider tokenProvider = new TokenProvider(jHipsterProperties, securityMetersService);
+        TokenProvider tokenProvider = new TokenProvider(jHipsterProperties, securityMetersService, new ApplicationProperties(), authorityRegistry());
 
         Key key = (Key) ReflectionTestUtils.getField(tokenProvider, "key");
         assertThat(key).isNotNull().isEqualTo(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)));
@@ -110,7 +233,7 @@ class TokenProviderTest {
 
         SecurityMetersService securityMetersService = new SecurityMetersService(new SimpleMeterRegistry());
 
-        TokenProvider tokenProvider = new TokenProvider(jHipsterProperties, securityMetersService);
+        TokenProvider tokenProvider = new TokenProvider(jHipsterProperties, securityMetersService, new ApplicationProperties(), authorityRegistry());
 
         Key key = (Key) ReflectionTestUtils.getField(tokenProvider, "key");
         assertThat(key).isNotNull().isEqualTo(Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret)));
@@ -138,4 +261,8 @@ class TokenProviderTest {
             .setExpiration(new Date(new Date().getTime() + ONE_MINUTE))
             .compact();
     }
+
+    private static AuthorityRegistry authorityRegistry() {
+        return new AuthorityRegistry(mock(AuthorityRepository.class));
+    }
 }
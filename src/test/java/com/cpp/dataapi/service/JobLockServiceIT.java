@@ -0,0 +1,96 @@
+package com.cpp.dataapi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.cpp.dataapi.IntegrationTest;
+import com.cpp.dataapi.domain.JobLock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+/**
+ * Integration tests for {@link JobLockService}.
+ */
+@IntegrationTest
+class JobLockServiceIT {
+
+    private static final String JOB = "test-job";
+
+    private static final Duration LEASE = Duration.ofMinutes(1);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private JobLockService jobLockService;
+
+    private JobLockService otherNode;
+
+    @BeforeEach
+    public void init() {
+        mongoTemplate.dropCollection(JobLock.class);
+        meterRegistry = new SimpleMeterRegistry();
+        jobLockService = new JobLockService(mongoTemplate, meterRegistry);
+        otherNode = new JobLockService(mongoTemplate, meterRegistry);
+    }
+
+    @Test
+    void assertThatLockIsExclusiveBetweenNodes() {
+        Optional<JobLease> jobLease = jobLockService.tryLock(JOB, LEASE);
+        assertThat(jobLease).isPresent();
+        assertThat(otherNode.tryLock(JOB, LEASE)).isEmpty();
+
+        jobLockService.unlock(jobLease.get(), Duration.ZERO);
+
+        assertThat(otherNode.tryLock(JOB, LEASE)).isPresent();
+        assertThat(jobLockService.tryLock(JOB, LEASE)).isEmpty();
+        assertThat(meterRegistry.get(JobLockService.ACQUISITIONS_METER_NAME).tag("result", "acquired").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get(JobLockService.ACQUISITIONS_METER_NAME).tag("result", "skipped").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void assertThatLockCannotBeReleasedByAnotherNode() {
+        JobLease jobLease = jobLockService.tryLock(JOB, LEASE).orElseThrow();
+
+        otherNode.unlock(jobLease, Duration.ZERO);
+
+        assertThat(otherNode.tryLock(JOB, LEASE)).isEmpty();
+        assertThat(jobLockService.isHeld(jobLease)).isTrue();
+    }
+
+    @Test
+    void assertThatMinLeaseIsHeldAfterRelease() {
+        JobLease jobLease = jobLockService.tryLock(JOB, LEASE).orElseThrow();
+
+        jobLockService.unlock(jobLease, LEASE);
+
+        assertThat(otherNode.tryLock(JOB, LEASE)).isEmpty();
+    }
+
+    @Test
+    void assertThatExpiredLockIsFencedOff() {
+        JobLease expiredLease = jobLockService.tryLock(JOB, Duration.ZERO).orElseThrow();
+
+        JobLease jobLease = otherNode.tryLock(JOB, LEASE).orElseThrow();
+
+        assertThat(jobLease.getFencingToken()).isGreaterThan(expiredLease.getFencingToken());
+        assertThat(jobLockService.isHeld(expiredLease)).isFalse();
+        assertThat(otherNode.isHeld(jobLease)).isTrue();
+        assertThat(meterRegistry.get(JobLockService.LOST_METER_NAME).counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void assertThatLeaseIsBoundToTheThread() {
+        JobLease jobLease = jobLockService.tryLock(JOB, LEASE).orElseThrow();
+        assertThat(jobLockService.currentLease()).containsSame(jobLease);
+
+        jobLockService.unlock(jobLease, Duration.ZERO);
+
+        assertThat(jobLockService.currentLease()).isEmpty();
+    }
+}
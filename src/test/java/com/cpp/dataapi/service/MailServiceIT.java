@@ -1,12 +1,15 @@
 package com.cpp.dataapi.service;
 
 import static org.assertj.core.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.*;
 
 import com.cpp.dataapi.IntegrationTest;
+import com.cpp.dataapi.config.ApplicationProperties;
 import com.cpp.dataapi.config.Constants;
+import com.cpp.dataapi.domain.JobLock;
+import com.cpp.dataapi.domain.OutboxMail;
 import com.cpp.dataapi.domain.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
@@ -14,6 +17,10 @@ import java.io.InputStreamReader;
 import java.net.URI;
 import java.net.URL;
 import java.nio.charset.Charset;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -23,19 +30,20 @@ import javax.mail.internet.MimeMessage;
 import javax.mail.internet.MimeMultipart;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.ArgumentCaptor;
-import org.mockito.Captor;
-import org.mockito.MockitoAnnotations;
-import org.mockito.Spy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.thymeleaf.ThymeleafProperties;
 import org.springframework.context.MessageSource;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.mail.MailException;
 import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSenderImpl;
 import org.thymeleaf.spring5.SpringTemplateEngine;
 import tech.jhipster.config.JHipsterProperties;
 
 /**
- * Integration tests for {@link MailService}.
+ * Integration tests for {@link MailService}, and the {@link MailOutboxService} sending its emails.
  */
 @IntegrationTest
 class MailServiceIT {
@@ -55,26 +63,44 @@ class MailServiceIT {
     @Autowired
     private SpringTemplateEngine templateEngine;
 
-    @Spy
-    private JavaMailSenderImpl javaMailSender;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private JobLockService jobLockService;
+
+    private RecordingMailSender javaMailSender;
+
+    private ApplicationProperties applicationProperties;
+
+    private MeterRegistry meterRegistry;
 
-    @Captor
-    private ArgumentCaptor<MimeMessage> messageCaptor;
+    private MailOutboxService mailOutboxService;
 
     private MailService mailService;
 
     @BeforeEach
     public void setup() {
-        MockitoAnnotations.initMocks(this);
-        doNothing().when(javaMailSender).send(any(MimeMessage.class));
-        mailService = new MailService(jHipsterProperties, javaMailSender, messageSource, templateEngine);
+        mongoTemplate.remove(new Query(), OutboxMail.class);
+        javaMailSender = new RecordingMailSender();
+        applicationProperties = new ApplicationProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        mailOutboxService =
+            new MailOutboxService(mongoTemplate, javaMailSender, jHipsterProperties, jobLockService, applicationProperties, meterRegistry);
+        MailTemplateRenderer mailTemplateRenderer = new MailTemplateRenderer(
+            jHipsterProperties,
+            messageSource,
+            templateEngine,
+            new ThymeleafProperties(),
+            meterRegistry
+        );
+        mailService = new MailService(mailTemplateRenderer, mailOutboxService);
     }
 
     @Test
     void testSendEmail() throws Exception {
         mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", false, false);
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
+        MimeMessage message = sendQueuedMail();
         assertThat(message.getSubject()).isEqualTo("testSubject");
         assertThat(message.getAllRecipients()[0]).hasToString("john.doe@example.com");
         assertThat(message.getFrom()[0]).hasToString(jHipsterProperties.getMail().getFrom());
@@ -86,8 +112,7 @@ class MailServiceIT {
     @Test
     void testSendHtmlEmail() throws Exception {
         mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", false, true);
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
+        MimeMessage message = sendQueuedMail();
         assertThat(message.getSubject()).isEqualTo("testSubject");
         assertThat(message.getAllRecipients()[0]).hasToString("john.doe@example.com");
         assertThat(message.getFrom()[0]).hasToString(jHipsterProperties.getMail().getFrom());
@@ -99,8 +124,7 @@ class MailServiceIT {
     @Test
     void testSendMultipartEmail() throws Exception {
         mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", true, false);
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
+        MimeMessage message = sendQueuedMail();
         MimeMultipart mp = (MimeMultipart) message.getContent();
         MimeBodyPart part = (MimeBodyPart) ((MimeMultipart) mp.getBodyPart(0).getContent()).getBodyPart(0);
         ByteArrayOutputStream aos = new ByteArrayOutputStream();
@@ -116,8 +140,7 @@ class MailServiceIT {
     @Test
     void testSendMultipartHtmlEmail() throws Exception {
         mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", true, true);
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
+        MimeMessage message = sendQueuedMail();
         MimeMultipart mp = (MimeMultipart) message.getContent();
         MimeBodyPart part = (MimeBodyPart) ((MimeMultipart) mp.getBodyPart(0).getContent()).getBodyPart(0);
         ByteArrayOutputStream aos = new ByteArrayOutputStream();
@@ -137,8 +160,7 @@ class MailServiceIT {
         user.setEmail("john.doe@example.com");
         user.setLangKey("en");
         mailService.sendEmailFromTemplate(user, "mail/testEmail", "email.test.title");
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
+        MimeMessage message = sendQueuedMail();
         assertThat(message.getSubject()).isEqualTo("test title");
         assertThat(message.getAllRecipients()[0]).hasToString(user.getEmail());
         assertThat(message.getFrom()[0]).hasToString(jHipsterProperties.getMail().getFrom());
@@ -153,8 +175,7 @@ class MailServiceIT {
         user.setLogin("john");
         user.setEmail("john.doe@example.com");
         mailService.sendActivationEmail(user);
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
+        MimeMessage message = sendQueuedMail();
         assertThat(message.getAllRecipients()[0]).hasToString(user.getEmail());
         assertThat(message.getFrom()[0]).hasToString(jHipsterProperties.getMail().getFrom());
         assertThat(message.getContent().toString()).isNotEmpty();
@@ -168,8 +189,7 @@ class MailServiceIT {
         user.setLogin("john");
         user.setEmail("john.doe@example.com");
         mailService.sendCreationEmail(user);
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
+        MimeMessage message = sendQueuedMail();
         assertThat(message.getAllRecipients()[0]).hasToString(user.getEmail());
         assertThat(message.getFrom()[0]).hasToString(jHipsterProperties.getMail().getFrom());
         assertThat(message.getContent().toString()).isNotEmpty();
@@ -183,8 +203,7 @@ class MailServiceIT {
         user.setLogin("john");
         user.setEmail("john.doe@example.com");
         mailService.sendPasswordResetMail(user);
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
+        MimeMessage message = sendQueuedMail();
         assertThat(message.getAllRecipients()[0]).hasToString(user.getEmail());
         assertThat(message.getFrom()[0]).hasToString(jHipsterProperties.getMail().getFrom());
         assertThat(message.getContent().toString()).isNotEmpty();
@@ -193,12 +212,68 @@ class MailServiceIT {
 
     @Test
     void testSendEmailWithException() {
-        doThrow(MailSendException.class).when(javaMailSender).send(any(MimeMessage.class));
+        javaMailSender.failure = new MailSendException("test failure");
         try {
             mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", false, false);
+            mailOutboxService.sendBatch();
         } catch (Exception e) {
             fail("Exception shouldn't have been thrown");
         }
+        OutboxMail mail = mongoTemplate.findOne(new Query(), OutboxMail.class);
+        assertThat(mail.getStatus()).isEqualTo(OutboxMail.Status.PENDING);
+        assertThat(mail.getAttempts()).isEqualTo(1);
+        assertThat(mail.getNextAttemptDate()).isAfter(Instant.now());
+        assertThat(meterRegistry.get(MailOutboxService.FAILURES_METER_NAME).tag("result", "retried").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testSendEmailGivesUpAfterMaxAttempts() {
+        applicationProperties.getMailOutbox().setMaxAttempts(1);
+        javaMailSender.failure = new MailSendException("test failure");
+        mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", false, false);
+
+        mailOutboxService.sendBatch();
+
+        OutboxMail mail = mongoTemplate.findOne(new Query(), OutboxMail.class);
+        assertThat(mail.getStatus()).isEqualTo(OutboxMail.Status.FAILED);
+        assertThat(mail.getLastError()).isEqualTo("test failure");
+        javaMailSender.failure = null;
+        assertThat(mailOutboxService.sendBatch()).isZero();
+        assertThat(javaMailSender.sent).isEmpty();
+    }
+
+    @Test
+    void testSendQueuedEmailsInOneBatch() throws Exception {
+        mailService.sendEmail("john.doe@example.com", "testSubject1", "testContent", false, false);
+        mailService.sendEmail("jane.doe@example.com", "testSubject2", "testContent", false, false);
+
+        assertThat(mailOutboxService.sendBatch()).isEqualTo(2);
+
+        assertThat(javaMailSender.batches).containsExactly(2);
+        assertThat(javaMailSender.sent).extracting(MimeMessage::getSubject).containsExactly("testSubject1", "testSubject2");
+        assertThat(mongoTemplate.count(new Query(), OutboxMail.class)).isZero();
+        assertThat(meterRegistry.get(MailOutboxService.SENT_METER_NAME).counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void testSendPendingMailsSkipsTheLockWhenNoEmailIsDue() {
+        Query lock = Query.query(Criteria.where("name").is(MailOutboxService.LOCK_NAME));
+        mongoTemplate.remove(lock, JobLock.class);
+
+        mailOutboxService.sendPendingMails();
+
+        assertThat(mongoTemplate.exists(lock, JobLock.class)).isFalse();
+    }
+
+    @Test
+    void testPendingGaugeIsUpdatedBySendPendingMails() {
+        javaMailSender.failure = new MailSendException("test failure");
+        mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", false, false);
+        assertThat(meterRegistry.get(MailOutboxService.PENDING_METER_NAME).gauge().value()).isZero();
+
+        mailOutboxService.sendPendingMails();
+
+        assertThat(meterRegistry.get(MailOutboxService.PENDING_METER_NAME).gauge().value()).isEqualTo(1);
     }
 
     @Test
@@ -209,8 +284,7 @@ class MailServiceIT {
         for (String langKey : languages) {
             user.setLangKey(langKey);
             mailService.sendEmailFromTemplate(user, "mail/testEmail", "email.test.title");
-            verify(javaMailSender, atLeastOnce()).send(messageCaptor.capture());
-            MimeMessage message = messageCaptor.getValue();
+            MimeMessage message = sendQueuedMail();
 
             String propertyFilePath = "i18n/messages_" + getJavaLocale(langKey) + ".properties";
             URL resource = this.getClass().getClassLoader().getResource(propertyFilePath);
@@ -225,6 +299,16 @@ class MailServiceIT {
         }
     }
 
+    /**
+     * Send the emails of the outbox, expecting a single one.
+     */
+    private MimeMessage sendQueuedMail() {
+        javaMailSender.sent.clear();
+        mailOutboxService.sendBatch();
+        assertThat(javaMailSender.sent).hasSize(1);
+        return javaMailSender.sent.get(0);
+    }
+
     /**
      * Convert a lang key to the Java locale.
      */
@@ -240,4 +324,25 @@ class MailServiceIT {
         }
         return javaLangKey;
     }
+
+    /**
+     * Mail sender recording the messages instead of sending them, or failing them all.
+     */
+    private static class RecordingMailSender extends JavaMailSenderImpl {
+
+        private final List<MimeMessage> sent = new ArrayList<>();
+
+        private final List<Integer> batches = new ArrayList<>();
+
+        private MailException failure;
+
+        @Override
+        public void send(MimeMessage... mimeMessages) {
+            if (failure != null) {
+                throw failure;
+            }
+            batches.add(mimeMessages.length);
+            sent.addAll(Arrays.asList(mimeMessages));
+        }
+    }
 }
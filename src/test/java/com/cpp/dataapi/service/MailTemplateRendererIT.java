@@ -0,0 +1,97 @@
+package com.cpp.dataapi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.cpp.dataapi.IntegrationTest;
+import com.cpp.dataapi.domain.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Locale;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.thymeleaf.ThymeleafProperties;
+import org.springframework.context.MessageSource;
+import org.thymeleaf.spring5.SpringTemplateEngine;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Integration tests for {@link MailTemplateRenderer}.
+ */
+@IntegrationTest
+class MailTemplateRendererIT {
+
+    private static final Locale LOCALE = Locale.ENGLISH;
+
+    @Autowired
+    private JHipsterProperties jHipsterProperties;
+
+    @Autowired
+    private MessageSource messageSource;
+
+    @Autowired
+    private SpringTemplateEngine templateEngine;
+
+    private MeterRegistry meterRegistry;
+
+    private MailTemplateRenderer renderer;
+
+    private MailTemplateRenderer uncachedRenderer;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        renderer = new MailTemplateRenderer(jHipsterProperties, messageSource, templateEngine, new ThymeleafProperties(), meterRegistry);
+        ThymeleafProperties uncached = new ThymeleafProperties();
+        uncached.setCache(false);
+        uncachedRenderer = new MailTemplateRenderer(jHipsterProperties, messageSource, templateEngine, uncached, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void assertThatCachedRenderingMatchesThymeleaf() {
+        renderer.preloadTemplates();
+        User user = user("jo<h>n&'\"");
+        user.setActivationKey("activation<&>");
+        user.setResetKey("reset\"'");
+
+        for (String templateName : new String[] { "mail/activationEmail", "mail/creationEmail", "mail/passwordResetEmail" }) {
+            assertThat(renderer.render(templateName, user, LOCALE)).isEqualTo(uncachedRenderer.render(templateName, user, LOCALE));
+        }
+        assertThat(meterRegistry.get(MailTemplateRenderer.RENDER_METER_NAME).tag("cached", "true").timers()).hasSize(3);
+    }
+
+    @Test
+    void assertThatTemplatesPrintingTheNormalizedPropertiesAreCached() {
+        User user = user("John.Doe");
+        user.setEmail("John.Doe&Co@Example.com");
+
+        assertThat(renderer.render("mail/testUserEmail", user, LOCALE))
+            .isEqualTo(uncachedRenderer.render("mail/testUserEmail", user, LOCALE))
+            .contains("john.doe&amp;co@example.com");
+        assertThat(meterRegistry.get(MailTemplateRenderer.RENDER_METER_NAME).tag("cached", "true").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void assertThatUsersMissingAPrintedPropertyAreRenderedByThymeleaf() {
+        User user = user(null);
+
+        assertThat(renderer.render("mail/testEmail", user, LOCALE)).isEqualTo(uncachedRenderer.render("mail/testEmail", user, LOCALE));
+        assertThat(meterRegistry.get(MailTemplateRenderer.RENDER_METER_NAME).tag("cached", "false").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void assertThatSubjectsAreResolvedPerLocale() {
+        assertThat(renderer.getSubject("email.test.title", LOCALE)).isEqualTo("test title");
+        assertThat(renderer.getSubject("email.test.title", LOCALE)).isEqualTo("test title");
+        assertThat(renderer.getSubject("email.activation.title", LOCALE))
+            .isEqualTo(messageSource.getMessage("email.activation.title", null, LOCALE));
+    }
+
+    private static User user(String login) {
+        User user = new User();
+        user.setLogin(login);
+        user.setEmail("john.doe@example.com");
+        user.setLangKey("en");
+        return user;
+    }
+}
@@ -0,0 +1,179 @@
+package com.cpp.dataapi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.cpp.dataapi.IntegrationTest;
+import com.cpp.dataapi.config.ApplicationProperties;
+import com.cpp.dataapi.domain.User;
+import com.cpp.dataapi.repository.UserRepository;
+import com.cpp.dataapi.security.AuthoritiesConstants;
+import com.cpp.dataapi.security.AuthorityRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Aggregates;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+/**
+ * Integration tests for {@link UserCacheInvalidator}. The embedded Mongo not being a replica set, the change stream is
+ * tested through its filter and its handling of the changes.
+ */
+@IntegrationTest
+class UserCacheInvalidatorIT {
+
+    private static final String DEFAULT_LOGIN = "johndoe";
+
+    private static final String DEFAULT_EMAIL = "johndoe@localhost";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private AuthorityRegistry authorityRegistry;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private UserCache userCache;
+
+    private UserCacheInvalidator userCacheInvalidator;
+
+    private User user;
+
+    @BeforeEach
+    public void init() {
+        userRepository.deleteAll();
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getCache().getUsers().setEnabled(true);
+        applicationProperties.getCache().getUsers().getInvalidation().setMode(ApplicationProperties.Cache.Users.InvalidationMode.POLLING);
+        userCache = new UserCache(userRepository, applicationProperties, new SimpleMeterRegistry());
+        userCacheInvalidator = new UserCacheInvalidator(userCache, authorityRegistry, mongoTemplate, applicationProperties);
+
+        user = new User();
+        user.setLogin(DEFAULT_LOGIN);
+        user.setPassword(RandomStringUtils.random(60));
+        user.setActivated(true);
+        user.setEmail(DEFAULT_EMAIL);
+        user = userRepository.save(user);
+        userCacheInvalidator.poll();
+    }
+
+    @Test
+    void assertThatUserModifiedElsewhereIsEvicted() {
+        assertThat(userCache.findOneByLogin(DEFAULT_LOGIN)).isPresent();
+
+        User modified = userRepository.findOneByLogin(DEFAULT_LOGIN).orElseThrow();
+        modified.setFirstName("modified");
+        userRepository.save(modified);
+        assertThat(userCache.findOneByLogin(DEFAULT_LOGIN).orElseThrow().getFirstName()).isNull();
+
+        userCacheInvalidator.poll();
+
+        assertThat(userCache.findOneByLogin(DEFAULT_LOGIN).orElseThrow().getFirstName()).isEqualTo("modified");
+    }
+
+    @Test
+    void assertThatUserDeletedElsewhereIsEvicted() {
+        assertThat(userCache.findOneByEmailIgnoreCase(DEFAULT_EMAIL)).isPresent();
+
+        userService.deleteUser(DEFAULT_LOGIN);
+        assertThat(userCache.findOneByEmailIgnoreCase(DEFAULT_EMAIL)).isPresent();
+
+        userCacheInvalidator.poll();
+
+        assertThat(userCache.findOneByEmailIgnoreCase(DEFAULT_EMAIL)).isEmpty();
+        assertThat(userCache.getCachedIds()).isEmpty();
+    }
+
+    @Test
+    void assertThatPasswordReplacedElsewhereIsEvicted() {
+        assertThat(userCache.findOneByLogin(DEFAULT_LOGIN)).isPresent();
+
+        assertThat(userRepository.replacePassword(user.getId(), user.getPassword(), "replaced")).isTrue();
+
+        userCacheInvalidator.poll();
+
+        assertThat(userCache.findOneByLogin(DEFAULT_LOGIN).orElseThrow().getPassword()).isEqualTo("replaced");
+    }
+
+    @Test
+    void assertThatUnmodifiedUserStaysCached() {
+        assertThat(userCache.findOneByLogin(DEFAULT_LOGIN)).isPresent();
+
+        userCacheInvalidator.poll();
+        userCacheInvalidator.poll();
+
+        assertThat(userCache.getCachedIds()).containsExactly(user.getId());
+    }
+
+    @Test
+    void assertThatChangeStreamSkipsUserInserts() {
+        MongoCollection<Document> changes = mongoTemplate.getCollection("user_cache_invalidator_changes");
+        changes.drop();
+        changes.insertMany(
+            List.of(
+                change("jhi_user", "insert"),
+                change("jhi_user", "update"),
+                change("jhi_user", "replace"),
+                change("jhi_user", "delete"),
+                change("jhi_authority", "insert"),
+                change("jhi_other", "update")
+            )
+        );
+
+        List<Document> matched = changes
+            .aggregate(Collections.singletonList(Aggregates.match(UserCacheInvalidator.changeFilter())))
+            .into(new ArrayList<>());
+
+        assertThat(matched)
+            .extracting(change -> change.get("ns", Document.class).getString("coll") + ":" + change.getString("operationType"))
+            .containsExactlyInAnyOrder("jhi_user:update", "jhi_user:replace", "jhi_user:delete", "jhi_authority:insert");
+        changes.drop();
+    }
+
+    @Test
+    void assertThatUserChangedInTheChangeStreamIsEvicted() {
+        User other = new User();
+        other.setLogin("other");
+        other.setPassword(RandomStringUtils.random(60));
+        other.setActivated(true);
+        other.setEmail("other@localhost");
+        other = userRepository.save(other);
+        assertThat(userCache.findOneByLogin(DEFAULT_LOGIN)).isPresent();
+        assertThat(userCache.findOneByLogin("other")).isPresent();
+
+        userCacheInvalidator.onChange("jhi_user", new BsonObjectId(new ObjectId(user.getId())));
+
+        assertThat(userCache.getCachedIds()).containsExactly(other.getId());
+
+        userCacheInvalidator.onChange("jhi_user", new BsonString(other.getId()));
+
+        assertThat(userCache.getCachedIds()).isEmpty();
+    }
+
+    @Test
+    void assertThatAuthorityChangeInTheChangeStreamEvictsAllUsers() {
+        assertThat(userCache.findOneByLogin(DEFAULT_LOGIN)).isPresent();
+
+        userCacheInvalidator.onChange("jhi_authority", new BsonString(AuthoritiesConstants.USER));
+
+        assertThat(userCache.getCachedIds()).isEmpty();
+    }
+
+    private static Document change(String collection, String operationType) {
+        return new Document("ns", new Document("db", "test").append("coll", collection)).append("operationType", operationType);
+    }
+}
@@ -0,0 +1,212 @@
+package com.cpp.dataapi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.cpp.dataapi.config.ApplicationProperties;
+import com.cpp.dataapi.domain.User;
+import com.cpp.dataapi.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link UserCache}.
+ */
+class UserCacheTest {
+
+    private static final String LOGIN = "johndoe";
+
+    private static final String EMAIL = "johndoe@localhost";
+
+    private UserRepository userRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private User user;
+
+    @BeforeEach
+    public void setup() {
+        userRepository = mock(UserRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        user = new User();
+        user.setId("user-1");
+        user.setLogin(LOGIN);
+        user.setEmail(EMAIL);
+        when(userRepository.findOneByLogin(LOGIN)).thenReturn(Optional.of(user));
+        when(userRepository.findOneByEmailIgnoreCase(EMAIL)).thenReturn(Optional.of(user));
+    }
+
+    private UserCache userCache(boolean enabled) {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getCache().getUsers().setEnabled(enabled);
+        return new UserCache(userRepository, applicationProperties, meterRegistry);
+    }
+
+    @Test
+    void testFindOneByLoginIsCached() {
+        UserCache userCache = userCache(true);
+
+        assertThat(userCache.findOneByLogin(LOGIN)).containsSame(user);
+        assertThat(userCache.findOneByLogin(LOGIN)).containsSame(user);
+
+        verify(userRepository, times(1)).findOneByLogin(LOGIN);
+    }
+
+    @Test
+    void testFindOneByEmailIgnoreCaseSharesTheLoginEntry() {
+        UserCache userCache = userCache(true);
+
+        userCache.findOneByLogin(LOGIN);
+
+        assertThat(userCache.findOneByEmailIgnoreCase("JohnDoe@Localhost")).containsSame(user);
+        verify(userRepository, times(0)).findOneByEmailIgnoreCase("JohnDoe@Localhost");
+    }
+
+    @Test
+    void testUnknownUserIsNotCached() {
+        UserCache userCache = userCache(true);
+
+        assertThat(userCache.findOneByLogin("unknown")).isEmpty();
+        assertThat(userCache.findOneByLogin("unknown")).isEmpty();
+
+        verify(userRepository, times(2)).findOneByLogin("unknown");
+    }
+
+    @Test
+    void testEvictedUserIsLoadedAgain() {
+        UserCache userCache = userCache(true);
+
+        userCache.findOneByLogin(LOGIN);
+        userCache.evict(user);
+        userCache.findOneByLogin(LOGIN);
+        userCache.findOneByEmailIgnoreCase(EMAIL);
+
+        verify(userRepository, times(2)).findOneByLogin(LOGIN);
+        verify(userRepository, times(1)).findOneByEmailIgnoreCase(EMAIL);
+    }
+
+    @Test
+    void testUserReadDuringAnEvictionIsNotCached() {
+        UserCache userCache = userCache(true);
+        when(userRepository.findOneByLogin(LOGIN))
+            .thenAnswer(invocation -> {
+                // The user is saved, and evicted, by another thread after this stale copy was read
+                userCache.evict(user);
+                return Optional.of(user);
+            })
+            .thenReturn(Optional.of(user));
+
+        assertThat(userCache.findOneByLogin(LOGIN)).containsSame(user);
+        userCache.findOneByLogin(LOGIN);
+        userCache.findOneByLogin(LOGIN);
+        userCache.findOneByEmailIgnoreCase(EMAIL);
+
+        verify(userRepository, times(2)).findOneByLogin(LOGIN);
+        verify(userRepository, times(0)).findOneByEmailIgnoreCase(EMAIL);
+    }
+
+    @Test
+    void testUserLoadedByTheCallerIsNotCachedIfEvictedWhileRead() {
+        UserCache userCache = userCache(true);
+
+        long evictionsBeforeRead = userCache.getEvictionCount();
+        userCache.evict(user);
+        userCache.cache(user, evictionsBeforeRead);
+        assertThat(userCache.findCachedByLogin(LOGIN)).isEmpty();
+
+        userCache.cache(user, userCache.getEvictionCount());
+        assertThat(userCache.findCachedByLogin(LOGIN)).containsSame(user);
+    }
+
+    @Test
+    void testEvictById() {
+        UserCache userCache = userCache(true);
+
+        userCache.findOneByLogin(LOGIN);
+        userCache.evictById("user-2");
+        assertThat(userCache.findCachedByLogin(LOGIN)).containsSame(user);
+
+        userCache.evictById(user.getId());
+        userCache.findOneByLogin(LOGIN);
+        userCache.findOneByEmailIgnoreCase(EMAIL);
+
+        verify(userRepository, times(2)).findOneByLogin(LOGIN);
+        verify(userRepository, times(0)).findOneByEmailIgnoreCase(EMAIL);
+        assertThat(userCache.getCachedIds()).containsExactly(user.getId());
+    }
+
+    @Test
+    void testUserReadDuringTheEvictionOfAnotherUserIsCached() {
+        UserCache userCache = userCache(true);
+        when(userRepository.findOneByLogin(LOGIN))
+            .thenAnswer(invocation -> {
+                userCache.evictById("user-2");
+                return Optional.of(user);
+            });
+
+        userCache.findOneByLogin(LOGIN);
+        userCache.findOneByLogin(LOGIN);
+
+        verify(userRepository, times(1)).findOneByLogin(LOGIN);
+    }
+
+    @Test
+    void testNewCopyOfAUserReplacesThePreviousOne() {
+        UserCache userCache = userCache(true);
+        userCache.findOneByLogin(LOGIN);
+        User renamed = new User();
+        renamed.setId(user.getId());
+        renamed.setLogin("janedoe");
+        renamed.setEmail("janedoe@localhost");
+
+        userCache.cache(renamed, userCache.getEvictionCount());
+
+        assertThat(userCache.findCachedByLogin(LOGIN)).isEmpty();
+        assertThat(userCache.findCachedByLogin("janedoe")).containsSame(renamed);
+        userCache.evictById(user.getId());
+        assertThat(userCache.findCachedByLogin("janedoe")).isEmpty();
+        assertThat(userCache.getCachedIds()).isEmpty();
+    }
+
+    @Test
+    void testEvictAll() {
+        UserCache userCache = userCache(true);
+
+        userCache.findOneByLogin(LOGIN);
+        userCache.evictAll();
+        userCache.findOneByLogin(LOGIN);
+
+        verify(userRepository, times(2)).findOneByLogin(LOGIN);
+    }
+
+    @Test
+    void testDisabledCacheReadsThrough() {
+        UserCache userCache = userCache(false);
+
+        userCache.findOneByLogin(LOGIN);
+        userCache.findOneByLogin(LOGIN);
+        userCache.evict(user);
+        userCache.evictAll();
+
+        verify(userRepository, times(2)).findOneByLogin(LOGIN);
+        assertThat(meterRegistry.find("cache.gets").meters()).isEmpty();
+    }
+
+    @Test
+    void testCacheMetricsAreRegistered() {
+        UserCache userCache = userCache(true);
+
+        userCache.findOneByLogin(LOGIN);
+        userCache.findOneByLogin(LOGIN);
+
+        assertThat(meterRegistry.get("cache.gets").tags("cache", UserCache.USERS_BY_LOGIN_CACHE, "result", "hit").functionCounter().count())
+            .isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tags("cache", UserCache.USERS_BY_LOGIN_CACHE, "result", "miss").functionCounter().count())
+            .isEqualTo(1);
+    }
+}
@@ -0,0 +1,150 @@
+package com.cpp.dataapi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.cpp.dataapi.IntegrationTest;
+import com.cpp.dataapi.config.ApplicationProperties;
+import com.cpp.dataapi.repository.UserRepository;
+import com.cpp.dataapi.security.AuthorityRegistry;
+import com.cpp.dataapi.service.dto.UserImportReport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Integration tests for {@link UserImportService}.
+ */
+@IntegrationTest
+class UserImportServiceIT {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AuthorityRegistry authorityRegistry;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private MailService mailService;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @BeforeEach
+    public void init() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void assertThatRowsWhosePasswordCouldNotBeHashedFailAlone() throws Exception {
+        // The password hashing pool rejects the second password
+        AtomicInteger submitted = new AtomicInteger();
+        Executor executor = task -> {
+            if (submitted.incrementAndGet() == 2) {
+                throw new RejectedExecutionException("Saturated");
+            }
+            task.run();
+        };
+        UserImportService userImportService = new UserImportService(
+            userRepository,
+            authorityRegistry,
+            passwordEncoder,
+            executor,
+            mailService,
+            validator,
+            objectMapper,
+            applicationProperties
+        );
+        String body = String.join(
+            "\n",
+            "{\"login\":\"import-a\",\"email\":\"import-a@localhost\"}",
+            "{\"login\":\"import-b\",\"email\":\"import-b@localhost\"}",
+            "{\"login\":\"import-c\",\"email\":\"import-c@localhost\"}"
+        );
+
+        UserImportReport report = userImportService.importUsers(
+            new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)),
+            UserImportService.Format.NDJSON
+        );
+
+        assertThat(report.getCreated()).isEqualTo(2);
+        assertThat(report.getFailed()).isEqualTo(1);
+        assertThat(report.getRows())
+            .filteredOn(row -> row.getStatus() == UserImportReport.Status.FAILED)
+            .singleElement()
+            .satisfies(row -> {
+                assertThat(row.getRow()).isEqualTo(2);
+                assertThat(row.getMessage()).isEqualTo("Too many passwords are being hashed, retry later");
+            });
+        assertThat(userRepository.findOneByLogin("import-a")).isPresent();
+        assertThat(userRepository.findOneByLogin("import-b")).isEmpty();
+        assertThat(userRepository.findOneByLogin("import-c")).isPresent();
+    }
+
+    @Test
+    void assertThatPasswordsInFlightAreLimitedToThePoolSize() throws Exception {
+        // The password hashing pool only runs the passwords once asked to
+        BlockingQueue<Runnable> queued = new LinkedBlockingQueue<>();
+        UserImportService userImportService = new UserImportService(
+            userRepository,
+            authorityRegistry,
+            passwordEncoder,
+            queued::add,
+            mailService,
+            validator,
+            objectMapper,
+            applicationProperties
+        );
+        int poolSize = applicationProperties.getSecurity().getPasswordHashing().getPoolSize();
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i <= poolSize; i++) {
+            body.append("{\"login\":\"import-").append(i).append("\",\"email\":\"import-").append(i).append("@localhost\"}\n");
+        }
+
+        CompletableFuture<UserImportReport> report = CompletableFuture.supplyAsync(() -> {
+            try {
+                return userImportService.importUsers(
+                    new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8)),
+                    UserImportService.Format.NDJSON
+                );
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        while (queued.size() < poolSize) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(100);
+
+        assertThat(queued).hasSize(poolSize);
+        while (!report.isDone()) {
+            Runnable task = queued.poll(10, TimeUnit.MILLISECONDS);
+            if (task != null) {
+                task.run();
+            }
+        }
+        assertThat(report.get().getCreated()).isEqualTo(poolSize + 1);
+    }
+}
@@ -1,22 +1,32 @@
 package com.cpp.dataapi.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 
 import com.cpp.dataapi.IntegrationTest;
+import com.cpp.dataapi.config.AsyncConfiguration;
 import com.cpp.dataapi.config.Constants;
 import com.cpp.dataapi.domain.User;
 import com.cpp.dataapi.repository.UserRepository;
+import com.cpp.dataapi.repository.UserTombstoneRepository;
 import com.cpp.dataapi.service.dto.AdminUserDTO;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import tech.jhipster.security.RandomUtil;
 
 /**
@@ -43,6 +53,20 @@ class UserServiceIT {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private UserTombstoneRepository userTombstoneRepository;
+
+    @Autowired
+    @Qualifier(AsyncConfiguration.CLEANUP_EXECUTOR)
+    private ThreadPoolTaskExecutor cleanupExecutor;
+
+    @Autowired
+    @Qualifier(AsyncConfiguration.PASSWORD_HASHING_EXECUTOR)
+    private ThreadPoolTaskExecutor passwordHashingExecutor;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
     private User user;
 
     @BeforeEach
@@ -129,7 +153,7 @@ class UserServiceIT {
     }
 
     @Test
-    void assertThatNotActivatedUsersWithNotNullActivationKeyCreatedBefore3DaysAreDeleted() {
+    void assertThatNotActivatedUsersWithNotNullActivationKeyCreatedBefore3DaysAreDeleted() throws Exception {
         Instant now = Instant.now();
         user.setActivated(false);
         user.setActivationKey(RandomStringUtils.random(20));
@@ -139,13 +163,14 @@ class UserServiceIT {
         Instant threeDaysAgo = now.minus(3, ChronoUnit.DAYS);
         List<User> users = userRepository.findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(threeDaysAgo);
         assertThat(users).isNotEmpty();
-        userService.removeNotActivatedUsers();
+        removeNotActivatedUsers();
         users = userRepository.findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(threeDaysAgo);
         assertThat(users).isEmpty();
+        assertThat(userTombstoneRepository.findById(dbUser.getId())).hasValueSatisfying(tombstone -> assertThat(tombstone.getLogin()).isEqualTo(DEFAULT_LOGIN));
     }
 
     @Test
-    void assertThatNotActivatedUsersWithNullActivationKeyCreatedBefore3DaysAreNotDeleted() {
+    void assertThatNotActivatedUsersWithNullActivationKeyCreatedBefore3DaysAreNotDeleted() throws Exception {
         Instant now = Instant.now();
         user.setActivated(false);
         User dbUser = userRepository.save(user);
@@ -154,8 +179,111 @@ class UserServiceIT {
         Instant threeDaysAgo = now.minus(3, ChronoUnit.DAYS);
         List<User> users = userRepository.findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(threeDaysAgo);
         assertThat(users).isEmpty();
-        userService.removeNotActivatedUsers();
+        removeNotActivatedUsers();
         Optional<User> maybeDbUser = userRepository.findById(dbUser.getId());
         assertThat(maybeDbUser).contains(dbUser);
     }
+
+    @Test
+    void assertThatCreatingUserWithExistingLoginThrows() {
+        userRepository.save(user);
+        AdminUserDTO userDTO = new AdminUserDTO();
+        userDTO.setLogin(DEFAULT_LOGIN.toUpperCase());
+        userDTO.setEmail("another@localhost");
+
+        assertThatExceptionOfType(UsernameAlreadyUsedException.class).isThrownBy(() -> userService.createUser(userDTO));
+    }
+
+    @Test
+    void assertThatCreatingUserWithExistingEmailThrows() {
+        userRepository.save(user);
+        AdminUserDTO userDTO = new AdminUserDTO();
+        userDTO.setLogin("another");
+        userDTO.setEmail(DEFAULT_EMAIL.toUpperCase());
+
+        assertThatExceptionOfType(EmailAlreadyUsedException.class).isThrownBy(() -> userService.createUser(userDTO));
+    }
+
+    @Test
+    void assertThatRegistrationReclaimsLoginAndEmailOfNotActivatedUsers() {
+        user.setActivated(false);
+        userRepository.save(user);
+        User other = new User();
+        other.setLogin("other");
+        other.setPassword(RandomStringUtils.random(60));
+        other.setEmail("other@localhost");
+        other.setActivated(false);
+        userRepository.save(other);
+        AdminUserDTO userDTO = new AdminUserDTO();
+        userDTO.setLogin(DEFAULT_LOGIN);
+        userDTO.setEmail("other@localhost");
+
+        User registered = userService.registerUser(userDTO, "password");
+
+        assertThat(userRepository.findAll()).extracting(User::getId).containsExactly(registered.getId());
+    }
+
+    @Test
+    void assertThatRegistrationDoesNotReclaimEmailOfActivatedUser() {
+        userRepository.save(user);
+        AdminUserDTO userDTO = new AdminUserDTO();
+        userDTO.setLogin("another");
+        userDTO.setEmail(DEFAULT_EMAIL);
+
+        assertThatExceptionOfType(EmailAlreadyUsedException.class).isThrownBy(() -> userService.registerUser(userDTO, "password"));
+        assertThat(userRepository.findOneByLogin(DEFAULT_LOGIN)).isPresent();
+    }
+
+    @Test
+    void assertThatPasswordEncodingIsUpgradedOnThePool() throws Exception {
+        String outdatedPassword = user.getPassword();
+        userRepository.save(user);
+
+        userService.upgradePasswordEncoding(DEFAULT_LOGIN, outdatedPassword, "password");
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (outdatedPassword.equals(userRepository.findOneByLogin(DEFAULT_LOGIN).orElseThrow().getPassword())) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+        assertThat(passwordEncoder.matches("password", userRepository.findOneByLogin(DEFAULT_LOGIN).orElseThrow().getPassword()))
+            .isTrue();
+    }
+
+    @Test
+    void assertThatPasswordUpgradeIsSkippedWhenThePoolIsBusy() throws Exception {
+        String outdatedPassword = user.getPassword();
+        userRepository.save(user);
+        int poolSize = passwordHashingExecutor.getMaxPoolSize();
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<?>> busy = new ArrayList<>();
+        for (int i = 0; i < poolSize; i++) {
+            busy.add(
+                passwordHashingExecutor.submit(() -> {
+                    release.await();
+                    return null;
+                })
+            );
+        }
+        while (passwordHashingExecutor.getActiveCount() < poolSize) {
+            Thread.sleep(10);
+        }
+
+        userService.upgradePasswordEncoding(DEFAULT_LOGIN, outdatedPassword, "password");
+
+        release.countDown();
+        for (Future<?> task : busy) {
+            task.get(10, TimeUnit.SECONDS);
+        }
+        assertThat(passwordHashingExecutor.getThreadPoolExecutor().getQueue()).isEmpty();
+        assertThat(userRepository.findOneByLogin(DEFAULT_LOGIN).orElseThrow().getPassword()).isEqualTo(outdatedPassword);
+    }
+
+    /**
+     * Runs the cleanup job, and waits for it to complete on the single thread of the cleanup executor.
+     */
+    private void removeNotActivatedUsers() throws Exception {
+        userService.removeNotActivatedUsers();
+        cleanupExecutor.submit(() -> {}).get(10, TimeUnit.SECONDS);
+    }
 }
@@ -1,8 +1,11 @@
 package com.cpp.dataapi.service.mapper;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
 
 import com.cpp.dataapi.domain.User;
+import com.cpp.dataapi.repository.AuthorityRepository;
+import com.cpp.dataapi.security.AuthorityRegistry;
 import com.cpp.dataapi.service.dto.AdminUserDTO;
 import com.cpp.dataapi.service.dto.UserDTO;
 import java.util.ArrayList;
@@ -27,7 +30,7 @@ class UserMapperTest {
 
     @BeforeEach
     public void init() {
-        userMapper = new UserMapper();
+        userMapper = new UserMapper(new AuthorityRegistry(mock(AuthorityRepository.class)));
         user = new User();
         user.setLogin(DEFAULT_LOGIN);
         user.setPassword(RandomStringUtils.random(60));
@@ -1,5 +1,6 @@
 package com.cpp.dataapi.web.rest;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasItems;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -7,15 +8,22 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import com.cpp.dataapi.IntegrationTest;
 import com.cpp.dataapi.domain.User;
+import com.cpp.dataapi.repository.UserCursor;
 import com.cpp.dataapi.repository.UserRepository;
 import com.cpp.dataapi.security.AuthoritiesConstants;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.util.UriComponentsBuilder;
 
 /**
  * Integration tests for the {@link UserResource} REST controller.
@@ -56,6 +64,47 @@ class PublicUserResourceIT {
             .andExpect(jsonPath("$.[*].langKey").doesNotExist());
     }
 
+    @Test
+    void getAllPublicUsersWithCursor() throws Exception {
+        // Initialize the database
+        userRepository.save(user);
+        User other = UserResourceIT.createEntity();
+        other.setLogin("cursor-a");
+        other.setEmail("cursor-a@localhost");
+        userRepository.save(other);
+
+        MvcResult result = restUserMockMvc
+            .perform(get("/api/users?cursor=&size=1&sort=login,asc").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].login").value(hasItem("cursor-a")))
+            .andReturn();
+        String link = result.getResponse().getHeader(HttpHeaders.LINK);
+        String next = link.substring(link.indexOf('<') + 1, link.indexOf('>'));
+        String cursor = UriComponentsBuilder.fromUriString(next).build().getQueryParams().getFirst("cursor");
+
+        // The cursor is only encoded, so it must not carry anything hidden from anonymous clients
+        String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        assertThat(decoded).contains("cursor-a").doesNotContain("@localhost");
+        assertThat(UserCursor.decode(cursor).getValue()).isEqualTo("cursor-a");
+        restUserMockMvc
+            .perform(get(next).accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].login").value(hasItem(DEFAULT_LOGIN)));
+    }
+
+    @Test
+    void getAllPublicUsersWithCursorSortedOnHiddenProperty() throws Exception {
+        for (String property : new String[] { "email", "firstName", "lastName" }) {
+            restUserMockMvc
+                .perform(get("/api/users?cursor=&sort=" + property + ",asc").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        }
+        String emailCursor = UserCursor.at(Sort.Order.asc("email"), "john.doe@localhost", "").encode();
+        restUserMockMvc
+            .perform(get("/api/users?cursor=" + emailCursor).accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     void getAllAuthorities() throws Exception {
         restUserMockMvc
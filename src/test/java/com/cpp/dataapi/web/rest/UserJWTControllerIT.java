@@ -10,12 +10,15 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.cpp.dataapi.IntegrationTest;
+import com.cpp.dataapi.config.ApplicationProperties;
 import com.cpp.dataapi.domain.User;
 import com.cpp.dataapi.repository.UserRepository;
+import com.cpp.dataapi.web.rest.errors.ErrorConstants;
 import com.cpp.dataapi.web.rest.vm.LoginVM;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.web.servlet.MockMvc;
@@ -36,6 +39,9 @@ class UserJWTControllerIT {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
     @Test
     void testAuthorize() throws Exception {
         User user = new User();
@@ -92,4 +98,34 @@ class UserJWTControllerIT {
             .andExpect(jsonPath("$.id_token").doesNotExist())
             .andExpect(header().doesNotExist("Authorization"));
     }
+
+    @Test
+    void testAuthorizeIsThrottledAfterRepeatedFailures() throws Exception {
+        User user = new User();
+        user.setLogin("user-jwt-controller-throttled");
+        user.setEmail("user-jwt-controller-throttled@example.com");
+        user.setActivated(true);
+        user.setPassword(passwordEncoder.encode("test"));
+
+        userRepository.save(user);
+
+        LoginVM login = new LoginVM();
+        login.setUsername("user-jwt-controller-throttled");
+        login.setPassword("wrong password");
+        byte[] failedLogin = TestUtil.convertObjectToJsonBytes(login);
+        for (int i = 0; i < applicationProperties.getSecurity().getLoginThrottling().getMaxFailuresPerLogin(); i++) {
+            mockMvc
+                .perform(post("/api/authenticate").contentType(MediaType.APPLICATION_JSON).content(failedLogin))
+                .andExpect(status().isUnauthorized());
+        }
+
+        // Even the right password is rejected, without being checked
+        login.setPassword("test");
+        mockMvc
+            .perform(post("/api/authenticate").contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(login)))
+            .andExpect(status().isTooManyRequests())
+            .andExpect(header().exists(HttpHeaders.RETRY_AFTER))
+            .andExpect(jsonPath("$.message").value(ErrorConstants.ERR_LOGIN_THROTTLED))
+            .andExpect(header().doesNotExist("Authorization"));
+    }
 }
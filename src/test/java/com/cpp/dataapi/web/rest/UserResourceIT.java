@@ -7,14 +7,20 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import com.cpp.dataapi.IntegrationTest;
+import com.cpp.dataapi.config.AsyncConfiguration;
 import com.cpp.dataapi.domain.Authority;
 import com.cpp.dataapi.domain.User;
+import com.cpp.dataapi.domain.UserTombstone;
 import com.cpp.dataapi.repository.UserRepository;
+import com.cpp.dataapi.repository.UserTombstoneRepository;
 import com.cpp.dataapi.security.AuthoritiesConstants;
+import com.cpp.dataapi.service.UserChangeFeedService;
 import com.cpp.dataapi.service.dto.AdminUserDTO;
 import com.cpp.dataapi.service.dto.UserDTO;
 import com.cpp.dataapi.service.mapper.UserMapper;
 import com.cpp.dataapi.web.rest.vm.ManagedUserVM;
+import com.jayway.jsonpath.JsonPath;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
 import java.util.function.Consumer;
@@ -22,10 +28,14 @@ import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 /**
  * Integration tests for the {@link UserResource} REST controller.
@@ -61,12 +71,19 @@ class UserResourceIT {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserTombstoneRepository userTombstoneRepository;
+
     @Autowired
     private UserMapper userMapper;
 
     @Autowired
     private MockMvc restUserMockMvc;
 
+    @Autowired
+    @Qualifier(AsyncConfiguration.EXPORT_EXECUTOR)
+    private ThreadPoolTaskExecutor exportExecutor;
+
     private User user;
 
     /**
@@ -238,6 +255,190 @@ class UserResourceIT {
             .andExpect(jsonPath("$.[*].langKey").value(hasItem(DEFAULT_LANGKEY)));
     }
 
+    @Test
+    void getAllUsersWithCursor() throws Exception {
+        // Initialize the database, with users missing the sort property and sharing it
+        userRepository.save(user);
+        userRepository.save(createUser("cursor-a", null));
+        userRepository.save(createUser("cursor-b", null));
+        userRepository.save(createUser("cursor-c", DEFAULT_FIRSTNAME));
+        userRepository.save(createUser("cursor-d", "a"));
+
+        List<String> logins = new ArrayList<>();
+        String next = "/api/admin/users?cursor=&size=2&sort=firstName,desc&total=true";
+        while (next != null) {
+            MvcResult result = restUserMockMvc
+                .perform(get(next).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "5"))
+                .andReturn();
+            logins.addAll(JsonPath.read(result.getResponse().getContentAsString(), "$.[*].login"));
+            String link = result.getResponse().getHeader(HttpHeaders.LINK);
+            next = link != null ? link.substring(link.indexOf('<') + 1, link.indexOf('>')) : null;
+        }
+
+        assertThat(logins).hasSize(5);
+        assertThat(logins.subList(0, 2)).containsExactlyInAnyOrder(DEFAULT_LOGIN, "cursor-c");
+        assertThat(logins.get(2)).isEqualTo("cursor-d");
+        assertThat(logins.subList(3, 5)).containsExactlyInAnyOrder("cursor-a", "cursor-b");
+    }
+
+    @Test
+    void getAllUsersWithInvalidCursor() throws Exception {
+        restUserMockMvc.perform(get("/api/admin/users?cursor=invalid").accept(MediaType.APPLICATION_JSON)).andExpect(status().isBadRequest());
+        restUserMockMvc
+            .perform(get("/api/admin/users?cursor=&sort=password,asc").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+        restUserMockMvc
+            .perform(get("/api/admin/users?cursor=&sort=login,asc&sort=email,asc").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void exportUsers() throws Exception {
+        // Initialize the database
+        userRepository.save(user);
+        userRepository.save(createUser("export-a", null));
+        long exportTasks = exportExecutor.getThreadPoolExecutor().getTaskCount();
+
+        MvcResult result = restUserMockMvc
+            .perform(get("/api/admin/export/users").accept(UserResource.NDJSON_MEDIA_TYPE))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        assertThat(result.getRequest().getAsyncContext().getTimeout()).isEqualTo(Duration.ofHours(1).toMillis());
+        assertThat(exportExecutor.getThreadPoolExecutor().getTaskCount()).isEqualTo(exportTasks + 1);
+        String body = restUserMockMvc
+            .perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(UserResource.NDJSON_MEDIA_TYPE))
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(Arrays.stream(lines).map(line -> (String) JsonPath.read(line, "$.login"))).containsExactlyInAnyOrder(DEFAULT_LOGIN, "export-a");
+    }
+
+    @Test
+    void exportUsersModifiedSince() throws Exception {
+        // Initialize the database
+        userRepository.save(user);
+
+        MvcResult result = restUserMockMvc
+            .perform(get("/api/admin/export/users?modifiedSince=" + Instant.now().plusSeconds(60)).accept(UserResource.NDJSON_MEDIA_TYPE))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        restUserMockMvc.perform(asyncDispatch(result)).andExpect(status().isOk()).andExpect(content().string(""));
+    }
+
+    @Test
+    void importUsersFromNdjson() throws Exception {
+        // Initialize the database
+        userRepository.save(user);
+        String body = String.join(
+            "\n",
+            "{\"login\":\"import-a\",\"email\":\"Import-A@localhost\",\"authorities\":[\"" + AuthoritiesConstants.USER + "\"]}",
+            "",
+            "{\"login\":\"" + DEFAULT_LOGIN + "\",\"email\":\"another@localhost\"}",
+            "{\"login\":\"import-b\",\"email\":\"invalid\"}",
+            "{\"login\":\"import-c\",\"authorities\":[\"ROLE_UNKNOWN\"]}",
+            "not json"
+        );
+
+        restUserMockMvc
+            .perform(post("/api/admin/import/users").contentType(UserResource.NDJSON_MEDIA_TYPE).content(body))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.created").value(1))
+            .andExpect(jsonPath("$.failed").value(4))
+            .andExpect(jsonPath("$.rows.[*].row").value(hasItems(1, 3, 4, 5, 6)))
+            .andExpect(jsonPath("$.rows.[0].status").value("CREATED"))
+            .andExpect(jsonPath("$.rows.[1].message").value("Login name already used"));
+
+        Optional<User> imported = userRepository.findOneByLogin("import-a");
+        assertThat(imported).isPresent();
+        assertThat(imported.get().getEmail()).isEqualTo("import-a@localhost");
+        assertThat(imported.get().isActivated()).isTrue();
+        assertThat(imported.get().getPassword()).startsWith("{bcrypt}");
+        assertThat(imported.get().getAuthorities()).extracting(Authority::getName).containsExactly(AuthoritiesConstants.USER);
+        assertThat(userRepository.findOneByLogin("import-b")).isEmpty();
+        assertThat(userRepository.findOneByLogin("import-c")).isEmpty();
+    }
+
+    @Test
+    void importUsersFromCsv() throws Exception {
+        String body = String.join(
+            "\n",
+            "login,email,firstName,authorities",
+            "import-a,import-a@localhost,," + AuthoritiesConstants.USER + ";" + AuthoritiesConstants.ADMIN,
+            "import-b,import-a@localhost,Bob,",
+            ""
+        );
+
+        restUserMockMvc
+            .perform(post("/api/admin/import/users").contentType(UserResource.CSV_MEDIA_TYPE).content(body))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.created").value(1))
+            .andExpect(jsonPath("$.failed").value(1))
+            .andExpect(jsonPath("$.rows.[1].row").value(2))
+            .andExpect(jsonPath("$.rows.[1].message").value("Email is already in use"));
+
+        Optional<User> imported = userRepository.findOneByLogin("import-a");
+        assertThat(imported).isPresent();
+        assertThat(imported.get().getFirstName()).isNull();
+        assertThat(imported.get().getAuthorities())
+            .extracting(Authority::getName)
+            .containsExactlyInAnyOrder(AuthoritiesConstants.USER, AuthoritiesConstants.ADMIN);
+    }
+
+    @Test
+    void getUserChanges() throws Exception {
+        // Initialize the database, without the deletions of the previous tests
+        userTombstoneRepository.deleteAll();
+        userRepository.save(user);
+
+        MvcResult result = restUserMockMvc
+            .perform(get("/api/admin/changes/users").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.changes.[*].login").value(hasItem(DEFAULT_LOGIN)))
+            .andExpect(jsonPath("$.changes.[?(@.login == '" + DEFAULT_LOGIN + "')].type").value(hasItem("CREATED")))
+            .andExpect(jsonPath("$.caughtUp").value(true))
+            .andReturn();
+        String token = JsonPath.read(result.getResponse().getContentAsString(), "$.resumeToken");
+
+        restUserMockMvc.perform(delete("/api/admin/users/{login}", user.getLogin())).andExpect(status().isNoContent());
+
+        restUserMockMvc
+            .perform(get("/api/admin/changes/users?token=" + token).accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.changes.length()").value(1))
+            .andExpect(jsonPath("$.changes.[0].type").value("DELETED"))
+            .andExpect(jsonPath("$.changes.[0].id").value(user.getId()))
+            .andExpect(jsonPath("$.changes.[0].login").value(DEFAULT_LOGIN))
+            .andExpect(jsonPath("$.changes.[0].user").doesNotExist());
+    }
+
+    @Test
+    void getUserChangesWithInvalidOrExpiredToken() throws Exception {
+        restUserMockMvc
+            .perform(get("/api/admin/changes/users?token=invalid").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+        String expiredToken = UserChangeFeedService.since(Instant.now().minus(UserTombstone.RETENTION).minusSeconds(60)).encode();
+        restUserMockMvc
+            .perform(get("/api/admin/changes/users?token=" + expiredToken).accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isGone());
+    }
+
+    private static User createUser(String login, String firstName) {
+        User user = new User();
+        user.setLogin(login);
+        user.setPassword(RandomStringUtils.random(60));
+        user.setActivated(true);
+        user.setEmail(login + "@localhost");
+        user.setFirstName(firstName);
+        return user;
+    }
+
     @Test
     void getUser() throws Exception {
         // Initialize the database
@@ -3,6 +3,7 @@ package com.cpp.dataapi.web.rest.errors;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -11,6 +12,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -106,6 +108,26 @@ class ExceptionTranslatorIT {
             .andExpect(jsonPath("$.title").value("test response status"));
     }
 
+    @Test
+    void testPasswordHashingSaturated() throws Exception {
+        mockMvc
+            .perform(get("/api/exception-translator-test/password-hashing-saturated"))
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"))
+            .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+            .andExpect(jsonPath("$.message").value(ErrorConstants.ERR_PASSWORD_HASHING_SATURATED));
+    }
+
+    @Test
+    void testTaskRejected() throws Exception {
+        mockMvc
+            .perform(get("/api/exception-translator-test/task-rejected"))
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+            .andExpect(jsonPath("$.message").value(ErrorConstants.ERR_EXECUTOR_SATURATED))
+            .andExpect(jsonPath("$.detail").value("Too many requests of this kind are running, please retry later"));
+    }
+
     @Test
     void testInternalServerError() throws Exception {
         mockMvc
@@ -1,7 +1,10 @@
 package com.cpp.dataapi.web.rest.errors;
 
+import com.cpp.dataapi.security.PasswordHashingSaturatedException;
+import java.time.Duration;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.AccessDeniedException;
@@ -41,6 +44,16 @@ public class ExceptionTranslatorTestController {
         throw new TestResponseStatusException();
     }
 
+    @GetMapping("/password-hashing-saturated")
+    public void passwordHashingSaturated() {
+        throw new PasswordHashingSaturatedException(Duration.ofMillis(1500));
+    }
+
+    @GetMapping("/task-rejected")
+    public void taskRejected() {
+        throw new TaskRejectedException("test task rejected");
+    }
+
     @GetMapping("/internal-server-error")
     public void internalServerError() {
         throw new RuntimeException();
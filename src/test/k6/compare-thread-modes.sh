@@ -0,0 +1,33 @@
+#!/usr/bin/env bash
+# Runs thread-modes.js against the packaged application, once on platform threads and once on virtual threads.
+# Requires Java 21 or later, k6, the jar built by ./mvnw -Pprod clean package -DskipTests, and the MongoDB of the prod
+# profile, for example started by docker-compose -f src/main/docker/mongodb.yml up -d.
+# The k6 summaries and the application logs are written to target/k6/.
+set -euo pipefail
+
+cd "$(dirname "$0")/../../.."
+jar=$(ls target/*.jar | grep -v '\.original$' | head -n 1)
+base_url=${BASE_URL:-http://localhost:8080}
+mkdir -p target/k6
+
+for mode in platform virtual; do
+    enabled=false
+    if [ "$mode" = virtual ]; then
+        enabled=true
+    fi
+    java ${JAVA_OPTS:-} -jar "$jar" --application.virtual-threads.enabled="$enabled" >"target/k6/$mode.log" 2>&1 &
+    pid=$!
+    trap 'kill "$pid" 2>/dev/null || true' EXIT
+    until curl -fs "$base_url/management/health" >/dev/null; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "The application did not start, see target/k6/$mode.log" >&2
+            exit 1
+        fi
+        sleep 2
+    done
+    k6 run -e MODE="$mode" -e BASE_URL="$base_url" --summary-export "target/k6/$mode.json" src/test/k6/thread-modes.js ||
+        echo "The $mode run crossed a threshold" >&2
+    curl -fs "$base_url/management/prometheus" >"target/k6/$mode.prom" || true
+    kill "$pid"
+    wait "$pid" || true
+done
@@ -0,0 +1,43 @@
+// Load test of the requests waiting on MongoDB, run once per thread mode by compare-thread-modes.sh.
+// See "Virtual threads" in the README.
+import http from 'k6/http';
+import { check, fail } from 'k6';
+
+const baseUrl = __ENV.BASE_URL || 'http://localhost:8080';
+
+export const options = {
+  scenarios: {
+    reads: {
+      executor: 'constant-vus',
+      vus: Number(__ENV.VUS || 1000),
+      duration: __ENV.DURATION || '60s',
+    },
+  },
+  thresholds: {
+    http_req_failed: ['rate<0.01'],
+  },
+  summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+  tags: {
+    mode: __ENV.MODE || 'unknown',
+  },
+};
+
+// Authenticates once, so that the password hashing pool is not part of the measure
+export function setup() {
+  const response = http.post(
+    `${baseUrl}/api/authenticate`,
+    JSON.stringify({ username: __ENV.USERNAME || 'admin', password: __ENV.PASSWORD || 'admin' }),
+    { headers: { 'Content-Type': 'application/json' } }
+  );
+  if (response.status !== 200) {
+    fail(`Could not authenticate: ${response.status}`);
+  }
+  return { token: response.json('id_token') };
+}
+
+export default function (data) {
+  const params = name => ({ headers: { Authorization: `Bearer ${data.token}` }, tags: { name } });
+  check(http.get(`${baseUrl}/api/account`, params('account')), { account: r => r.status === 200 });
+  check(http.get(`${baseUrl}/api/users?page=0&size=20`, params('users')), { users: r => r.status === 200 });
+  check(http.get(`${baseUrl}/api/admin/users?page=0&size=20`, params('admin-users')), { 'admin users': r => r.status === 200 });
+}